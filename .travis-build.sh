@@ -136,6 +136,9 @@ if [[ "${GROUP}" == "jdk.jar" || "${GROUP}" == "all" ]]; then
   ant jdk.jar
   ## Run the tests for the type systems that use the annotated JDK
   ant index-tests lock-tests nullness-tests-nobuildjdk
+  ## Run the same tests with concurrent compilations in one JVM, to check
+  ## that the parallel mode of the test runner does not change the results.
+  ant -Dtests.threads=4 -Dtests.forkmode=once index-tests lock-tests nullness-tests-nobuildjdk
 fi
 
 if [[ "${GROUP}" == "misc" || "${GROUP}" == "all" ]]; then
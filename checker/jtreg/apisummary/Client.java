@@ -0,0 +1,7 @@
+class Client {
+    void use() {
+        Lib.field.toString();
+        Lib.get().toString();
+        Lib.nonNull().toString();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * @test
+ * @summary Test that the annotated types that the -AapiSummaryDir command-line option writes are
+ * read back by the -AapiSummaryPath command-line option, in place of the annotations in the class
+ * file.
+ *
+ * @compile -source 7 -target 7 Main.java
+ * @run main Main
+ */
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.processing.Processor;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.checker.nullness.NullnessChecker;
+
+public class Main {
+
+    /** The first four bytes of a summary file. */
+    private static final int MAGIC = 0x43465341;
+
+    /** The class path of the Nullness Checker. */
+    private static final String CLASSPATH = "../../dist/javac.jar:../../dist/checker.jar";
+
+    public static void main(String[] args) throws IOException {
+        File testDir = new File(System.getProperty("test.src", "."));
+        File summaryDir = new File("summary");
+        File classesDir = new File("classes");
+        summaryDir.mkdirs();
+        classesDir.mkdirs();
+
+        // Write the summary of the annotated library.
+        List<String> errors =
+                compile(
+                        new File(testDir, "annotated/Lib.java"),
+                        Arrays.asList(
+                                "-classpath",
+                                CLASSPATH,
+                                "-proc:only",
+                                "-AapiSummaryDir=" + summaryDir.getPath()),
+                        true);
+        expect(Collections.<String>emptyList(), errors);
+        File summary = new File(summaryDir, NullnessChecker.class.getName() + ".apisummary");
+        try (DataInputStream in = new DataInputStream(new FileInputStream(summary))) {
+            if (in.readInt() != MAGIC) {
+                throw new AssertionError(summary + " is not a summary file");
+            }
+        }
+
+        // The class file that the client is compiled against has no annotations.
+        errors =
+                compile(
+                        new File(testDir, "unannotated/Lib.java"),
+                        Arrays.asList("-d", classesDir.getPath()),
+                        false);
+        expect(Collections.<String>emptyList(), errors);
+
+        File client = new File(testDir, "Client.java");
+        String classpath = CLASSPATH + File.pathSeparator + classesDir.getPath();
+        errors = compile(client, Arrays.asList("-classpath", classpath, "-proc:only"), true);
+        expect(Collections.<String>emptyList(), errors);
+
+        errors =
+                compile(
+                        client,
+                        Arrays.asList(
+                                "-classpath",
+                                classpath,
+                                "-proc:only",
+                                "-AapiSummaryPath=" + summaryDir.getPath()),
+                        true);
+        expect(Arrays.asList("3:dereference.of.nullable", "4:dereference.of.nullable"), errors);
+    }
+
+    /**
+     * Compiles {@code file}, with the Nullness Checker if {@code check} is true, and returns the
+     * line number and message key of each error.
+     */
+    private static List<String> compile(File file, List<String> options, boolean check) {
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = javac.getStandardFileManager(null, null, null);
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        List<String> allOptions = new ArrayList<>(options);
+        if (check) {
+            allOptions.add("-Anomsgtext");
+        }
+        JavaCompiler.CompilationTask task =
+                javac.getTask(
+                        null,
+                        null,
+                        diagnostics,
+                        allOptions,
+                        null,
+                        fileManager.getJavaFileObjects(file));
+        if (check) {
+            task.setProcessors(Arrays.<Processor>asList(new NullnessChecker()));
+        }
+        task.call();
+        List<String> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+            if (d.getKind() == Diagnostic.Kind.ERROR) {
+                String message = d.getMessage(null).trim();
+                if (message.startsWith("(") && message.endsWith(")")) {
+                    message = message.substring(1, message.length() - 1);
+                }
+                errors.add(d.getLineNumber() + ":" + message);
+            }
+        }
+        return errors;
+    }
+
+    /** Throws an exception if {@code found} is not {@code expected}. */
+    private static void expect(List<String> expected, List<String> found) {
+        if (!expected.equals(found)) {
+            throw new AssertionError("Expected " + expected + " but found " + found);
+        }
+    }
+}
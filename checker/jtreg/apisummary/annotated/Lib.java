@@ -0,0 +1,13 @@
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+public class Lib {
+    public static @Nullable Object field;
+
+    public static @Nullable Object get() {
+        return null;
+    }
+
+    public static Object nonNull() {
+        return "";
+    }
+}
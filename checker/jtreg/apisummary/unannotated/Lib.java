@@ -0,0 +1,11 @@
+public class Lib {
+    public static Object field;
+
+    public static Object get() {
+        return null;
+    }
+
+    public static Object nonNull() {
+        return "";
+    }
+}
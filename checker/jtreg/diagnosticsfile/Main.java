@@ -0,0 +1,99 @@
+/*
+ * @test
+ * @summary Test that the -AdiagnosticsFile command-line option writes one JSON record per
+ * diagnostic, and that the compiler output then shows only the message keys.
+ *
+ * @compile -source 7 -target 7 Main.java
+ * @run main Main
+ */
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.checker.nullness.NullnessChecker;
+
+public class Main {
+
+    public static void main(String[] args) throws Exception {
+        File diagnosticsFile = new File("diagnostics.jsonl");
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = javac.getStandardFileManager(null, null, null);
+        File testfile = new File(System.getProperty("test.src", "."), "Test.java");
+        JavaCompiler.CompilationTask task =
+                javac.getTask(
+                        null,
+                        null,
+                        diagnostics,
+                        Arrays.asList(
+                                "-classpath",
+                                "../../dist/javac.jar:../../dist/checker.jar",
+                                "-proc:only",
+                                "-AdiagnosticsFile=" + diagnosticsFile.getPath()),
+                        null,
+                        fileManager.getJavaFileObjects(testfile));
+        task.setProcessors(Arrays.asList(new NullnessChecker()));
+        if (task.call()) {
+            throw new AssertionError("Expected type-checking errors");
+        }
+
+        // The compiler output contains only the message keys.
+        List<String> messages = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+            if (d.getKind() == Diagnostic.Kind.ERROR) {
+                messages.add(d.getMessage(null));
+            }
+        }
+        expect(
+                Arrays.asList("(assignment.type.incompatible)", "(dereference.of.nullable)"),
+                messages);
+
+        List<String> records =
+                Files.readAllLines(diagnosticsFile.toPath(), StandardCharsets.UTF_8);
+        if (records.size() != 2) {
+            throw new AssertionError("Expected 2 records: " + records);
+        }
+        String assignment = records.get(0);
+        String dereference = records.get(1);
+        expectContains(assignment, "\"kind\":\"ERROR\"");
+        expectContains(assignment, "\"key\":\"assignment.type.incompatible\"");
+        expectContains(assignment, "Test.java\"");
+        expectContains(assignment, "\"line\":5,\"column\":20");
+        expectContains(assignment, ",\"details\":{\"found\":\"");
+        expectContains(assignment, ",\"required\":\"");
+        expectContains(dereference, "\"key\":\"dereference.of.nullable\"");
+        expectContains(dereference, "\"line\":6,\"column\":9");
+        expectContains(dereference, "\"args\":[\"p\"]");
+        for (String record : records) {
+            expectContains(
+                    record,
+                    "{\"checker\":\"org.checkerframework.checker.nullness.NullnessChecker\"");
+            if (!record.endsWith("}")) {
+                throw new AssertionError("Incomplete record: " + record);
+            }
+        }
+    }
+
+    /** Throws an exception if {@code actual} is not equal to {@code expected}. */
+    private static void expect(List<String> expected, List<String> actual) {
+        if (!expected.equals(actual)) {
+            throw new AssertionError("Expected " + expected + " but got " + actual);
+        }
+    }
+
+    /** Throws an exception if {@code record} does not contain {@code text}. */
+    private static void expectContains(String record, String text) {
+        if (!record.contains(text)) {
+            throw new AssertionError("Expected " + text + " in " + record);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+public class Test {
+    void m(@Nullable Object p) {
+        Object o = p;
+        p.toString();
+    }
+}
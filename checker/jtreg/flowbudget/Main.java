@@ -0,0 +1,76 @@
+/*
+ * @test
+ * @summary Test that the -AflowBudgetIterations command-line option causes a note that names
+ * each method whose dataflow budget was exceeded.
+ *
+ * @compile -source 7 -target 7 Main.java
+ * @run main Main
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.checker.nullness.NullnessChecker;
+
+public class Main {
+
+    public static void main(String[] args) {
+        List<String> withBudget = notes("-AflowBudgetIterations=1");
+        if (!contains(withBudget, "Dataflow analysis of Test.loop(java.lang.Object[])")) {
+            throw new AssertionError("No budget note for Test.loop: " + withBudget);
+        }
+
+        List<String> withoutBudget = notes("-AprintErrorStack");
+        if (contains(withoutBudget, "exceeded its budget")) {
+            throw new AssertionError("Unexpected budget note: " + withoutBudget);
+        }
+    }
+
+    /** Checks Test.java with the Nullness Checker and returns the text of all notes. */
+    private static List<String> notes(String option) {
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = javac.getStandardFileManager(null, null, null);
+        File testfile = new File(System.getProperty("test.src", "."), "Test.java");
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaCompiler.CompilationTask task =
+                javac.getTask(
+                        null,
+                        null,
+                        diagnostics,
+                        Arrays.asList(
+                                "-classpath",
+                                "../../dist/javac.jar:../../dist/checker.jar",
+                                "-proc:only",
+                                option),
+                        null,
+                        fileManager.getJavaFileObjects(testfile));
+        task.setProcessors(Arrays.asList(new NullnessChecker()));
+        if (!task.call()) {
+            throw new AssertionError("Type-checking failed: " + diagnostics.getDiagnostics());
+        }
+        List<String> result = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+            if (d.getKind() == Diagnostic.Kind.NOTE) {
+                result.add(d.getMessage(null));
+            }
+        }
+        return result;
+    }
+
+    /** Returns true if one of {@code messages} contains {@code text}. */
+    private static boolean contains(List<String> messages, String text) {
+        for (String message : messages) {
+            if (message.contains(text)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * @test
+ * @summary Test that the -AincrementalDir command-line option skips the methods that were checked
+ * without errors in an earlier run, unless a dependency changed.
+ *
+ * @compile -source 7 -target 7 Main.java
+ * @run main Main
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.processing.Processor;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.checker.nullness.NullnessChecker;
+
+public class Main {
+
+    /** The class path of the Nullness Checker. */
+    private static final String CLASSPATH = "../../dist/javac.jar:../../dist/checker.jar";
+
+    /** The directory that holds the cache. */
+    private static final File INCREMENTAL_DIR = new File("inc");
+
+    /** The file that the performance statistics, which list every analyzed method, go to. */
+    private static final File STATS = new File("stats.csv");
+
+    public static void main(String[] args) throws IOException {
+        File srcDir = new File("src");
+        srcDir.mkdirs();
+        INCREMENTAL_DIR.mkdirs();
+        File dep = new File(srcDir, "Dep.java");
+        File test = new File(srcDir, "Test.java");
+        write(
+                dep,
+                "class Dep {",
+                "    static Object get() {",
+                "        return \"\";",
+                "    }",
+                "}");
+        write(
+                test,
+                "import org.checkerframework.checker.nullness.qual.Nullable;",
+                "class Test {",
+                "    void clean() {",
+                "        \"\".toString();",
+                "    }",
+                "    void usesDep() {",
+                "        Dep.get().toString();",
+                "    }",
+                "    void bad(@Nullable Object o) {",
+                "        o.toString();",
+                "    }",
+                "}");
+
+        // The cache is written even though an error was reported, but not for the erroneous method.
+        List<String> errors = check(dep, test);
+        expect(Arrays.asList("Test.java:10:dereference.of.nullable"), errors);
+        File cache = new File(INCREMENTAL_DIR, NullnessChecker.class.getName() + ".checked");
+        if (!cache.isFile()) {
+            throw new AssertionError("No cache file " + cache);
+        }
+        String cached = new String(Files.readAllBytes(cache.toPath()), StandardCharsets.UTF_8);
+        if (!cached.contains("Test.clean()\t") || !cached.contains("Test.usesDep()\t")) {
+            throw new AssertionError("Clean methods are not cached: " + cached);
+        }
+        if (cached.contains("Test.bad(")) {
+            throw new AssertionError("A method with an error is cached: " + cached);
+        }
+
+        // The clean methods are skipped, and the erroneous method is checked again.
+        errors = check(dep, test);
+        expect(Arrays.asList("Test.java:10:dereference.of.nullable"), errors);
+        List<String> analyzed = analyzedMethods();
+        expectAnalyzed(analyzed, "Test.clean(", false);
+        expectAnalyzed(analyzed, "Test.usesDep(", false);
+        expectAnalyzed(analyzed, "Test.bad(", true);
+
+        // Editing a dependency invalidates only the methods that use it.
+        write(
+                dep,
+                "import org.checkerframework.checker.nullness.qual.Nullable;",
+                "class Dep {",
+                "    static @Nullable Object get() {",
+                "        return null;",
+                "    }",
+                "}");
+        errors = check(dep, test);
+        expect(
+                Arrays.asList(
+                        "Test.java:7:dereference.of.nullable",
+                        "Test.java:10:dereference.of.nullable"),
+                errors);
+        analyzed = analyzedMethods();
+        expectAnalyzed(analyzed, "Test.clean(", false);
+        expectAnalyzed(analyzed, "Test.usesDep(", true);
+    }
+
+    /** Writes {@code lines} to {@code file}. */
+    private static void write(File file, String... lines) throws IOException {
+        Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks {@code files} with the Nullness Checker, and returns the file name, line number, and
+     * message key of each error.
+     */
+    private static List<String> check(File... files) {
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = javac.getStandardFileManager(null, null, null);
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaCompiler.CompilationTask task =
+                javac.getTask(
+                        null,
+                        null,
+                        diagnostics,
+                        Arrays.asList(
+                                "-classpath",
+                                CLASSPATH,
+                                "-proc:only",
+                                "-Anomsgtext",
+                                "-AincrementalDir=" + INCREMENTAL_DIR.getPath(),
+                                "-AperformanceStats=" + STATS.getPath()),
+                        null,
+                        fileManager.getJavaFileObjects(files));
+        task.setProcessors(Arrays.<Processor>asList(new NullnessChecker()));
+        task.call();
+        List<String> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+            if (d.getKind() == Diagnostic.Kind.ERROR) {
+                String message = d.getMessage(null).trim();
+                if (message.startsWith("(") && message.endsWith(")")) {
+                    message = message.substring(1, message.length() - 1);
+                }
+                String file = new File(d.getSource().getName()).getName();
+                errors.add(file + ":" + d.getLineNumber() + ":" + message);
+            }
+        }
+        return errors;
+    }
+
+    /** Returns the names of the methods of the Nullness Checker run that dataflow analyzed. */
+    private static List<String> analyzedMethods() throws IOException {
+        List<String> result = new ArrayList<>();
+        for (String row : Files.readAllLines(STATS.toPath(), StandardCharsets.UTF_8)) {
+            String[] columns = row.split(",");
+            if (columns.length > 2
+                    && columns[0].equals(NullnessChecker.class.getSimpleName())
+                    && columns[1].equals("method")) {
+                result.add(columns[2]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Throws an exception unless a method whose name starts with {@code prefix} is in {@code
+     * analyzed} exactly if {@code expected} is true.
+     */
+    private static void expectAnalyzed(List<String> analyzed, String prefix, boolean expected) {
+        boolean found = false;
+        for (String method : analyzed) {
+            if (method.startsWith(prefix)) {
+                found = true;
+            }
+        }
+        if (found != expected) {
+            throw new AssertionError(
+                    (expected ? "Not analyzed: " : "Analyzed: ") + prefix + " in " + analyzed);
+        }
+    }
+
+    /** Throws an exception if {@code found} is not {@code expected}. */
+    private static void expect(List<String> expected, List<String> found) {
+        if (!expected.equals(found)) {
+            throw new AssertionError("Expected " + expected + " but found " + found);
+        }
+    }
+}
@@ -18,6 +18,11 @@ public class FormatterTransfer extends CFTransfer {
         super(analysis);
     }
 
+    @Override
+    public boolean removesDeadLocalVariables() {
+        return true;
+    }
+
     /**
      * Makes it so that the {@link FormatUtil#asFormat} method returns a correctly annotated String.
      */
@@ -6,7 +6,9 @@ import com.sun.source.tree.MemberSelectTree;
 import com.sun.source.tree.MethodInvocationTree;
 import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
@@ -55,6 +57,22 @@ public class GuiEffectTypeFactory extends BaseAnnotatedTypeFactory {
      */
     protected final Set<LambdaExpressionTree> uiLambdas = new HashSet<LambdaExpressionTree>();
 
+    /**
+     * The declared effect of each method, as computed by {@link
+     * #getDeclaredEffect(ExecutableElement)}. Computing the effect of a method climbs the
+     * inheritance DAG, and the effects of the overridden methods are memoized along the way, so
+     * each method is visited once no matter how many call sites and subclasses refer to it.
+     */
+    private final Map<ExecutableElement, Effect> declaredEffectCache = new HashMap<>();
+
+    /** Whether each class is a UI type, as computed by {@link #isUIType(TypeElement)}. */
+    private final Map<TypeElement, Boolean> uiTypeCache = new HashMap<>();
+
+    /**
+     * Whether each class is polymorphic, as computed by {@link #isPolymorphicType(TypeElement)}.
+     */
+    private final Map<TypeElement, Boolean> polymorphicTypeCache = new HashMap<>();
+
     public GuiEffectTypeFactory(BaseTypeChecker checker, boolean spew) {
         // use true to enable flow inference, false to disable it
         super(checker, false);
@@ -97,11 +115,31 @@ public class GuiEffectTypeFactory extends BaseAnnotatedTypeFactory {
 
     public boolean isPolymorphicType(TypeElement cls) {
         assert (cls != null);
-        return getDeclAnnotation(cls, PolyUIType.class) != null
-                || fromElement(cls).hasAnnotation(PolyUI.class);
+        Boolean result = polymorphicTypeCache.get(cls);
+        if (result == null) {
+            result =
+                    getDeclAnnotation(cls, PolyUIType.class) != null
+                            || fromElement(cls).hasAnnotation(PolyUI.class);
+            if (shouldCache) {
+                polymorphicTypeCache.put(cls, result);
+            }
+        }
+        return result;
     }
 
     public boolean isUIType(TypeElement cls) {
+        Boolean result = uiTypeCache.get(cls);
+        if (result == null) {
+            result = computeIsUIType(cls);
+            if (shouldCache) {
+                uiTypeCache.put(cls, result);
+            }
+        }
+        return result;
+    }
+
+    /** Computes {@link #isUIType(TypeElement)}. */
+    private boolean computeIsUIType(TypeElement cls) {
         if (debugSpew) {
             System.err.println(" isUIType(" + cls + ")");
         }
@@ -190,8 +228,22 @@ public class GuiEffectTypeFactory extends BaseAnnotatedTypeFactory {
      *       this seems more principled, it's easier --- backwards-compatible --- to change our
      *       minds about this later)
      * </ol>
+     *
+     * The result is memoized for each method.
      */
     public Effect getDeclaredEffect(ExecutableElement methodElt) {
+        Effect result = declaredEffectCache.get(methodElt);
+        if (result == null) {
+            result = computeDeclaredEffect(methodElt);
+            if (shouldCache) {
+                declaredEffectCache.put(methodElt, result);
+            }
+        }
+        return result;
+    }
+
+    /** Computes {@link #getDeclaredEffect(ExecutableElement)}. */
+    private Effect computeDeclaredEffect(ExecutableElement methodElt) {
         if (debugSpew) {
             System.err.println("begin mayHaveUIEffect(" + methodElt + ")");
         }
@@ -24,6 +24,11 @@ public class I18nFormatterTransfer extends CFTransfer {
         super(analysis);
     }
 
+    @Override
+    public boolean removesDeadLocalVariables() {
+        return true;
+    }
+
     @Override
     public TransferResult<CFValue, CFStore> visitMethodInvocation(
             MethodInvocationNode node, TransferInput<CFValue, CFStore> in) {
@@ -12,6 +12,7 @@ import org.checkerframework.dataflow.cfg.node.MethodAccessNode;
 import org.checkerframework.dataflow.cfg.node.MethodInvocationNode;
 import org.checkerframework.dataflow.cfg.node.Node;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
+import org.checkerframework.framework.util.MethodDispatchIndex;
 import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.TreeUtils;
 
@@ -21,60 +22,63 @@ import org.checkerframework.javacutil.TreeUtils;
  */
 public class IndexMethodIdentifier {
 
-    private final ExecutableElement fcnRandom;
-    private final ExecutableElement fcnNextDouble;
-    private final ExecutableElement fcnNextInt;
+    /** The methods that the Index Checker handles specially. */
+    private enum SpecialMethod {
+        MATH_MIN,
+        MATH_MAX,
+        MATH_RANDOM,
+        RANDOM_NEXT_DOUBLE,
+        RANDOM_NEXT_INT
+    }
 
-    private final ExecutableElement stringLength;
+    /** Maps each specially-handled method to the corresponding {@link SpecialMethod}. */
+    private final MethodDispatchIndex<SpecialMethod> specialMethods;
 
-    private final List<ExecutableElement> mathMinMethods;
-    private final List<ExecutableElement> mathMaxMethods;
+    private final ExecutableElement stringLength;
 
     private final AnnotatedTypeFactory factory;
 
     public IndexMethodIdentifier(AnnotatedTypeFactory factory) {
         this.factory = factory;
         ProcessingEnvironment processingEnv = factory.getProcessingEnv();
-        fcnRandom = TreeUtils.getMethod("java.lang.Math", "random", 0, processingEnv);
-        fcnNextDouble = TreeUtils.getMethod("java.util.Random", "nextDouble", 0, processingEnv);
-        fcnNextInt = TreeUtils.getMethod("java.util.Random", "nextInt", 1, processingEnv);
+        specialMethods = new MethodDispatchIndex<>(processingEnv);
+        specialMethods.register(
+                TreeUtils.getMethod("java.lang.Math", "random", 0, processingEnv),
+                SpecialMethod.MATH_RANDOM);
+        specialMethods.register(
+                TreeUtils.getMethod("java.util.Random", "nextDouble", 0, processingEnv),
+                SpecialMethod.RANDOM_NEXT_DOUBLE);
+        specialMethods.register(
+                TreeUtils.getMethod("java.util.Random", "nextInt", 1, processingEnv),
+                SpecialMethod.RANDOM_NEXT_INT);
+        specialMethods.register(
+                TreeUtils.getMethodList("java.lang.Math", "min", 2, processingEnv),
+                SpecialMethod.MATH_MIN);
+        specialMethods.register(
+                TreeUtils.getMethodList("java.lang.Math", "max", 2, processingEnv),
+                SpecialMethod.MATH_MAX);
 
         stringLength = TreeUtils.getMethod("java.lang.String", "length", 0, processingEnv);
-
-        mathMinMethods = TreeUtils.getMethodList("java.lang.Math", "min", 2, processingEnv);
-        mathMaxMethods = TreeUtils.getMethodList("java.lang.Math", "max", 2, processingEnv);
     }
 
     public boolean isMathMin(Tree methodTree) {
-        ProcessingEnvironment processingEnv = factory.getProcessingEnv();
-        return isInvocationOfOne(methodTree, processingEnv, mathMinMethods);
+        return specialMethods.isInvocationOf(methodTree, SpecialMethod.MATH_MIN);
     }
 
     public boolean isMathMax(Tree methodTree) {
-        ProcessingEnvironment processingEnv = factory.getProcessingEnv();
-        return isInvocationOfOne(methodTree, processingEnv, mathMaxMethods);
-    }
-
-    private static boolean isInvocationOfOne(
-            Tree methodTree, ProcessingEnvironment processingEnv, List<ExecutableElement> methods) {
-        for (ExecutableElement minMethod : methods) {
-            if (TreeUtils.isMethodInvocation(methodTree, minMethod, processingEnv)) {
-                return true;
-            }
-        }
-        return false;
+        return specialMethods.isInvocationOf(methodTree, SpecialMethod.MATH_MAX);
     }
 
     public boolean isMathRandom(Tree tree, ProcessingEnvironment processingEnv) {
-        return TreeUtils.isMethodInvocation(tree, fcnRandom, processingEnv);
+        return specialMethods.isInvocationOf(tree, SpecialMethod.MATH_RANDOM);
     }
 
     public boolean isRandomNextDouble(Tree tree, ProcessingEnvironment processingEnv) {
-        return TreeUtils.isMethodInvocation(tree, fcnNextDouble, processingEnv);
+        return specialMethods.isInvocationOf(tree, SpecialMethod.RANDOM_NEXT_DOUBLE);
     }
 
     public boolean isRandomNextInt(Tree tree, ProcessingEnvironment processingEnv) {
-        return TreeUtils.isMethodInvocation(tree, fcnNextInt, processingEnv);
+        return specialMethods.isInvocationOf(tree, SpecialMethod.RANDOM_NEXT_INT);
     }
 
     /**
@@ -0,0 +1,249 @@
+package org.checkerframework.checker.lock;
+
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.CaseTree;
+import com.sun.source.tree.CatchTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.EnhancedForLoopTree;
+import com.sun.source.tree.ForLoopTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.SwitchTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.TryTree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreePath;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.checkerframework.dataflow.analysis.FlowExpressions.Receiver;
+import org.checkerframework.framework.util.FlowExpressionParseUtil;
+import org.checkerframework.framework.util.FlowExpressionParseUtil.FlowExpressionContext;
+import org.checkerframework.framework.util.FlowExpressionParseUtil.FlowExpressionParseException;
+import org.checkerframework.javacutil.TreeUtils;
+
+/**
+ * A cache of the lock expressions that {@link LockVisitor} parses when it checks that a lock is
+ * held, so that a {@code @GuardedBy} or {@code @Holding} expression is parsed once per scope
+ * rather than at every field access and method call.
+ *
+ * <p>The result of parsing an expression depends on where it is parsed: simple names are resolved
+ * in the local scope, {@code #1} refers to a parameter of the enclosing method, and {@code this}
+ * to the enclosing class, or to the class itself in a static scope. The cache key therefore
+ * consists of the expression, the enclosing class and method, whether the scope is static, which
+ * tells a static from an instance initializer, and for each simple name in the expression, the
+ * declaration of the local variable or local class of that name that is in scope, found by walking
+ * the tree path up to the innermost enclosing class. Beyond that class, name resolution is the same
+ * at every position in the class. Expressions that contain string or character literals are not
+ * cached.
+ *
+ * <p>The cache holds the expressions of one compilation unit.
+ */
+class LockExpressionCache {
+
+    /** Stands for a simple name that is not declared locally within the innermost class. */
+    private static final Object NOT_LOCAL = new Object();
+
+    /** Matches a simple name, that is, an identifier that is not selected from an expression. */
+    private static final Pattern SIMPLE_NAME = Pattern.compile("(?<![\\w$.])([A-Za-z_$][\\w$]*)");
+
+    /** Identifiers that are not names. */
+    private static final Set<String> KEYWORDS =
+            new HashSet<>(Arrays.asList("this", "super", "class", "true", "false", "null"));
+
+    /** The compilation unit whose expressions are cached. */
+    private CompilationUnitTree root;
+
+    /** The parsed expressions, by the key computed by {@link #key}. */
+    private final Map<List<Object>, ParsedExpression> cache = new HashMap<>();
+
+    /** The result of parsing an expression. */
+    private static class ParsedExpression {
+        /** The parsed expression, or null if parsing failed. */
+        final Receiver receiver;
+        /** The parse error, or null if parsing succeeded. */
+        final FlowExpressionParseException error;
+
+        ParsedExpression(Receiver receiver, FlowExpressionParseException error) {
+            this.receiver = receiver;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Parses {@code expression} as with {@link FlowExpressionParseUtil#parse(String,
+     * FlowExpressionContext, TreePath, boolean)}, using the local scope of {@code path}, or returns
+     * the result of an earlier parse in an equivalent scope.
+     *
+     * @param expression the expression to parse
+     * @param context the context of {@code path}
+     * @param path the location of the expression
+     * @return the parsed expression
+     * @throws FlowExpressionParseException if the expression cannot be parsed
+     */
+    Receiver parse(String expression, FlowExpressionContext context, TreePath path)
+            throws FlowExpressionParseException {
+        List<Object> key = key(expression, path);
+        if (key == null) {
+            return FlowExpressionParseUtil.parse(expression, context, path, true);
+        }
+        if (path.getCompilationUnit() != root) {
+            cache.clear();
+            root = path.getCompilationUnit();
+        }
+        ParsedExpression parsed = cache.get(key);
+        if (parsed == null) {
+            try {
+                parsed =
+                        new ParsedExpression(
+                                FlowExpressionParseUtil.parse(expression, context, path, true),
+                                null);
+            } catch (FlowExpressionParseException e) {
+                parsed = new ParsedExpression(null, e);
+            }
+            cache.put(key, parsed);
+        }
+        if (parsed.error != null) {
+            throw parsed.error;
+        }
+        return parsed.receiver;
+    }
+
+    /**
+     * Returns the cache key for parsing {@code expression} at {@code path}, or null if the result
+     * should not be cached.
+     */
+    private static List<Object> key(String expression, TreePath path) {
+        if (expression.indexOf('"') != -1 || expression.indexOf('\'') != -1) {
+            return null;
+        }
+        List<Object> key = new ArrayList<>();
+        key.add(expression);
+        key.add(TreeUtils.enclosingClass(path));
+        key.add(TreeUtils.enclosingMethod(path));
+        // Initializers and field initializers have no enclosing method, but a static one has no
+        // receiver.
+        key.add(TreeUtils.isTreeInStaticScope(path));
+        Matcher matcher = SIMPLE_NAME.matcher(expression);
+        while (matcher.find()) {
+            String name = matcher.group(1);
+            if (!KEYWORDS.contains(name)) {
+                key.add(findLocalDeclaration(name, path));
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Returns the declaration of the local variable or local class named {@code name} that is in
+     * scope at {@code path}, or {@link #NOT_LOCAL} if there is none within the innermost class.
+     */
+    private static Object findLocalDeclaration(String name, TreePath path) {
+        Tree child = path.getLeaf();
+        for (TreePath p = path.getParentPath();
+                p != null;
+                child = p.getLeaf(), p = p.getParentPath()) {
+            Tree parent = p.getLeaf();
+            Tree declaration = null;
+            switch (parent.getKind()) {
+                case CLASS:
+                case INTERFACE:
+                case ENUM:
+                case ANNOTATION_TYPE:
+                    return NOT_LOCAL;
+                case BLOCK:
+                    declaration = findBefore(name, ((BlockTree) parent).getStatements(), child);
+                    break;
+                case CASE:
+                    declaration = findBefore(name, ((CaseTree) parent).getStatements(), child);
+                    break;
+                case SWITCH:
+                    // The scope of a local variable declared in a case includes later cases.
+                    for (CaseTree caseTree : ((SwitchTree) parent).getCases()) {
+                        if (caseTree == child || declaration != null) {
+                            break;
+                        }
+                        declaration = findBefore(name, caseTree.getStatements(), null);
+                    }
+                    break;
+                case FOR_LOOP:
+                    declaration =
+                            findBefore(name, ((ForLoopTree) parent).getInitializer(), child);
+                    break;
+                case ENHANCED_FOR_LOOP:
+                    EnhancedForLoopTree loop = (EnhancedForLoopTree) parent;
+                    if (child != loop.getExpression() && declares(loop.getVariable(), name)) {
+                        declaration = loop.getVariable();
+                    }
+                    break;
+                case CATCH:
+                    CatchTree catchTree = (CatchTree) parent;
+                    if (child == catchTree.getBlock() && declares(catchTree.getParameter(), name)) {
+                        declaration = catchTree.getParameter();
+                    }
+                    break;
+                case TRY:
+                    TryTree tryTree = (TryTree) parent;
+                    if (child == tryTree.getBlock() || tryTree.getResources().contains(child)) {
+                        declaration = findBefore(name, tryTree.getResources(), child);
+                    }
+                    break;
+                case LAMBDA_EXPRESSION:
+                    declaration =
+                            findBefore(name, ((LambdaExpressionTree) parent).getParameters(), null);
+                    break;
+                case METHOD:
+                    declaration = findBefore(name, ((MethodTree) parent).getParameters(), null);
+                    break;
+                default:
+                    break;
+            }
+            if (declaration != null) {
+                return declaration;
+            }
+        }
+        return NOT_LOCAL;
+    }
+
+    /**
+     * Returns the last declaration of a local variable or local class named {@code name} in {@code
+     * trees} that precedes {@code stop}, or null if there is none. If {@code stop} is null or not
+     * in {@code trees}, all of {@code trees} is searched.
+     */
+    private static Tree findBefore(String name, List<? extends Tree> trees, Tree stop) {
+        if (trees == null) {
+            return null;
+        }
+        Tree result = null;
+        for (Tree tree : trees) {
+            if (tree == stop) {
+                break;
+            }
+            if (declares(tree, name)) {
+                result = tree;
+            }
+        }
+        return result;
+    }
+
+    /** Returns true if {@code tree} declares a local variable or local class named {@code name}. */
+    private static boolean declares(Tree tree, String name) {
+        switch (tree.getKind()) {
+            case VARIABLE:
+                return ((VariableTree) tree).getName().contentEquals(name);
+            case CLASS:
+            case INTERFACE:
+            case ENUM:
+                return ((ClassTree) tree).getSimpleName().contentEquals(name);
+            default:
+                return false;
+        }
+    }
+}
@@ -58,7 +58,6 @@ import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclared
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
 import org.checkerframework.framework.type.QualifierHierarchy;
 import org.checkerframework.framework.util.AnnotatedTypes;
-import org.checkerframework.framework.util.FlowExpressionParseUtil;
 import org.checkerframework.framework.util.FlowExpressionParseUtil.FlowExpressionContext;
 import org.checkerframework.framework.util.FlowExpressionParseUtil.FlowExpressionParseException;
 import org.checkerframework.framework.util.dependenttypes.DependentTypesError;
@@ -81,6 +80,9 @@ public class LockVisitor extends BaseTypeVisitor<LockAnnotatedTypeFactory> {
 
     protected static final Pattern selfReceiverPattern = Pattern.compile("^<self>(\\.(.*))?$");
 
+    /** The lock expressions parsed so far. */
+    private final LockExpressionCache lockExpressionCache = new LockExpressionCache();
+
     public LockVisitor(BaseTypeChecker checker) {
         super(checker);
 
@@ -1324,11 +1326,10 @@ public class LockVisitor extends BaseTypeVisitor<LockAnnotatedTypeFactory> {
                     // the entire string:
 
                     lockExpression.lockExpression =
-                            FlowExpressionParseUtil.parse(
+                            lockExpressionCache.parse(
                                     itself.toString() + "." + remainingExpression,
                                     flowExprContext,
-                                    path,
-                                    true);
+                                    path);
                     if (!atypeFactory.isExpressionEffectivelyFinal(lockExpression.lockExpression)) {
                         checker.report(
                                 Result.failure(
@@ -1339,7 +1340,7 @@ public class LockVisitor extends BaseTypeVisitor<LockAnnotatedTypeFactory> {
                 }
             } else {
                 lockExpression.lockExpression =
-                        FlowExpressionParseUtil.parse(expression, flowExprContext, path, true);
+                        lockExpressionCache.parse(expression, flowExprContext, path);
                 return lockExpression;
             }
         } catch (FlowExpressionParseException ex) {
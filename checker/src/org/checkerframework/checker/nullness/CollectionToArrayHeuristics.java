@@ -5,6 +5,7 @@ import com.sun.source.tree.MethodInvocationTree;
 import com.sun.source.tree.NewArrayTree;
 import com.sun.source.tree.Tree;
 import java.util.Collection;
+import java.util.List;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.type.TypeKind;
@@ -13,6 +14,7 @@ import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedArrayTyp
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclaredType;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
 import org.checkerframework.framework.util.AnnotatedTypes;
+import org.checkerframework.framework.util.MethodDispatchIndex;
 import org.checkerframework.javacutil.TreeUtils;
 
 /**
@@ -57,8 +59,17 @@ public class CollectionToArrayHeuristics {
     private final ProcessingEnvironment processingEnv;
     private final NullnessAnnotatedTypeFactory atypeFactory;
 
-    private final ExecutableElement collectionToArrayObject;
-    private final ExecutableElement collectionToArrayE;
+    /** The {@code toArray} overloads of {@link Collection}. */
+    private enum ToArrayMethod {
+        /** {@link Collection#toArray()} */
+        TO_ARRAY_OBJECT,
+        /** {@link Collection#toArray(Object[]) Collection.toArray(T[])} */
+        TO_ARRAY_E
+    }
+
+    /** Maps each {@code toArray} method, and its overrides, to its {@link ToArrayMethod}. */
+    private final MethodDispatchIndex<ToArrayMethod> toArrayMethods;
+
     private final ExecutableElement size;
     private final AnnotatedDeclaredType collectionType;
 
@@ -67,10 +78,13 @@ public class CollectionToArrayHeuristics {
         this.processingEnv = env;
         this.atypeFactory = factory;
 
-        this.collectionToArrayObject =
-                TreeUtils.getMethod(java.util.Collection.class.getName(), "toArray", 0, env);
-        this.collectionToArrayE =
-                TreeUtils.getMethod(java.util.Collection.class.getName(), "toArray", 1, env);
+        this.toArrayMethods = new MethodDispatchIndex<>(env);
+        toArrayMethods.register(
+                TreeUtils.getMethod(java.util.Collection.class.getName(), "toArray", 0, env),
+                ToArrayMethod.TO_ARRAY_OBJECT);
+        toArrayMethods.register(
+                TreeUtils.getMethod(java.util.Collection.class.getName(), "toArray", 1, env),
+                ToArrayMethod.TO_ARRAY_E);
         this.size = TreeUtils.getMethod(java.util.Collection.class.getName(), "size", 0, env);
         this.collectionType =
                 factory.fromElement(env.getElementUtils().getTypeElement("java.util.Collection"));
@@ -87,11 +101,12 @@ public class CollectionToArrayHeuristics {
      * @param method invoked method type
      */
     public void handle(MethodInvocationTree tree, AnnotatedExecutableType method) {
-        if (TreeUtils.isMethodInvocation(tree, collectionToArrayObject, processingEnv)) {
+        List<ToArrayMethod> toArray = toArrayMethods.getHandlers(tree);
+        if (toArray.contains(ToArrayMethod.TO_ARRAY_OBJECT)) {
             // simple case of collection.toArray()
             boolean receiver = isNonNullReceiver(tree);
             setComponentNullness(receiver, method.getReturnType());
-        } else if (TreeUtils.isMethodInvocation(tree, collectionToArrayE, processingEnv)) {
+        } else if (toArray.contains(ToArrayMethod.TO_ARRAY_E)) {
             assert !tree.getArguments().isEmpty() : tree;
             Tree argument = tree.getArguments().get(0);
             boolean isArrayCreation =
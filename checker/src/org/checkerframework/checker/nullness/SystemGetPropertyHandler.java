@@ -12,6 +12,7 @@ import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.ExecutableElement;
 import org.checkerframework.framework.type.AnnotatedTypeMirror;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
+import org.checkerframework.framework.util.MethodDispatchIndex;
 import org.checkerframework.javacutil.TreeUtils;
 
 /**
@@ -29,6 +30,14 @@ public class SystemGetPropertyHandler {
 
     protected final ExecutableElement systemGetProperty;
 
+    /** The methods whose invocations this handler refines. */
+    private enum SpecialMethod {
+        SYSTEM_GET_PROPERTY
+    }
+
+    /** Maps {@link #systemGetProperty} to the corresponding {@link SpecialMethod}. */
+    private final MethodDispatchIndex<SpecialMethod> getPropertyIndex;
+
     // This list is from the Javadoc of System.getProperties.
     Collection<String> systemProperties =
             new HashSet<>(
@@ -69,10 +78,12 @@ public class SystemGetPropertyHandler {
 
         systemGetProperty =
                 TreeUtils.getMethod(java.lang.System.class.getName(), "getProperty", 1, env);
+        getPropertyIndex = new MethodDispatchIndex<>(env);
+        getPropertyIndex.register(systemGetProperty, SpecialMethod.SYSTEM_GET_PROPERTY);
     }
 
     public void handle(MethodInvocationTree tree, AnnotatedExecutableType method) {
-        if (TreeUtils.isMethodInvocation(tree, systemGetProperty, env)) {
+        if (getPropertyIndex.isInvocationOf(tree, SpecialMethod.SYSTEM_GET_PROPERTY)) {
             List<? extends ExpressionTree> args = tree.getArguments();
             assert args.size() == 1;
             ExpressionTree arg = args.get(0);
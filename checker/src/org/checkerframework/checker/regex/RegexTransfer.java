@@ -37,6 +37,11 @@ public class RegexTransfer extends CFTransfer {
         super(analysis);
     }
 
+    @Override
+    public boolean removesDeadLocalVariables() {
+        return true;
+    }
+
     // TODO: These are special cases for isRegex(String, int) and asRegex(String, int).
     // They should be replaced by adding an @EnsuresQualifierIf annotation that supports
     // specifying attributes.
@@ -6,8 +6,8 @@ import com.sun.source.tree.MemberSelectTree;
 import com.sun.source.tree.MethodInvocationTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.Tree.Kind;
+import java.util.List;
 import javax.annotation.processing.ProcessingEnvironment;
-import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.VariableElement;
 import org.checkerframework.checker.regex.qual.Regex;
 import org.checkerframework.common.basetype.BaseTypeChecker;
@@ -16,6 +16,7 @@ import org.checkerframework.framework.source.Result;
 import org.checkerframework.framework.type.AnnotatedTypeMirror;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclaredType;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedPrimitiveType;
+import org.checkerframework.framework.util.MethodDispatchIndex;
 import org.checkerframework.javacutil.TreeUtils;
 
 /**
@@ -35,23 +36,31 @@ import org.checkerframework.javacutil.TreeUtils;
  */
 public class RegexVisitor extends BaseTypeVisitor<RegexAnnotatedTypeFactory> {
 
-    private final ExecutableElement matchResultEnd;
-    private final ExecutableElement matchResultGroup;
-    private final ExecutableElement matchResultStart;
-    private final ExecutableElement patternCompile;
+    /** The methods whose invocations this visitor checks specially. */
+    private enum RegexMethod {
+        /** {@code Pattern.compile(String, int)} */
+        PATTERN_COMPILE,
+        /** {@code MatchResult.start(int)}, {@code MatchResult.end(int)}, and {@code group(int)} */
+        MATCH_RESULT_GROUP
+    }
+
+    /** Maps each specially-checked method, and its overrides, to its {@link RegexMethod}. */
+    private final MethodDispatchIndex<RegexMethod> regexMethods;
+
     private final VariableElement patternLiteral;
 
     public RegexVisitor(BaseTypeChecker checker) {
         super(checker);
         ProcessingEnvironment env = checker.getProcessingEnvironment();
-        this.matchResultEnd =
-                TreeUtils.getMethod(java.util.regex.MatchResult.class.getName(), "end", 1, env);
-        this.matchResultGroup =
-                TreeUtils.getMethod(java.util.regex.MatchResult.class.getName(), "group", 1, env);
-        this.matchResultStart =
-                TreeUtils.getMethod(java.util.regex.MatchResult.class.getName(), "start", 1, env);
-        this.patternCompile =
-                TreeUtils.getMethod(java.util.regex.Pattern.class.getName(), "compile", 2, env);
+        this.regexMethods = new MethodDispatchIndex<>(env);
+        for (String name : new String[] {"end", "group", "start"}) {
+            regexMethods.register(
+                    TreeUtils.getMethod(java.util.regex.MatchResult.class.getName(), name, 1, env),
+                    RegexMethod.MATCH_RESULT_GROUP);
+        }
+        regexMethods.register(
+                TreeUtils.getMethod(java.util.regex.Pattern.class.getName(), "compile", 2, env),
+                RegexMethod.PATTERN_COMPILE);
         this.patternLiteral =
                 TreeUtils.getField(java.util.regex.Pattern.class.getName(), "LITERAL", env);
     }
@@ -62,8 +71,8 @@ public class RegexVisitor extends BaseTypeVisitor<RegexAnnotatedTypeFactory> {
      */
     @Override
     public Void visitMethodInvocation(MethodInvocationTree node, Void p) {
-        ProcessingEnvironment env = checker.getProcessingEnvironment();
-        if (TreeUtils.isMethodInvocation(node, patternCompile, env)) {
+        List<RegexMethod> handlers = regexMethods.getHandlers(node);
+        if (handlers.contains(RegexMethod.PATTERN_COMPILE)) {
             ExpressionTree flagParam = node.getArguments().get(1);
             if (flagParam.getKind() == Kind.MEMBER_SELECT) {
                 MemberSelectTree memSelect = (MemberSelectTree) flagParam;
@@ -79,9 +88,7 @@ public class RegexVisitor extends BaseTypeVisitor<RegexAnnotatedTypeFactory> {
                     return r;
                 }
             }
-        } else if (TreeUtils.isMethodInvocation(node, matchResultEnd, env)
-                || TreeUtils.isMethodInvocation(node, matchResultGroup, env)
-                || TreeUtils.isMethodInvocation(node, matchResultStart, env)) {
+        } else if (handlers.contains(RegexMethod.MATCH_RESULT_GROUP)) {
             /**
              * Case 3: Checks calls to {@code MatchResult.start}, {@code MatchResult.end} and {@code
              * MatchResult.group} to ensure that a valid group number is passed.
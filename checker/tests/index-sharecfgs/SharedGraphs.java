@@ -0,0 +1,40 @@
+// Methods whose control flow graphs are either shared among the subcheckers of the Index Checker
+// or, because their construction depends on the checker, built separately by each of them.
+
+import org.checkerframework.checker.index.qual.IndexFor;
+
+public class SharedGraphs {
+
+    int shared(int[] a) {
+        int total = 0;
+        for (int i = 0; i < a.length; i++) {
+            total += a[i];
+        }
+        // :: error: (array.access.unsafe.high)
+        return total + a[a.length];
+    }
+
+    int enhancedFor(int[] a, int[] b) {
+        int total = 0;
+        for (int x : a) {
+            total += x;
+        }
+        for (int i = 0; i < b.length; i++) {
+            total += b[i];
+        }
+        // :: error: (array.access.unsafe.low)
+        return total + b[-1];
+    }
+
+    int assumeAssertion(int[] a, int i) {
+        assert i >= 0 && i < a.length : "@AssumeAssertion(index)";
+        int x = a[i];
+        // :: error: (array.access.unsafe.high)
+        return x + a[i + 1];
+    }
+
+    int plainAssert(int[] a, @IndexFor("#1") int i) {
+        assert a.length > 0;
+        return a[i];
+    }
+}
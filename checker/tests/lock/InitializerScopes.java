@@ -0,0 +1,43 @@
+import org.checkerframework.checker.lock.qual.*;
+
+// A static and an instance initializer both have no enclosing method, but only the instance
+// initializer has a receiver, so the same lock expression must be parsed separately in each.
+public @GuardedBy({}) class InitializerScopes {
+
+    static class MyClass {
+        public Object field;
+    }
+
+    @GuardedBy("this") MyClass guardedThis = new MyClass();
+
+    static final MyClass unlockedStatic = new MyClass();
+
+    static @GuardedBy("unlockedStatic") MyClass staticGuardedByStatic = new MyClass();
+
+    {
+        // Initializers are synchronized over 'this'.
+        guardedThis.field.toString();
+        // :: error: (lock.not.held)
+        staticGuardedByStatic.field.toString();
+    }
+
+    static {
+        // :: error: (lock.not.held)
+        staticGuardedByStatic.field.toString();
+        synchronized (unlockedStatic) {
+            staticGuardedByStatic.field.toString();
+        }
+        InitializerScopes other = new InitializerScopes();
+        // :: error: (lock.not.held)
+        other.guardedThis.field.toString();
+        synchronized (other) {
+            other.guardedThis.field.toString();
+        }
+    }
+
+    {
+        guardedThis.field.toString();
+        // :: error: (lock.not.held)
+        staticGuardedByStatic.field.toString();
+    }
+}
@@ -0,0 +1,143 @@
+import java.util.function.Consumer;
+import org.checkerframework.checker.nullness.qual.*;
+
+// Test case for the -AlazyFlow command-line option:  warnings in methods whose flow analysis is
+// deferred, and in local and anonymous classes and lambda expressions, are still reported.
+class LazyFlow {
+
+    void deferred(@Nullable Object p) {
+        // :: error: (dereference.of.nullable)
+        p.toString();
+        if (p != null) {
+            p.toString();
+        }
+    }
+
+    // Nothing to refine:  the analysis may be skipped.
+    void trivial(Object o) {
+        o.toString();
+    }
+
+    void straightLine() {
+        @Nullable Object x = "";
+        x.toString();
+        x = null;
+        // :: error: (dereference.of.nullable)
+        x.toString();
+    }
+
+    void callsLaterMethod(@Nullable Object p) {
+        later(p);
+    }
+
+    void later(@Nullable Object p) {
+        // :: error: (dereference.of.nullable)
+        p.hashCode();
+        if (p == null) {
+            return;
+        }
+        p.hashCode();
+    }
+
+    void localClass(@Nullable Object p) {
+        class Local {
+            void m(@Nullable Object q) {
+                // :: error: (dereference.of.nullable)
+                q.toString();
+                if (q != null) {
+                    q.toString();
+                }
+            }
+        }
+        new Local().m(p);
+    }
+
+    Runnable anonymousClass() {
+        return new Runnable() {
+            @Nullable Object g;
+
+            @Override
+            public void run() {
+                // :: error: (dereference.of.nullable)
+                g.toString();
+                if (g != null) {
+                    g.toString();
+                }
+            }
+        };
+    }
+
+    Consumer<@Nullable Object> lambda() {
+        return x -> {
+            // :: error: (dereference.of.nullable)
+            x.toString();
+            if (x != null) {
+                x.toString();
+            }
+        };
+    }
+}
+
+// The store at the end of each constructor is needed before the constructor is checked.
+class LazyFlowInit {
+    Object nonNull;
+
+    LazyFlowInit() {
+        nonNull = "";
+    }
+
+    // :: error: (initialization.fields.uninitialized)
+    LazyFlowInit(boolean b) {
+        if (b) {
+            nonNull = "";
+        }
+    }
+}
+
+// A deferred constructor starts from the store after the initializer blocks of its class.
+class LazyFlowInitializerBlock {
+    Object g;
+
+    {
+        g = "";
+    }
+
+    LazyFlowInitializerBlock() {}
+
+    LazyFlowInitializerBlock(int i) {
+        g.toString();
+    }
+}
+
+// A deferred constructor starts from the store after the field initializers of its class.
+class LazyFlowFieldInitializer {
+    Object f = "";
+    Object g;
+
+    LazyFlowFieldInitializer() {
+        g = f;
+    }
+}
+
+// The local classes of a deferred method are analyzed, including their initializers.
+class LazyFlowLocalInit {
+    Object lazilyAnalyzed(@Nullable Object p) {
+        class Local {
+            Object g;
+
+            {
+                g = "";
+            }
+
+            Local() {}
+
+            Object get(@Nullable Object q) {
+                if (q == null) {
+                    return g;
+                }
+                return q;
+            }
+        }
+        return new Local().get(p);
+    }
+}
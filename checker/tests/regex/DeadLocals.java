@@ -0,0 +1,84 @@
+import java.util.regex.Pattern;
+import org.checkerframework.checker.regex.RegexUtil;
+import org.checkerframework.checker.regex.qual.Regex;
+import org.checkerframework.framework.qual.RequiresQualifier;
+
+// The Regex Checker removes local variables from the stores once they are dead. These tests check
+// that a refinement is still available wherever the variable is used.
+public class DeadLocals {
+
+    void refinedDeadReassignedInLoop(String[] inputs) {
+        String loopCarried = "(a)";
+        for (int i = 0; i < inputs.length; i++) {
+            // Used on every iteration, so live along the back edge.
+            Pattern.compile(loopCarried);
+            String s = inputs[i];
+            if (RegexUtil.isRegex(s)) {
+                // The last use of this value of s.
+                Pattern.compile(s);
+            }
+            s = "(";
+            // :: error: (argument.type.incompatible)
+            Pattern.compile(s);
+            s = "[a-z]+";
+            Pattern.compile(s);
+        }
+    }
+
+    void reassignedAfterLoop(String[] inputs) {
+        String s = "a+";
+        Pattern.compile(s);
+        for (String in : inputs) {
+            s = in;
+        }
+        // :: error: (argument.type.incompatible)
+        Pattern.compile(s);
+    }
+
+    void capturedByLambda(String in) {
+        String s = "(a)";
+        Runnable r = () -> Pattern.compile(s);
+        String t = in;
+        if (RegexUtil.isRegex(t)) {
+            Runnable u = () -> t.length();
+            // Still refined after the lambda that captures t.
+            Pattern.compile(t);
+        }
+    }
+
+    void capturedByAnonymousClass(String in) {
+        String s = "(a)";
+        Runnable r =
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        Pattern.compile(s);
+                    }
+                };
+        String t = in;
+        if (RegexUtil.isRegex(t)) {
+            Object o =
+                    new Object() {
+                        @Override
+                        public String toString() {
+                            return t;
+                        }
+                    };
+            Pattern.compile(t);
+        }
+    }
+
+    @RequiresQualifier(expression = "#1", qualifier = Regex.class)
+    void requiresRegex(String s) {}
+
+    void passedWithPrecondition(String in) {
+        String s = in;
+        if (RegexUtil.isRegex(s)) {
+            // The precondition is checked in the store before the call, where s is refined.
+            requiresRegex(s);
+        }
+        String t = in;
+        // :: error: (contracts.precondition.not.satisfied)
+        requiresRegex(t);
+    }
+}
@@ -0,0 +1,26 @@
+package tests;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * JUnit tests for the Index Checker -- testing the {@code -AshareCFGs} command-line argument.
+ */
+public class IndexShareCFGsTest extends CheckerFrameworkPerDirectoryTest {
+
+    public IndexShareCFGsTest(List<File> testFiles) {
+        super(
+                testFiles,
+                org.checkerframework.checker.index.IndexChecker.class,
+                "index",
+                "-Anomsgtext",
+                "-AshareCFGs");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"index", "index-sharecfgs"};
+    }
+}
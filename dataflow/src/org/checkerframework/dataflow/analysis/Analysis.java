@@ -7,6 +7,7 @@ import com.sun.source.tree.Tree;
 import com.sun.source.tree.UnaryTree;
 import com.sun.source.tree.VariableTree;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
@@ -90,9 +91,106 @@ public class Analysis<
     /** The stores after every return statement. */
     protected IdentityHashMap<ReturnNode, TransferResult<A, S>> storesAtReturnStatements;
 
+    /**
+     * Exception blocks whose input store flows, unchanged, to the exceptional exit block, and has
+     * not yet been joined into the store of that block. Nothing is computed from the store of the
+     * exceptional exit block during an analysis, so these joins are delayed until the store is
+     * requested; see {@link #joinExceptionalExitStores}. Maps each block to whether its store was
+     * propagated while the {@link #degradation} was {@link Degradation#CONSERVATIVE_STORES}.
+     */
+    protected IdentityHashMap<Block, Boolean> exceptionalExitPredecessors;
+
     /** The worklist used for the fix-point iteration. */
     protected Worklist worklist;
 
+    /** Number of blocks that were taken from the worklist by the current or last analysis. */
+    protected int worklistIterations;
+
+    /** Number of times widening was applied by the current or last analysis. */
+    protected int wideningCount;
+
+    /**
+     * How far an analysis degrades its precision to stay within its budget. See {@link
+     * #setBudget}.
+     */
+    public enum Degradation {
+        /** The analysis stayed within its budget. */
+        NONE,
+        /** The analysis exceeded its budget once; from then on every join is widened. */
+        FORCED_WIDENING,
+        /**
+         * The analysis exceeded twice its budget; from then on the stores propagated to other blocks
+         * are replaced by {@link #getConservativeStore}, if one is available.
+         */
+        CONSERVATIVE_STORES
+    }
+
+    /**
+     * Number of worklist iterations after which the analysis degrades, or -1 if the number of
+     * iterations is not bounded.
+     */
+    protected int maxIterations = -1;
+
+    /**
+     * Wall-clock nanoseconds after which the analysis degrades, or -1 if the time is not bounded.
+     */
+    protected long maxNanos = -1;
+
+    /** The degradation of the current or last analysis. */
+    protected Degradation degradation = Degradation.NONE;
+
+    /** The value of {@link System#nanoTime()} when the current or last analysis started. */
+    protected long startNanos;
+
+    /** The wall-clock nanoseconds taken by the last analysis. */
+    protected long analysisNanos;
+
+    /** Where the analysis widens its joins. See {@link #setWidening}. */
+    public enum WideningStrategy {
+        /** Widen the joins at every block, once it has been analyzed often enough. */
+        ALL_BLOCKS,
+        /**
+         * Widen only the joins at loop heads. Every cycle of the graph contains a loop head, so
+         * this suffices for termination, and the other joins stay precise.
+         */
+        LOOP_HEADS
+    }
+
+    /** Where the analysis widens its joins. */
+    protected WideningStrategy wideningStrategy = WideningStrategy.ALL_BLOCKS;
+
+    /** The number of narrowing rounds run after the fix-point is reached. */
+    protected int narrowingIterations = 0;
+
+    /**
+     * The blocks at which the current analysis may widen, or null if it may widen at every block.
+     */
+    protected @Nullable Set<Block> wideningBlocks;
+
+    /** Is the analysis currently narrowing? See {@link #narrow}. */
+    protected boolean narrowing = false;
+
+    /**
+     * The index of every reachable block in {@link ControlFlowGraph#getReversePostOrderedBlocks},
+     * during narrowing.
+     */
+    protected IdentityHashMap<Block, Integer> reversePostOrderIndex;
+
+    /** The then stores that flow along back edges in the current narrowing round. */
+    protected IdentityHashMap<Block, S> backEdgeThenStores;
+
+    /** The else stores that flow along back edges in the current narrowing round. */
+    protected IdentityHashMap<Block, S> backEdgeElseStores;
+
+    /**
+     * The dead local variables of the current graph, or null if the analysis does not remove them
+     * from the stores it propagates. See {@link #removesDeadLocalVariables}.
+     */
+    protected @Nullable LiveLocalVariables liveLocalVariables;
+
+    /** The block whose contents are currently being analyzed, or null. */
+    protected @Nullable Block currentBlock;
+
     /** Abstract values of nodes. */
     protected IdentityHashMap<Node, A> nodeValues;
 
@@ -162,6 +260,43 @@ public class Analysis<
         return transferFunction;
     }
 
+    /**
+     * Bounds the work done by {@link #performAnalysis}. Once the analysis has taken more than
+     * {@code maxIterations} blocks from the worklist or has run longer than {@code maxMillis}
+     * milliseconds, every subsequent join is widened. Once it exceeds twice the budget, the stores
+     * propagated between blocks are replaced by {@link #getConservativeStore}, which ends the
+     * fix-point iteration quickly at the cost of precision. {@link #getDegradation} tells whether
+     * this happened.
+     *
+     * @param maxIterations the iteration budget, or -1 for no bound
+     * @param maxMillis the time budget in milliseconds, or -1 for no bound
+     */
+    public void setBudget(int maxIterations, long maxMillis) {
+        this.maxIterations = maxIterations;
+        this.maxNanos = maxMillis < 0 ? -1 : maxMillis * 1000000;
+    }
+
+    /**
+     * Selects where {@link #performAnalysis} widens, and how many narrowing rounds it runs after
+     * the fix-point is reached. A narrowing round re-analyzes every reachable block once, in
+     * reverse postorder, from the stores that the previous round propagated along the back edges of
+     * the graph, without widening; this recovers precision that widening lost, as long as the
+     * transfer function is monotone. Narrowing is skipped if the analysis exceeded its budget; see
+     * {@link #setBudget}.
+     *
+     * @param strategy where to widen
+     * @param narrowingIterations the number of narrowing rounds, or 0 for none
+     */
+    public void setWidening(WideningStrategy strategy, int narrowingIterations) {
+        this.wideningStrategy = strategy;
+        this.narrowingIterations = narrowingIterations;
+    }
+
+    /** @return the control flow graph of the current or last analysis */
+    public ControlFlowGraph getControlFlowGraph() {
+        return cfg;
+    }
+
     public Types getTypes() {
         return types;
     }
@@ -177,127 +312,218 @@ public class Analysis<
         assert isRunning == false;
         isRunning = true;
 
+        startNanos = System.nanoTime();
         init(cfg);
 
         while (!worklist.isEmpty()) {
             Block b = worklist.poll();
+            worklistIterations++;
+            checkBudget();
 
-            switch (b.getType()) {
-                case REGULAR_BLOCK:
-                    {
-                        RegularBlock rb = (RegularBlock) b;
-
-                        // apply transfer function to contents
-                        TransferInput<A, S> inputBefore = getInputBefore(rb);
-                        currentInput = inputBefore.copy();
-                        TransferResult<A, S> transferResult = null;
-                        Node lastNode = null;
-                        boolean addToWorklistAgain = false;
-                        for (Node n : rb.getContents()) {
-                            transferResult = callTransferFunction(n, currentInput);
-                            addToWorklistAgain |= updateNodeValues(n, transferResult);
-                            currentInput = new TransferInput<>(n, this, transferResult);
-                            lastNode = n;
-                        }
-                        // loop will run at least once, making transferResult non-null
+            analyzeBlock(b);
+        }
 
-                        // propagate store to successors
-                        Block succ = rb.getSuccessor();
-                        assert succ != null
-                                : "regular basic block without non-exceptional successor unexpected";
-                        propagateStoresTo(
-                                succ, lastNode, currentInput, rb.getFlowRule(), addToWorklistAgain);
-                        break;
+        if (narrowingIterations > 0 && degradation == Degradation.NONE) {
+            narrow();
+        }
+
+        analysisNanos = System.nanoTime() - startNanos;
+        assert isRunning == true;
+        isRunning = false;
+    }
+
+    /**
+     * Applies the transfer function to the contents of {@code b}, starting from its input, and
+     * propagates the resulting stores to its successors.
+     */
+    protected void analyzeBlock(Block b) {
+        currentBlock = b;
+        switch (b.getType()) {
+            case REGULAR_BLOCK:
+                {
+                    RegularBlock rb = (RegularBlock) b;
+
+                    // apply transfer function to contents
+                    TransferInput<A, S> inputBefore = getInputBefore(rb);
+                    currentInput = inputBefore.copy();
+                    TransferResult<A, S> transferResult = null;
+                    Node lastNode = null;
+                    boolean addToWorklistAgain = false;
+                    for (Node n : rb.getContents()) {
+                        transferResult = callTransferFunction(n, currentInput);
+                        addToWorklistAgain |= updateNodeValues(n, transferResult);
+                        currentInput = new TransferInput<>(n, this, transferResult);
+                        lastNode = n;
                     }
+                    // loop will run at least once, making transferResult non-null
+
+                    // propagate store to successors
+                    Block succ = rb.getSuccessor();
+                    assert succ != null
+                            : "regular basic block without non-exceptional successor unexpected";
+                    propagateStoresTo(
+                            succ, lastNode, currentInput, rb.getFlowRule(), addToWorklistAgain);
+                    break;
+                }
 
-                case EXCEPTION_BLOCK:
-                    {
-                        ExceptionBlock eb = (ExceptionBlock) b;
-
-                        // apply transfer function to content
-                        TransferInput<A, S> inputBefore = getInputBefore(eb);
-                        currentInput = inputBefore.copy();
-                        Node node = eb.getNode();
-                        TransferResult<A, S> transferResult =
-                                callTransferFunction(node, currentInput);
-                        boolean addToWorklistAgain = updateNodeValues(node, transferResult);
-
-                        // propagate store to successor
-                        Block succ = eb.getSuccessor();
-                        if (succ != null) {
-                            currentInput = new TransferInput<>(node, this, transferResult);
-                            // TODO? Variable wasn't used.
-                            // Store.FlowRule storeFlow = eb.getFlowRule();
-                            propagateStoresTo(
-                                    succ, node, currentInput, eb.getFlowRule(), addToWorklistAgain);
-                        }
+            case EXCEPTION_BLOCK:
+                {
+                    ExceptionBlock eb = (ExceptionBlock) b;
+
+                    // apply transfer function to content
+                    TransferInput<A, S> inputBefore = getInputBefore(eb);
+                    currentInput = inputBefore.copy();
+                    Node node = eb.getNode();
+                    TransferResult<A, S> transferResult =
+                            callTransferFunction(node, currentInput);
+                    boolean addToWorklistAgain = updateNodeValues(node, transferResult);
+
+                    // propagate store to successor
+                    Block succ = eb.getSuccessor();
+                    if (succ != null) {
+                        currentInput = new TransferInput<>(node, this, transferResult);
+                        // TODO? Variable wasn't used.
+                        // Store.FlowRule storeFlow = eb.getFlowRule();
+                        propagateStoresTo(
+                                succ, node, currentInput, eb.getFlowRule(), addToWorklistAgain);
+                    }
 
-                        // propagate store to exceptional successors
-                        for (Entry<TypeMirror, Set<Block>> e :
-                                eb.getExceptionalSuccessors().entrySet()) {
-                            TypeMirror cause = e.getKey();
-                            S exceptionalStore = transferResult.getExceptionalStore(cause);
-                            if (exceptionalStore != null) {
-                                for (Block exceptionSucc : e.getValue()) {
-                                    addStoreBefore(
-                                            exceptionSucc,
-                                            node,
-                                            exceptionalStore,
-                                            Store.Kind.BOTH,
-                                            addToWorklistAgain);
+                    // propagate store to exceptional successors
+                    Block exceptionalExit = cfg.getExceptionalExitBlock();
+                    // The store before the node, shared by all exceptional successors
+                    // that the transfer result has no specific store for. Stores are not
+                    // modified once they have been propagated, so one copy suffices.
+                    S storeBefore = null;
+                    for (Entry<TypeMirror, Set<Block>> e :
+                            eb.getExceptionalSuccessors().entrySet()) {
+                        TypeMirror cause = e.getKey();
+                        S exceptionalStore = transferResult.getExceptionalStore(cause);
+                        if (exceptionalStore != null) {
+                            for (Block exceptionSucc : e.getValue()) {
+                                addStoreBefore(
+                                        exceptionSucc,
+                                        node,
+                                        exceptionalStore,
+                                        Store.Kind.BOTH,
+                                        addToWorklistAgain);
+                            }
+                        } else {
+                            for (Block exceptionSucc : e.getValue()) {
+                                if (exceptionSucc == exceptionalExit) {
+                                    if (degradation == Degradation.CONSERVATIVE_STORES) {
+                                        exceptionalExitPredecessors.put(eb, true);
+                                    } else if (!exceptionalExitPredecessors.containsKey(eb)) {
+                                        exceptionalExitPredecessors.put(eb, false);
+                                    }
+                                    continue;
                                 }
-                            } else {
-                                for (Block exceptionSucc : e.getValue()) {
-                                    addStoreBefore(
-                                            exceptionSucc,
-                                            node,
-                                            inputBefore.copy().getRegularStore(),
-                                            Store.Kind.BOTH,
-                                            addToWorklistAgain);
+                                if (storeBefore == null) {
+                                    storeBefore = inputBefore.copy().getRegularStore();
                                 }
+                                addStoreBefore(
+                                        exceptionSucc,
+                                        node,
+                                        storeBefore,
+                                        Store.Kind.BOTH,
+                                        addToWorklistAgain);
                             }
                         }
-                        break;
                     }
+                    break;
+                }
 
-                case CONDITIONAL_BLOCK:
-                    {
-                        ConditionalBlock cb = (ConditionalBlock) b;
+            case CONDITIONAL_BLOCK:
+                {
+                    ConditionalBlock cb = (ConditionalBlock) b;
 
-                        // get store before
-                        TransferInput<A, S> inputBefore = getInputBefore(cb);
-                        TransferInput<A, S> input = inputBefore.copy();
+                    // get store before
+                    TransferInput<A, S> inputBefore = getInputBefore(cb);
+                    TransferInput<A, S> input = inputBefore.copy();
 
-                        // propagate store to successor
-                        Block thenSucc = cb.getThenSuccessor();
-                        Block elseSucc = cb.getElseSuccessor();
+                    // propagate store to successor
+                    Block thenSucc = cb.getThenSuccessor();
+                    Block elseSucc = cb.getElseSuccessor();
 
-                        propagateStoresTo(thenSucc, null, input, cb.getThenFlowRule(), false);
-                        propagateStoresTo(elseSucc, null, input, cb.getElseFlowRule(), false);
-                        break;
-                    }
+                    propagateStoresTo(thenSucc, null, input, cb.getThenFlowRule(), false);
+                    propagateStoresTo(elseSucc, null, input, cb.getElseFlowRule(), false);
+                    break;
+                }
 
-                case SPECIAL_BLOCK:
-                    {
-                        // special basic blocks are empty and cannot throw exceptions,
-                        // thus there is no need to perform any analysis.
-                        SpecialBlock sb = (SpecialBlock) b;
-                        Block succ = sb.getSuccessor();
-                        if (succ != null) {
-                            propagateStoresTo(
-                                    succ, null, getInputBefore(b), sb.getFlowRule(), false);
-                        }
-                        break;
+            case SPECIAL_BLOCK:
+                {
+                    // special basic blocks are empty and cannot throw exceptions,
+                    // thus there is no need to perform any analysis.
+                    SpecialBlock sb = (SpecialBlock) b;
+                    Block succ = sb.getSuccessor();
+                    if (succ != null) {
+                        propagateStoresTo(
+                                succ, null, getInputBefore(b), sb.getFlowRule(), false);
                     }
-
-                default:
-                    assert false;
                     break;
-            }
+                }
+
+            default:
+                assert false;
+                break;
         }
+        currentBlock = null;
+    }
 
-        assert isRunning == true;
-        isRunning = false;
+    /**
+     * Increases the {@link #degradation} if the analysis has exceeded its budget for the current
+     * degradation level.
+     */
+    protected void checkBudget() {
+        if (degradation == Degradation.CONSERVATIVE_STORES) {
+            return;
+        }
+        // The budget for the next level is a multiple of the budget.
+        int factor = degradation.ordinal() + 1;
+        boolean overBudget =
+                (maxIterations >= 0 && worklistIterations > (long) maxIterations * factor)
+                        || (maxNanos >= 0 && System.nanoTime() - startNanos > maxNanos * factor);
+        if (overBudget) {
+            degradation = Degradation.values()[factor];
+        }
+    }
+
+    /**
+     * Returns a store that is a sound over-approximation of every store at any point of the
+     * analyzed code, or {@code null} if there is none. Used once the analysis has exceeded twice
+     * its budget; see {@link #setBudget}.
+     *
+     * @param store a store computed by the analysis
+     * @return a conservative replacement for {@code store}, or {@code null}
+     */
+    protected @Nullable S getConservativeStore(S store) {
+        return null;
+    }
+
+    /**
+     * Returns true if the analysis removes the values of the local variables that are dead before a
+     * block from the stores that it propagates to that block, as computed by {@link
+     * LiveLocalVariables}. This keeps the stores small in long methods with many local variables,
+     * but the stores no longer describe dead variables, which matters to a client that evaluates
+     * expressions in the store after the variable's last use. By default, dead variables are kept.
+     *
+     * @return true if dead local variables are removed from propagated stores
+     * @see #removeLocalVariables
+     */
+    protected boolean removesDeadLocalVariables() {
+        return false;
+    }
+
+    /**
+     * Returns a store that is like {@code store} but has no information about the local variables
+     * in {@code vars}. Must not modify {@code store}, which may be shared. Only called if {@link
+     * #removesDeadLocalVariables} returns true.
+     *
+     * @param store a store computed by the analysis
+     * @param vars the local variables to remove
+     * @return {@code store} without the variables in {@code vars}
+     */
+    protected S removeLocalVariables(S store, Set<Element> vars) {
+        return store;
     }
 
     /**
@@ -428,7 +654,14 @@ public class Analysis<
         blockCount = maxCountBeforeWidening == -1 ? null : new IdentityHashMap<Block, Integer>();
         inputs = new IdentityHashMap<>();
         storesAtReturnStatements = new IdentityHashMap<>();
+        exceptionalExitPredecessors = new IdentityHashMap<>();
         worklist = new Worklist(cfg);
+        worklistIterations = 0;
+        wideningCount = 0;
+        degradation = Degradation.NONE;
+        wideningBlocks =
+                wideningStrategy == WideningStrategy.LOOP_HEADS ? cfg.getLoopHeads() : null;
+        liveLocalVariables = removesDeadLocalVariables() ? new LiveLocalVariables(cfg) : null;
         nodeValues = new IdentityHashMap<>();
         finalLocalValues = new HashMap<>();
         worklist.add(cfg.getEntryBlock());
@@ -468,6 +701,10 @@ public class Analysis<
      * Add a basic block to the worklist. If {@code b} is already present, the method does nothing.
      */
     protected void addToWorklist(Block b) {
+        if (narrowing) {
+            // A narrowing round visits every block once, in order.
+            return;
+        }
         // TODO: use a more efficient way to check if b is already present
         if (!worklist.contains(b)) {
             worklist.add(b);
@@ -480,16 +717,37 @@ public class Analysis<
      */
     protected void addStoreBefore(
             Block b, Node node, S s, Store.Kind kind, boolean addBlockToWorklist) {
+        if (liveLocalVariables != null) {
+            Set<Element> dead = liveLocalVariables.getDeadBefore(b);
+            if (!dead.isEmpty()) {
+                s = removeLocalVariables(s, dead);
+            }
+        }
+        if (narrowing && currentBlock != null && isBackEdge(currentBlock, b)) {
+            addBackEdgeStore(b, s, kind);
+            return;
+        }
         S thenStore = getStoreBefore(b, Store.Kind.THEN);
         S elseStore = getStoreBefore(b, Store.Kind.ELSE);
-        boolean shouldWiden = false;
-        if (blockCount != null) {
+        if (degradation == Degradation.CONSERVATIVE_STORES) {
+            S conservativeStore = getConservativeStore(s);
+            if (conservativeStore != null) {
+                s = conservativeStore;
+            }
+        }
+        boolean shouldWiden = degradation != Degradation.NONE;
+        if (shouldWiden) {
+            wideningCount++;
+        } else if (blockCount != null
+                && !narrowing
+                && (wideningBlocks == null || wideningBlocks.contains(b))) {
             Integer count = blockCount.get(b);
             if (count == null) {
                 count = 0;
             }
             shouldWiden = count >= maxCountBeforeWidening;
             if (shouldWiden) {
+                wideningCount++;
                 blockCount.put(b, 0);
             } else {
                 blockCount.put(b, count + 1);
@@ -560,6 +818,102 @@ public class Analysis<
         }
     }
 
+    /**
+     * Runs {@link #narrowingIterations} narrowing rounds after the fix-point has been reached. The
+     * first round analyzes every block once from its fix-point input, to collect the stores that
+     * flow along back edges. Every further round discards the inputs of all blocks but the entry
+     * block, seeds each loop head with the back-edge stores of the previous round, and analyzes the
+     * reachable blocks once in reverse postorder, so that every forward predecessor of a block is
+     * analyzed before the block itself. The stores of a round are therefore never larger than those
+     * of the previous one, and they remain a sound approximation if the transfer function is
+     * monotone.
+     */
+    protected void narrow() {
+        List<Block> order = cfg.getReversePostOrderedBlocks();
+        reversePostOrderIndex = new IdentityHashMap<>();
+        for (Block b : order) {
+            reversePostOrderIndex.put(b, reversePostOrderIndex.size());
+        }
+        narrowing = true;
+        Block entry = cfg.getEntryBlock();
+        for (int round = 0; round <= narrowingIterations; round++) {
+            IdentityHashMap<Block, S> seedThenStores = backEdgeThenStores;
+            IdentityHashMap<Block, S> seedElseStores = backEdgeElseStores;
+            backEdgeThenStores = new IdentityHashMap<>();
+            backEdgeElseStores = new IdentityHashMap<>();
+            if (round > 0) {
+                if (seedThenStores.isEmpty() && seedElseStores.isEmpty()) {
+                    // No loops: the first round changed nothing.
+                    break;
+                }
+                TransferInput<A, S> entryInput = inputs.get(entry);
+                S entryThenStore = thenStores.get(entry);
+                S entryElseStore = elseStores.get(entry);
+                thenStores.clear();
+                elseStores.clear();
+                inputs.clear();
+                exceptionalExitPredecessors.clear();
+                thenStores.put(entry, entryThenStore);
+                elseStores.put(entry, entryElseStore);
+                inputs.put(entry, entryInput);
+                Set<Block> heads = Collections.newSetFromMap(new IdentityHashMap<Block, Boolean>());
+                heads.addAll(seedThenStores.keySet());
+                heads.addAll(seedElseStores.keySet());
+                for (Block head : heads) {
+                    S thenStore = seedThenStores.get(head);
+                    S elseStore = seedElseStores.get(head);
+                    if (thenStore == elseStore) {
+                        addStoreBefore(head, null, thenStore, Store.Kind.BOTH, false);
+                        continue;
+                    }
+                    if (thenStore != null) {
+                        addStoreBefore(head, null, thenStore, Store.Kind.THEN, false);
+                    }
+                    if (elseStore != null) {
+                        addStoreBefore(head, null, elseStore, Store.Kind.ELSE, false);
+                    }
+                }
+            }
+            for (Block b : order) {
+                if (getInputBefore(b) != null) {
+                    analyzeBlock(b);
+                }
+            }
+        }
+        narrowing = false;
+        reversePostOrderIndex = null;
+        backEdgeThenStores = null;
+        backEdgeElseStores = null;
+    }
+
+    /**
+     * Returns true if the edge from {@code pred} to {@code succ} is a back edge of the traversal
+     * that ordered the blocks for narrowing.
+     */
+    private boolean isBackEdge(Block pred, Block succ) {
+        Integer predIndex = reversePostOrderIndex.get(pred);
+        Integer succIndex = reversePostOrderIndex.get(succ);
+        return predIndex != null && succIndex != null && succIndex <= predIndex;
+    }
+
+    /** Joins a store that flows along a back edge into the seed of the next narrowing round. */
+    private void addBackEdgeStore(Block head, S s, Store.Kind kind) {
+        S thenStore = backEdgeThenStores.get(head);
+        S elseStore = backEdgeElseStores.get(head);
+        if (kind == Store.Kind.BOTH && thenStore == elseStore) {
+            S newStore = mergeStores(s, thenStore, false);
+            backEdgeThenStores.put(head, newStore);
+            backEdgeElseStores.put(head, newStore);
+            return;
+        }
+        if (kind != Store.Kind.ELSE) {
+            backEdgeThenStores.put(head, mergeStores(s, thenStore, false));
+        }
+        if (kind != Store.Kind.THEN) {
+            backEdgeElseStores.put(head, mergeStores(s, elseStore, false));
+        }
+    }
+
     private S mergeStores(S newStore, S previousStore, boolean shouldWiden) {
         if (previousStore == null) {
             return newStore;
@@ -627,9 +981,47 @@ public class Analysis<
      * yet).
      */
     public @Nullable TransferInput<A, S> getInput(Block b) {
+        if (cfg != null && b == cfg.getExceptionalExitBlock()) {
+            joinExceptionalExitStores();
+        }
         return getInputBefore(b);
     }
 
+    /**
+     * Joins the input stores of the {@link #exceptionalExitPredecessors} into the store of the
+     * exceptional exit block. Because the input stores only grow during a fix-point iteration or a
+     * narrowing round, joining their final values once gives the same result as joining every
+     * intermediate value as it is propagated. Each store is treated as by {@link
+     * #addStoreBefore}: the dead local variables are removed, and the store is replaced by the
+     * conservative store if it was propagated after the analysis exceeded twice its budget.
+     */
+    protected void joinExceptionalExitStores() {
+        if (exceptionalExitPredecessors.isEmpty()) {
+            return;
+        }
+        Block exceptionalExit = cfg.getExceptionalExitBlock();
+        Set<Element> dead =
+                liveLocalVariables == null
+                        ? Collections.<Element>emptySet()
+                        : liveLocalVariables.getDeadBefore(exceptionalExit);
+        TransferInput<A, S> exitInput = inputs.get(exceptionalExit);
+        S joined = exitInput == null ? null : exitInput.getRegularStore();
+        for (Map.Entry<Block, Boolean> pred : exceptionalExitPredecessors.entrySet()) {
+            S store = getInputBefore(pred.getKey()).getRegularStore();
+            S conservativeStore = pred.getValue() ? getConservativeStore(store) : null;
+            if (conservativeStore != null) {
+                store = conservativeStore;
+            } else if (!dead.isEmpty()) {
+                store = removeLocalVariables(store, dead);
+            }
+            joined = joined == null ? store.copy() : joined.leastUpperBound(store);
+        }
+        exceptionalExitPredecessors.clear();
+        thenStores.put(exceptionalExit, joined);
+        elseStores.put(exceptionalExit, joined);
+        inputs.put(exceptionalExit, new TransferInput<>(null, this, joined));
+    }
+
     /**
      * @return the transfer input corresponding to the location right before the basic block {@code
      *     b}.
@@ -664,6 +1056,26 @@ public class Analysis<
         return isRunning;
     }
 
+    /** @return the number of blocks that were taken from the worklist by the last analysis */
+    public int getWorklistIterations() {
+        return worklistIterations;
+    }
+
+    /** @return the number of times widening was applied by the last analysis */
+    public int getWideningCount() {
+        return wideningCount;
+    }
+
+    /** @return how far the last analysis degraded its precision to stay within its budget */
+    public Degradation getDegradation() {
+        return degradation;
+    }
+
+    /** @return the wall-clock milliseconds taken by the last analysis */
+    public long getAnalysisMillis() {
+        return analysisNanos / 1000000;
+    }
+
     /**
      * @return the abstract value for {@link Node} {@code n}, or {@code null} if no information is
      *     available. Note that if the analysis has not finished yet, this value might not represent
@@ -751,6 +1163,8 @@ public class Analysis<
 
     public AnalysisResult<A, S> getResult() {
         assert !isRunning;
+        // The result exposes the stores before every block, including the exceptional exit.
+        joinExceptionalExitStores();
         IdentityHashMap<Tree, Set<Node>> treeLookup = cfg.getTreeLookup();
         IdentityHashMap<UnaryTree, AssignmentNode> unaryAssignNodeLookup =
                 cfg.getUnaryAssignNodeLookup();
@@ -773,6 +1187,7 @@ public class Analysis<
     }
 
     public S getExceptionalExitStore() {
+        joinExceptionalExitStores();
         S exceptionalExitStore = inputs.get(cfg.getExceptionalExitBlock()).getRegularStore();
         return exceptionalExitStore;
     }
@@ -0,0 +1,236 @@
+package org.checkerframework.dataflow.analysis;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreeScanner;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.lang.model.element.Element;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.block.Block;
+import org.checkerframework.dataflow.cfg.block.Block.BlockType;
+import org.checkerframework.dataflow.cfg.block.ConditionalBlock;
+import org.checkerframework.dataflow.cfg.block.ExceptionBlock;
+import org.checkerframework.dataflow.cfg.block.RegularBlock;
+import org.checkerframework.dataflow.cfg.block.SingleSuccessorBlock;
+import org.checkerframework.dataflow.cfg.node.AssignmentNode;
+import org.checkerframework.dataflow.cfg.node.LocalVariableNode;
+import org.checkerframework.dataflow.cfg.node.MethodInvocationNode;
+import org.checkerframework.dataflow.cfg.node.Node;
+import org.checkerframework.dataflow.cfg.node.ObjectCreationNode;
+import org.checkerframework.dataflow.cfg.node.VariableDeclarationNode;
+import org.checkerframework.javacutil.TreeUtils;
+
+/**
+ * The local variables of a control flow graph that are dead before each block: no path from the
+ * start of the block reads the variable before it is assigned again. An {@link Analysis} uses it
+ * to remove the values of dead variables from the stores that it propagates; see {@link
+ * Analysis#removesDeadLocalVariables}. A variable is then carried only from its definitions to its
+ * uses, the stores stay small, and the joins at loop heads and other merge points only compare
+ * the variables that are live there.
+ *
+ * <p>The uses and definitions of a variable are its {@link LocalVariableNode}s and the {@link
+ * AssignmentNode}s whose target it is. A variable within the operands of a method invocation or
+ * object creation is also used by the invocation, whose contracts are checked against the store
+ * right before it. Only variables that are declared in the graph are considered. Parameters are
+ * never considered dead, because postconditions can refer to them at the exit of a method, and
+ * neither are variables that a lambda expression or a local or anonymous class in the graph
+ * refers to, because such uses are not part of the graph.
+ */
+public class LiveLocalVariables {
+
+    /** The variables that are dead before each reachable block. */
+    private final Map<Block, Set<Element>> deadBefore = new IdentityHashMap<>();
+
+    /**
+     * Computes the dead variables of {@code cfg} by a backward fix-point iteration over its
+     * reachable blocks.
+     *
+     * @param cfg a control flow graph
+     */
+    public LiveLocalVariables(ControlFlowGraph cfg) {
+        List<Block> order = cfg.getReversePostOrderedBlocks();
+        Set<Element> tracked = newElementSet();
+        for (Block b : order) {
+            for (Node n : contents(b)) {
+                if (n instanceof VariableDeclarationNode) {
+                    tracked.add(
+                            TreeUtils.elementFromDeclaration(
+                                    ((VariableDeclarationNode) n).getTree()));
+                }
+            }
+        }
+        tracked.removeAll(capturedVariables(cfg.getUnderlyingAST().getCode()));
+        if (tracked.isEmpty()) {
+            return;
+        }
+
+        // The variables that a block reads before it assigns them, and that it assigns.
+        Map<Block, Set<Element>> uses = new IdentityHashMap<>();
+        Map<Block, Set<Element>> defs = new IdentityHashMap<>();
+        for (Block b : order) {
+            Set<Element> use = newElementSet();
+            Set<Element> def = newElementSet();
+            for (Node n : contents(b)) {
+                if (n instanceof LocalVariableNode) {
+                    addUse((LocalVariableNode) n, tracked, def, use);
+                } else if (n instanceof MethodInvocationNode || n instanceof ObjectCreationNode) {
+                    // The contracts of the invoked method or constructor are checked in the
+                    // store before the invocation, where its arguments may be looked up.
+                    for (Node operand : n.getTransitiveOperands()) {
+                        if (operand instanceof LocalVariableNode) {
+                            addUse((LocalVariableNode) operand, tracked, def, use);
+                        }
+                    }
+                } else if (n instanceof AssignmentNode) {
+                    Node target = ((AssignmentNode) n).getTarget();
+                    if (target instanceof LocalVariableNode
+                            && tracked.contains(((LocalVariableNode) target).getElement())) {
+                        def.add(((LocalVariableNode) target).getElement());
+                    }
+                }
+            }
+            uses.put(b, use);
+            defs.put(b, def);
+        }
+
+        Map<Block, Set<Element>> liveBefore = new IdentityHashMap<>();
+        for (Block b : order) {
+            liveBefore.put(b, newElementSet());
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = order.size() - 1; i >= 0; i--) {
+                Block b = order.get(i);
+                Set<Element> live = newElementSet();
+                for (Block succ : regularSuccessors(b)) {
+                    addLive(live, liveBefore, succ);
+                }
+                live.removeAll(defs.get(b));
+                live.addAll(uses.get(b));
+                if (b.getType() == BlockType.EXCEPTION_BLOCK) {
+                    // An exceptional successor is reached before the node of the block completes.
+                    for (Set<Block> succs :
+                            ((ExceptionBlock) b).getExceptionalSuccessors().values()) {
+                        for (Block succ : succs) {
+                            addLive(live, liveBefore, succ);
+                        }
+                    }
+                }
+                if (liveBefore.get(b).addAll(live)) {
+                    changed = true;
+                }
+            }
+        }
+
+        for (Block b : order) {
+            Set<Element> dead = newElementSet();
+            dead.addAll(tracked);
+            dead.removeAll(liveBefore.get(b));
+            deadBefore.put(b, Collections.unmodifiableSet(dead));
+        }
+    }
+
+    /**
+     * Returns the local variables that are dead before {@code b}. Their values need not be
+     * propagated to {@code b}.
+     *
+     * @param b a block of the graph
+     * @return the variables that are dead before {@code b}
+     */
+    public Set<Element> getDeadBefore(Block b) {
+        Set<Element> dead = deadBefore.get(b);
+        return dead == null ? Collections.<Element>emptySet() : dead;
+    }
+
+    /**
+     * Adds the variable of {@code n} to {@code use} if {@code n} reads a tracked variable that has
+     * not been assigned before in the block.
+     */
+    private static void addUse(
+            LocalVariableNode n, Set<Element> tracked, Set<Element> def, Set<Element> use) {
+        Element var = n.getElement();
+        if (!n.isLValue() && tracked.contains(var) && !def.contains(var)) {
+            use.add(var);
+        }
+    }
+
+    /** Adds the variables that are live before {@code succ} to {@code live}. */
+    private static void addLive(
+            Set<Element> live, Map<Block, Set<Element>> liveBefore, Block succ) {
+        Set<Element> succLive = liveBefore.get(succ);
+        if (succLive != null) {
+            live.addAll(succLive);
+        }
+    }
+
+    /** Returns the nodes of {@code b}, in order. */
+    private static List<Node> contents(Block b) {
+        switch (b.getType()) {
+            case REGULAR_BLOCK:
+                return ((RegularBlock) b).getContents();
+            case EXCEPTION_BLOCK:
+                return Collections.singletonList(((ExceptionBlock) b).getNode());
+            default:
+                return Collections.emptyList();
+        }
+    }
+
+    /** Returns the successors of {@code b} other than its exceptional successors. */
+    private static List<Block> regularSuccessors(Block b) {
+        List<Block> result = new ArrayList<>(2);
+        if (b.getType() == BlockType.CONDITIONAL_BLOCK) {
+            result.add(((ConditionalBlock) b).getThenSuccessor());
+            result.add(((ConditionalBlock) b).getElseSuccessor());
+        } else {
+            Block succ = ((SingleSuccessorBlock) b).getSuccessor();
+            if (succ != null) {
+                result.add(succ);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the variables that are referred to within the lambda expressions and the local and
+     * anonymous classes of {@code code}.
+     */
+    private static Set<Element> capturedVariables(final Tree code) {
+        final Set<Element> result = newElementSet();
+        new TreeScanner<Void, Boolean>() {
+            @Override
+            public Void visitLambdaExpression(LambdaExpressionTree tree, Boolean nested) {
+                return super.visitLambdaExpression(tree, tree != code);
+            }
+
+            @Override
+            public Void visitClass(ClassTree tree, Boolean nested) {
+                return super.visitClass(tree, tree != code);
+            }
+
+            @Override
+            public Void visitIdentifier(IdentifierTree tree, Boolean nested) {
+                if (nested) {
+                    Element elt = TreeUtils.elementFromUse(tree);
+                    if (elt != null) {
+                        result.add(elt);
+                    }
+                }
+                return null;
+            }
+        }.scan(code, false);
+        return result;
+    }
+
+    /** Returns a new, empty set of elements that compares by identity. */
+    private static Set<Element> newElementSet() {
+        return Collections.newSetFromMap(new IdentityHashMap<Element, Boolean>());
+    }
+}
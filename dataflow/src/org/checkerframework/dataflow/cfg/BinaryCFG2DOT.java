@@ -0,0 +1,351 @@
+package org.checkerframework.dataflow.cfg;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Lists the control flow graphs in a file written by {@link BinaryCFGVisualizer}, and renders
+ * selected ones as DOT graphs in the format of {@link DOTCFGVisualizer}. Like {@link
+ * JavaSource2CFGDOT}, it is a command-line tool, but it works offline from a dump of an entire
+ * compilation, so graphs and analysis results can be inspected after the fact without
+ * recompiling.
+ *
+ * <p>Each block of a graph record consists of: the block id; the number of positions of the block
+ * in depth-first process order, and the positions; the block kind; the number of nodes, and for
+ * each node its label, node class, and abstract value; the number of input stores (0, 1, or 2 for
+ * then and else stores) and the stores; 0 or 1 and the store after the last node; and the number
+ * of outgoing edges, and for each edge the id of the target block and the label. Each store
+ * consists of its class name, the number of entries, and for each entry its kind, key, and value.
+ */
+public class BinaryCFG2DOT {
+
+    /** Main method. */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            printUsage();
+            System.exit(1);
+        }
+        String input = args[0];
+        String output = args[1];
+        File file = new File(input);
+        if (!file.canRead()) {
+            JavaSource2CFGDOT.printError("Cannot read input file: " + file.getAbsolutePath());
+            printUsage();
+            System.exit(1);
+        }
+
+        Pattern method = null;
+        boolean list = false;
+        boolean verbose = false;
+        boolean error = false;
+
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("-list")) {
+                list = true;
+            } else if (args[i].equals("-verbose")) {
+                verbose = true;
+            } else if (args[i].equals("-method")) {
+                if (i >= args.length - 1) {
+                    JavaSource2CFGDOT.printError("Did not find <regex> after -method.");
+                    continue;
+                }
+                i++;
+                method = Pattern.compile(args[i]);
+            } else {
+                JavaSource2CFGDOT.printError("Unknown command-line argument: " + args[i]);
+                error = true;
+            }
+        }
+
+        if (error) {
+            System.exit(1);
+        }
+
+        try {
+            List<String> written = convert(file, output, method, list, verbose);
+            if (!list) {
+                System.out.println("Wrote " + written.size() + " DOT files to " + output);
+            }
+        } catch (IOException e) {
+            JavaSource2CFGDOT.printError("Cannot read " + input + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Print usage information. */
+    protected static void printUsage() {
+        System.out.println(
+                "Render control flow graphs written by BinaryCFGVisualizer as DOT graphs.");
+        System.out.println(
+                "Parameters: <dumpfile> <outputdir> [-method <regex>] [-list] [-verbose]");
+        System.out.println(
+                "    -method:  Render the graphs whose names contain a match (default: all).");
+        System.out.println("    -list:    Print the names of the graphs instead of rendering.");
+        System.out.println("    -verbose: Include the process order of each block.");
+        System.out.println("Render a DOT file with: dot -Tpdf -o file.pdf file.dot");
+    }
+
+    /**
+     * Reads a binary CFG file, and either prints the names of its graphs or renders them.
+     *
+     * @param dumpFile a file written by {@link BinaryCFGVisualizer}
+     * @param outputDir the directory for the DOT files
+     * @param method if non-null, only graphs whose names contain a match are listed or rendered
+     * @param list if true, print the names of the graphs instead of rendering them
+     * @param verbose if true, include the process order of each block in the DOT graphs
+     * @return the names of the DOT files written
+     */
+    public static List<String> convert(
+            File dumpFile,
+            String outputDir,
+            @Nullable Pattern method,
+            boolean list,
+            boolean verbose)
+            throws IOException {
+        List<String> written = new ArrayList<>();
+        try (DataInputStream in =
+                new DataInputStream(
+                        new BufferedInputStream(new FileInputStream(dumpFile), 1 << 16))) {
+            byte[] magic = new byte[BinaryCFGVisualizer.MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, BinaryCFGVisualizer.MAGIC)) {
+                throw new IOException("not a binary CFG file");
+            }
+            long version = readVarint(in);
+            if (version != BinaryCFGVisualizer.VERSION) {
+                throw new IOException("unsupported binary CFG format version " + version);
+            }
+
+            // Index 0 stands for null.
+            List<String> strings = new ArrayList<>();
+            strings.add(null);
+            int tag;
+            while ((tag = in.read()) != -1) {
+                switch (tag) {
+                    case BinaryCFGVisualizer.TAG_STRING:
+                        byte[] bytes = new byte[(int) readVarint(in)];
+                        in.readFully(bytes);
+                        strings.add(new String(bytes, StandardCharsets.UTF_8));
+                        break;
+                    case BinaryCFGVisualizer.TAG_GRAPH:
+                        byte[] record = new byte[(int) readVarint(in)];
+                        in.readFully(record);
+                        GraphReader graph = new GraphReader(record, strings);
+                        String name = graph.readString();
+                        String checker = graph.readString();
+                        if (method != null && !method.matcher(name).find()) {
+                            break;
+                        }
+                        if (list) {
+                            System.out.println(name + "\t" + checker);
+                        } else {
+                            String fileName = dotFileName(outputDir, name, checker);
+                            writeFile(fileName, graph.toDot(verbose));
+                            written.add(fileName);
+                        }
+                        break;
+                    default:
+                        throw new IOException("corrupt binary CFG file: unknown tag " + tag);
+                }
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Returns the DOT file name for a graph. It is derived from the name of the graph, as in
+     * {@code <Class::method(params)::pos>}, but includes the position to distinguish overloads.
+     */
+    protected static String dotFileName(String outputDir, String graphName, String checker) {
+        String base =
+                graphName
+                        .replaceAll("\\(.*\\)", "")
+                        .replace("::", "-")
+                        .replaceAll("[^\\w.$-]", "");
+        return outputDir + File.separator + base + "-" + checker + ".dot";
+    }
+
+    private static void writeFile(String fileName, String contents) throws IOException {
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(fileName))) {
+            out.write(contents);
+        }
+    }
+
+    /** Reads an unsigned variable-length quantity, as written by {@link BinaryCFGVisualizer}. */
+    static long readVarint(InputStream in) throws IOException {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException();
+            }
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+        }
+    }
+
+    /** Decodes the body of one graph record and renders it as DOT. */
+    private static class GraphReader {
+        /** The graph record, after its length. */
+        final DataInputStream in;
+        /** The strings defined so far, by number. */
+        final List<String> strings;
+
+        GraphReader(byte[] record, List<String> strings) {
+            this.in = new DataInputStream(new ByteArrayInputStream(record));
+            this.strings = strings;
+        }
+
+        String readString() throws IOException {
+            return strings.get((int) readVarint(in));
+        }
+
+        int readCount() throws IOException {
+            return (int) readVarint(in);
+        }
+
+        /** Renders the rest of the graph record, which starts with the block count, as DOT. */
+        String toDot(boolean verbose) throws IOException {
+            StringBuilder edges = new StringBuilder();
+            StringBuilder nodes = new StringBuilder();
+            int blockCount = readCount();
+            for (int i = 0; i < blockCount; i++) {
+                long id = readVarint(in);
+                List<Long> order = new ArrayList<>();
+                for (int j = readCount(); j > 0; j--) {
+                    order.add(readVarint(in));
+                }
+                int kind = in.read();
+
+                nodes.append("    " + id + " [");
+                if (kind == BinaryCFGVisualizer.BLOCK_CONDITIONAL) {
+                    nodes.append("shape=polygon sides=8 ");
+                } else if (kind >= BinaryCFGVisualizer.BLOCK_ENTRY) {
+                    nodes.append("shape=oval ");
+                }
+                nodes.append("label=\"");
+                if (verbose) {
+                    nodes.append(
+                            "Process order: "
+                                    + order.toString().replaceAll("[\\[\\]]", "")
+                                    + "\\n");
+                }
+
+                StringBuilder block = new StringBuilder();
+                int nodeCount = readCount();
+                for (int j = 0; j < nodeCount; j++) {
+                    if (j > 0) {
+                        block.append("\\n");
+                    }
+                    block.append(escape(readString()) + "   [ " + readString() + " ]");
+                    String value = readString();
+                    if (value != null) {
+                        block.append("    > " + escape(value));
+                    }
+                }
+                boolean centered = false;
+                if (block.length() == 0) {
+                    centered = true;
+                    switch (kind) {
+                        case BinaryCFGVisualizer.BLOCK_ENTRY:
+                            block.append("<entry>");
+                            break;
+                        case BinaryCFGVisualizer.BLOCK_EXIT:
+                            block.append("<exit>");
+                            break;
+                        case BinaryCFGVisualizer.BLOCK_EXCEPTIONAL_EXIT:
+                            block.append("<exceptional-exit>");
+                            break;
+                        default:
+                            break;
+                    }
+                }
+
+                StringBuilder before = new StringBuilder();
+                int inputs = in.read();
+                if (inputs == 1) {
+                    before.append("Before:[");
+                    readStore(before);
+                    before.append("]\\n~~~~~~~~~\\n");
+                } else if (inputs == 2) {
+                    before.append("Before:[then=");
+                    readStore(before);
+                    before.append(", else=");
+                    readStore(before);
+                    before.append("]\\n~~~~~~~~~\\n");
+                }
+                if (in.read() == 1) {
+                    block.append("\\n~~~~~~~~~\\nAfter:");
+                    readStore(block);
+                }
+
+                if (kind == BinaryCFGVisualizer.BLOCK_CONDITIONAL) {
+                    nodes.append(" \",];\n");
+                } else if (block.length() == 0) {
+                    nodes.append("?? empty ?? \",];\n");
+                } else {
+                    block.insert(0, before);
+                    nodes.append(
+                            (block.toString() + (centered ? "" : "\\n")).replace("\\n", "\\l")
+                                    + " \",];\n");
+                }
+
+                for (int j = readCount(); j > 0; j--) {
+                    long target = readVarint(in);
+                    edges.append(
+                            "    " + id + " -> " + target + " [label=\"" + readString() + "\"];\n");
+                }
+            }
+            return "digraph {\n"
+                    + edges
+                    + "    node [shape=rectangle];\n\n"
+                    + nodes
+                    + "\n"
+                    + "}\n";
+        }
+
+        /** Reads one store and appends its rendering to {@code sb}. */
+        void readStore(StringBuilder sb) throws IOException {
+            String storeClass = readString();
+            int entryCount = readCount();
+            if (storeClass == null && entryCount == 0) {
+                // The store did not visualize itself.
+                return;
+            }
+            sb.append(storeClass + " (\\n");
+            for (int i = entryCount; i > 0; i--) {
+                int kind = in.read();
+                String key = escape(readString());
+                String value = escape(readString());
+                if (kind == BinaryCFGVisualizer.ENTRY_KEY_VALUE) {
+                    sb.append("  " + key + " = " + value + "\\n");
+                } else {
+                    sb.append("  " + key + " > " + value + "\\n");
+                }
+            }
+            sb.append(")");
+        }
+
+        private static String escape(String s) {
+            return s.replace("\"", "\\\"");
+        }
+    }
+}
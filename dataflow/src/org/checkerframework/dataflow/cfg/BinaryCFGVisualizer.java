@@ -0,0 +1,590 @@
+package org.checkerframework.dataflow.cfg;
+
+import com.sun.tools.javac.tree.JCTree;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.Set;
+import java.util.regex.Pattern;
+import javax.lang.model.type.TypeMirror;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.dataflow.analysis.AbstractValue;
+import org.checkerframework.dataflow.analysis.Analysis;
+import org.checkerframework.dataflow.analysis.FlowExpressions;
+import org.checkerframework.dataflow.analysis.Store;
+import org.checkerframework.dataflow.analysis.TransferFunction;
+import org.checkerframework.dataflow.analysis.TransferInput;
+import org.checkerframework.dataflow.cfg.UnderlyingAST.CFGMethod;
+import org.checkerframework.dataflow.cfg.UnderlyingAST.CFGStatement;
+import org.checkerframework.dataflow.cfg.block.Block;
+import org.checkerframework.dataflow.cfg.block.Block.BlockType;
+import org.checkerframework.dataflow.cfg.block.ConditionalBlock;
+import org.checkerframework.dataflow.cfg.block.ExceptionBlock;
+import org.checkerframework.dataflow.cfg.block.RegularBlock;
+import org.checkerframework.dataflow.cfg.block.SingleSuccessorBlock;
+import org.checkerframework.dataflow.cfg.block.SpecialBlock;
+import org.checkerframework.dataflow.cfg.node.Node;
+import org.checkerframework.javacutil.ErrorReporter;
+
+/**
+ * Writes the control flow graphs of all analyzed methods, and the analysis results for them, to a
+ * single compact binary file. Unlike {@link DOTCFGVisualizer}, which writes one text file per
+ * method, this visualizer appends each graph to the file as soon as it has been analyzed, and
+ * writes each distinct string, such as a node label, a type, or an abstract value, only once. Use
+ * {@link BinaryCFG2DOT} to list the graphs in a file and to render selected ones to DOT.
+ *
+ * <p>Enable it with {@code
+ * -Acfgviz=org.checkerframework.dataflow.cfg.BinaryCFGVisualizer,outdir=somedir}. The options
+ * passed to {@link #init} are:
+ *
+ * <ul>
+ *   <li>{@code outdir}: the directory in which the file {@code checkerName.cfgdump} is created.
+ *       Required.
+ *   <li>{@code verbose}: also record the store after the last node of each block.
+ *   <li>{@code methods}: a regular expression; only graphs whose name, as listed by {@link
+ *       BinaryCFG2DOT}, contains a match are written.
+ * </ul>
+ *
+ * <p>The file starts with {@link #MAGIC} and {@link #VERSION}, followed by a sequence of records.
+ * Each record starts with a tag byte:
+ *
+ * <ul>
+ *   <li>{@link #TAG_STRING}: a string, as a length-prefixed UTF-8 byte sequence. Strings are
+ *       numbered from 1 in the order in which they appear; other records refer to them by number,
+ *       and 0 stands for null.
+ *   <li>{@link #TAG_GRAPH}: one control flow graph, prefixed by its length in bytes so that
+ *       readers can skip it. All strings that it refers to precede it.
+ * </ul>
+ *
+ * All integers, including string numbers, are written as unsigned variable-length quantities of 7
+ * bits per byte, least significant group first. The layout of a graph record is documented in
+ * {@link #visualize} and {@link BinaryCFG2DOT}.
+ */
+public class BinaryCFGVisualizer<
+                A extends AbstractValue<A>, S extends Store<S>, T extends TransferFunction<A, S>>
+        implements CFGVisualizer<A, S, T> {
+
+    /** The first bytes of a binary CFG file. */
+    static final byte[] MAGIC = {'C', 'F', 'G', 'D'};
+
+    /** The version of the binary CFG format, written after {@link #MAGIC}. */
+    static final int VERSION = 1;
+
+    /** Tag of a record that defines a string. */
+    static final int TAG_STRING = 1;
+
+    /** Tag of a record that holds a control flow graph. */
+    static final int TAG_GRAPH = 2;
+
+    /** Block kind of a regular block. */
+    static final int BLOCK_REGULAR = 0;
+    /** Block kind of a conditional block. */
+    static final int BLOCK_CONDITIONAL = 1;
+    /** Block kind of an exception block. */
+    static final int BLOCK_EXCEPTION = 2;
+    /** Block kind of the entry block. */
+    static final int BLOCK_ENTRY = 3;
+    /** Block kind of the exit block. */
+    static final int BLOCK_EXIT = 4;
+    /** Block kind of the exceptional exit block. */
+    static final int BLOCK_EXCEPTIONAL_EXIT = 5;
+
+    /** Kind of a store entry that maps an expression to an abstract value. */
+    static final int ENTRY_VALUE = 0;
+    /** Kind of a store entry that holds store-specific information. */
+    static final int ENTRY_KEY_VALUE = 1;
+
+    protected String checkerName;
+    protected boolean verbose;
+
+    /** Only graphs whose name contains a match of this pattern are written, if it is non-null. */
+    protected @Nullable Pattern methods;
+
+    /** The file the graphs are written to. */
+    protected String fileName;
+
+    /** The destination of the records; opened when the first graph is written. */
+    protected @Nullable DataOutputStream out;
+
+    /** The number of each string that has been written to {@link #out}. */
+    protected final Map<String, Integer> stringTable = new HashMap<>();
+
+    /** Strings referred to by the graph being written that are not yet in {@link #out}. */
+    protected final List<String> newStrings = new ArrayList<>();
+
+    /** The graph record being written. */
+    protected final ByteArrayOutputStream graphBytes = new ByteArrayOutputStream();
+
+    /** Writes to {@link #graphBytes}. */
+    protected final DataOutputStream graph = new DataOutputStream(graphBytes);
+
+    /** The entries of the store being visualized, as (kind, key, value) triples. */
+    protected final List<Object[]> storeEntries = new ArrayList<>();
+
+    /** The class name of the store being visualized. */
+    protected @Nullable String storeClass;
+
+    @Override
+    public void init(Map<String, Object> args) {
+        String outdir = (String) args.get("outdir");
+        if (outdir == null) {
+            ErrorReporter.errorAbort(
+                    "BinaryCFGVisualizer requires an outdir option, as in "
+                            + "-Acfgviz=org.checkerframework.dataflow.cfg.BinaryCFGVisualizer,"
+                            + "outdir=somedir");
+        }
+        {
+            Object verb = args.get("verbose");
+            this.verbose =
+                    verb == null
+                            ? false
+                            : verb instanceof String
+                                    ? Boolean.parseBoolean((String) verb)
+                                    : (boolean) verb;
+        }
+        Object methodsOption = args.get("methods");
+        this.methods =
+                methodsOption instanceof String ? Pattern.compile((String) methodsOption) : null;
+        this.checkerName = (String) args.get("checkerName");
+        this.fileName = outdir + File.separator + checkerName + ".cfgdump";
+    }
+
+    /**
+     * Appends the graph to the file. The graph record holds the name of the graph, the name of the
+     * checker, and the number of blocks, followed by the blocks in breadth-first order from {@code
+     * entry}; see {@link #visualizeBlock}.
+     *
+     * @return a map from "cfgDumpFile" to the name of the file, and from "graphName" to the name of
+     *     the graph, or null if the graph was not written because it does not match the {@code
+     *     methods} option
+     */
+    @Override
+    public @Nullable Map<String, Object> visualize(
+            ControlFlowGraph cfg, Block entry, @Nullable Analysis<A, S, T> analysis) {
+        String graphName = graphName(cfg.underlyingAST);
+        if (methods != null && !methods.matcher(graphName).find()) {
+            return null;
+        }
+
+        Set<Block> blocks = reachableBlocks(entry);
+        IdentityHashMap<Block, List<Integer>> processOrder = getProcessOrder(cfg);
+        graphBytes.reset();
+        newStrings.clear();
+        writeString(graphName);
+        writeString(checkerName);
+        writeCount(blocks.size());
+        for (Block block : blocks) {
+            writeCount(block.getId());
+            List<Integer> order = processOrder.get(block);
+            if (order == null) {
+                writeCount(0);
+            } else {
+                writeCount(order.size());
+                for (int position : order) {
+                    writeCount(position);
+                }
+            }
+            visualizeBlock(block, analysis);
+            writeEdges(block);
+        }
+        try {
+            writeGraphRecord();
+        } catch (IOException e) {
+            ErrorReporter.errorAbort("Error writing CFG dump file: " + fileName, e);
+        }
+
+        Map<String, Object> res = new HashMap<>();
+        res.put("cfgDumpFile", fileName);
+        res.put("graphName", graphName);
+        return res;
+    }
+
+    /**
+     * Writes the strings that are new in the current graph and then the graph itself to {@link
+     * #out}, and flushes it so that the file holds every complete graph even if the compilation is
+     * killed.
+     */
+    protected void writeGraphRecord() throws IOException {
+        if (out == null) {
+            out =
+                    new DataOutputStream(
+                            new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16));
+            out.write(MAGIC);
+            writeVarint(out, VERSION);
+        }
+        for (String s : newStrings) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.write(TAG_STRING);
+            writeVarint(out, bytes.length);
+            out.write(bytes);
+        }
+        out.write(TAG_GRAPH);
+        writeVarint(out, graphBytes.size());
+        graphBytes.writeTo(out);
+        out.flush();
+    }
+
+    /** Returns the blocks reachable from {@code entry}, in breadth-first order. */
+    protected Set<Block> reachableBlocks(Block entry) {
+        Set<Block> visited = new LinkedHashSet<>();
+        Queue<Block> worklist = new ArrayDeque<>();
+        visited.add(entry);
+        worklist.add(entry);
+        while (!worklist.isEmpty()) {
+            for (Block succ : successors(worklist.remove()).keySet()) {
+                if (visited.add(succ)) {
+                    worklist.add(succ);
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Returns the outgoing edges of {@code block}, as a map from successor to the labels of the
+     * edges to that successor, in the order in which {@link DOTCFGVisualizer} draws them.
+     */
+    protected Map<Block, List<String>> successors(Block block) {
+        Map<Block, List<String>> result = new LinkedHashMap<>();
+        if (block.getType() == BlockType.CONDITIONAL_BLOCK) {
+            ConditionalBlock cblock = (ConditionalBlock) block;
+            addEdge(result, cblock.getThenSuccessor(), "then\\n" + cblock.getThenFlowRule());
+            addEdge(result, cblock.getElseSuccessor(), "else\\n" + cblock.getElseFlowRule());
+        } else {
+            SingleSuccessorBlock sblock = (SingleSuccessorBlock) block;
+            if (sblock.getSuccessor() != null) {
+                addEdge(result, sblock.getSuccessor(), sblock.getFlowRule().name());
+            }
+        }
+        if (block.getType() == BlockType.EXCEPTION_BLOCK) {
+            ExceptionBlock eblock = (ExceptionBlock) block;
+            for (Entry<TypeMirror, Set<Block>> e : eblock.getExceptionalSuccessors().entrySet()) {
+                String exception = e.getKey().toString();
+                if (exception.startsWith("java.lang.")) {
+                    exception = exception.replace("java.lang.", "");
+                }
+                for (Block succ : e.getValue()) {
+                    addEdge(result, succ, exception);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void addEdge(Map<Block, List<String>> edges, Block target, String label) {
+        List<String> labels = edges.get(target);
+        if (labels == null) {
+            labels = new ArrayList<>(1);
+            edges.put(target, labels);
+        }
+        labels.add(label);
+    }
+
+    /** Writes the number of outgoing edges of {@code block}, then each target id and label. */
+    protected void writeEdges(Block block) {
+        Map<Block, List<String>> successors = successors(block);
+        int count = 0;
+        for (List<String> labels : successors.values()) {
+            count += labels.size();
+        }
+        writeCount(count);
+        for (Map.Entry<Block, List<String>> e : successors.entrySet()) {
+            for (String label : e.getValue()) {
+                writeCount(e.getKey().getId());
+                writeString(label);
+            }
+        }
+    }
+
+    protected IdentityHashMap<Block, List<Integer>> getProcessOrder(ControlFlowGraph cfg) {
+        IdentityHashMap<Block, List<Integer>> depthFirstOrder = new IdentityHashMap<>();
+        int count = 1;
+        for (Block b : cfg.getDepthFirstOrderedBlocks()) {
+            if (depthFirstOrder.get(b) == null) {
+                depthFirstOrder.put(b, new ArrayList<Integer>());
+            }
+            depthFirstOrder.get(b).add(count++);
+        }
+        return depthFirstOrder;
+    }
+
+    /**
+     * Returns the name of a graph, which identifies the method or initializer it represents. The
+     * format is the one of the keys in the {@code methods.txt} file of {@link DOTCFGVisualizer}.
+     */
+    protected String graphName(UnderlyingAST ast) {
+        StringBuilder srcloc = new StringBuilder();
+        if (ast.getKind() == UnderlyingAST.Kind.ARBITRARY_CODE) {
+            CFGStatement cfgs = (CFGStatement) ast;
+            srcloc.append('<');
+            srcloc.append(cfgs.getClassTree().getSimpleName());
+            srcloc.append("::initializer::");
+            srcloc.append(((JCTree) cfgs.getCode()).pos);
+            srcloc.append('>');
+        } else if (ast.getKind() == UnderlyingAST.Kind.METHOD) {
+            CFGMethod cfgm = (CFGMethod) ast;
+            srcloc.append('<');
+            srcloc.append(cfgm.getClassTree().getSimpleName());
+            srcloc.append("::");
+            srcloc.append(cfgm.getMethod().getName());
+            srcloc.append('(');
+            srcloc.append(cfgm.getMethod().getParameters());
+            srcloc.append(")::");
+            srcloc.append(((JCTree) cfgm.getMethod()).pos);
+            srcloc.append('>');
+        } else {
+            ErrorReporter.errorAbort(
+                    "Unexpected AST kind: " + ast.getKind() + " value: " + ast.toString());
+            return null;
+        }
+        return srcloc.toString();
+    }
+
+    /**
+     * Writes the kind of {@code bb}, its nodes, and, if {@code analysis} is non-null, its input
+     * stores and the store after its last node. Each node is written as its label, its node class,
+     * and its abstract value.
+     */
+    @Override
+    public void visualizeBlock(Block bb, @Nullable Analysis<A, S, T> analysis) {
+        List<Node> contents;
+        switch (bb.getType()) {
+            case REGULAR_BLOCK:
+                writeByte(BLOCK_REGULAR);
+                contents = ((RegularBlock) bb).getContents();
+                break;
+            case EXCEPTION_BLOCK:
+                writeByte(BLOCK_EXCEPTION);
+                contents = Collections.singletonList(((ExceptionBlock) bb).getNode());
+                break;
+            case CONDITIONAL_BLOCK:
+                writeByte(BLOCK_CONDITIONAL);
+                contents = Collections.emptyList();
+                break;
+            case SPECIAL_BLOCK:
+                visualizeSpecialBlock((SpecialBlock) bb);
+                contents = Collections.emptyList();
+                break;
+            default:
+                throw new AssertionError("All types of basic blocks covered");
+        }
+        writeCount(contents.size());
+        for (Node t : contents) {
+            visualizeBlockNode(t, analysis);
+        }
+        if (analysis == null) {
+            writeByte(0);
+            writeByte(0);
+        } else {
+            visualizeBlockTransferInput(bb, analysis);
+        }
+    }
+
+    @Override
+    public void visualizeSpecialBlock(SpecialBlock sbb) {
+        switch (sbb.getSpecialType()) {
+            case ENTRY:
+                writeByte(BLOCK_ENTRY);
+                break;
+            case EXIT:
+                writeByte(BLOCK_EXIT);
+                break;
+            case EXCEPTIONAL_EXIT:
+                writeByte(BLOCK_EXCEPTIONAL_EXIT);
+                break;
+        }
+    }
+
+    /**
+     * Writes the number of input stores of {@code bb} (1, or 2 for a then and an else store) and
+     * the stores, then 0 or, in verbose mode, 1 and the store after the last node of {@code bb}.
+     */
+    @Override
+    public void visualizeBlockTransferInput(Block bb, Analysis<A, S, T> analysis) {
+        assert analysis != null
+                : "analysis should be non-null when visualizing the transfer input of a block.";
+
+        TransferInput<A, S> input = analysis.getInput(bb);
+        if (input == null) {
+            writeByte(0);
+        } else if (!input.containsTwoStores()) {
+            writeByte(1);
+            visualizeStore(input.getRegularStore());
+        } else {
+            writeByte(2);
+            visualizeStore(input.getThenStore());
+            visualizeStore(input.getElseStore());
+        }
+
+        Node lastNode = null;
+        if (verbose) {
+            switch (bb.getType()) {
+                case REGULAR_BLOCK:
+                    List<Node> blockContents = ((RegularBlock) bb).getContents();
+                    lastNode = blockContents.get(blockContents.size() - 1);
+                    break;
+                case EXCEPTION_BLOCK:
+                    lastNode = ((ExceptionBlock) bb).getNode();
+                    break;
+                default:
+                    lastNode = null;
+            }
+        }
+        S after = lastNode == null ? null : analysis.getResult().getStoreAfter(lastNode);
+        if (after == null) {
+            writeByte(0);
+        } else {
+            writeByte(1);
+            visualizeStore(after);
+        }
+    }
+
+    @Override
+    public void visualizeBlockNode(Node t, @Nullable Analysis<A, S, T> analysis) {
+        writeString(t.toString());
+        writeString(t.getClass().getSimpleName().replace("Node", ""));
+        A value = analysis == null ? null : analysis.getValue(t);
+        writeString(value == null ? null : value.toString());
+    }
+
+    /**
+     * Writes the class name of {@code store}, the number of its entries, and each entry as its
+     * kind ({@link #ENTRY_VALUE} or {@link #ENTRY_KEY_VALUE}), key, and value.
+     */
+    @Override
+    public void visualizeStore(S store) {
+        storeClass = null;
+        storeEntries.clear();
+        store.visualize(this);
+        writeString(storeClass);
+        writeCount(storeEntries.size());
+        for (Object[] entry : storeEntries) {
+            writeByte((Integer) entry[0]);
+            writeString((String) entry[1]);
+            writeString((String) entry[2]);
+        }
+        storeEntries.clear();
+    }
+
+    @Override
+    public void visualizeStoreHeader(String classCanonicalName) {
+        storeClass = classCanonicalName;
+    }
+
+    @Override
+    public void visualizeStoreThisVal(A value) {
+        addStoreEntry(ENTRY_VALUE, "this", value);
+    }
+
+    @Override
+    public void visualizeStoreLocalVar(FlowExpressions.LocalVariable localVar, A value) {
+        addStoreEntry(ENTRY_VALUE, localVar, value);
+    }
+
+    @Override
+    public void visualizeStoreFieldVals(FlowExpressions.FieldAccess fieldAccess, A value) {
+        addStoreEntry(ENTRY_VALUE, fieldAccess, value);
+    }
+
+    @Override
+    public void visualizeStoreArrayVal(FlowExpressions.ArrayAccess arrayValue, A value) {
+        addStoreEntry(ENTRY_VALUE, arrayValue, value);
+    }
+
+    @Override
+    public void visualizeStoreMethodVals(FlowExpressions.MethodCall methodCall, A value) {
+        addStoreEntry(ENTRY_VALUE, methodCall, value);
+    }
+
+    @Override
+    public void visualizeStoreClassVals(FlowExpressions.ClassName className, A value) {
+        addStoreEntry(ENTRY_VALUE, className, value);
+    }
+
+    @Override
+    public void visualizeStoreKeyVal(String keyName, Object value) {
+        addStoreEntry(ENTRY_KEY_VALUE, keyName, value);
+    }
+
+    @Override
+    public void visualizeStoreFooter() {}
+
+    private void addStoreEntry(int kind, Object key, Object value) {
+        storeEntries.add(new Object[] {kind, String.valueOf(key), String.valueOf(value)});
+    }
+
+    /** Closes the file. */
+    @Override
+    public void shutdown() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            ErrorReporter.errorAbort("Error closing CFG dump file: " + fileName, e);
+        }
+        out = null;
+    }
+
+    /** Writes the number of {@code s} to the current graph, assigning one if {@code s} is new. */
+    protected void writeString(@Nullable String s) {
+        int id;
+        if (s == null) {
+            id = 0;
+        } else {
+            Integer known = stringTable.get(s);
+            if (known == null) {
+                id = stringTable.size() + 1;
+                stringTable.put(s, id);
+                newStrings.add(s);
+            } else {
+                id = known;
+            }
+        }
+        writeCount(id);
+    }
+
+    /** Writes a non-negative integer to the current graph. */
+    protected void writeCount(long count) {
+        try {
+            writeVarint(graph, count);
+        } catch (IOException e) {
+            throw new AssertionError(e); // cannot happen when writing to a byte array
+        }
+    }
+
+    /** Writes one byte to the current graph. */
+    protected void writeByte(int b) {
+        try {
+            graph.write(b);
+        } catch (IOException e) {
+            throw new AssertionError(e); // cannot happen when writing to a byte array
+        }
+    }
+
+    /** Writes {@code value}, which must be non-negative, as a variable-length quantity. */
+    static void writeVarint(OutputStream os, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            os.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        os.write((int) value);
+    }
+}
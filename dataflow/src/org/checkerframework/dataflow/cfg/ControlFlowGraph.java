@@ -60,6 +60,15 @@ public class ControlFlowGraph {
      */
     protected final List<ReturnNode> returnNodes;
 
+    /**
+     * The reachable blocks in reverse postorder of a depth-first traversal, or null if not yet
+     * computed. See {@link #computeLoopStructure}.
+     */
+    private @Nullable List<Block> reversePostOrder;
+
+    /** The targets of the back edges of the depth-first traversal, or null if not yet computed. */
+    private @Nullable Set<Block> loopHeads;
+
     public ControlFlowGraph(
             SpecialBlock entryBlock,
             SpecialBlockImpl regularExitBlock,
@@ -184,6 +193,69 @@ public class ControlFlowGraph {
         return dfsOrderResult;
     }
 
+    /**
+     * @return the reachable basic blocks of this control flow graph in reverse postorder of a
+     *     depth-first traversal. Every block appears once, and it appears after all of its
+     *     predecessors except those that reach it through a back edge.
+     */
+    public List<Block> getReversePostOrderedBlocks() {
+        if (reversePostOrder == null) {
+            computeLoopStructure();
+        }
+        return reversePostOrder;
+    }
+
+    /**
+     * @return the loop heads of this control flow graph, that is, the blocks that are the target
+     *     of a back edge of the depth-first traversal of {@link #getReversePostOrderedBlocks}.
+     *     Every cycle in the graph contains a loop head.
+     */
+    public Set<Block> getLoopHeads() {
+        if (loopHeads == null) {
+            computeLoopStructure();
+        }
+        return loopHeads;
+    }
+
+    /**
+     * Computes {@link #reversePostOrder} and {@link #loopHeads} by an iterative depth-first
+     * traversal from the entry block. An edge is a back edge if its target is on the stack of the
+     * traversal.
+     */
+    private void computeLoopStructure() {
+        List<Block> postOrder = new ArrayList<>();
+        Set<Block> heads = Collections.newSetFromMap(new IdentityHashMap<Block, Boolean>());
+        Set<Block> visited = Collections.newSetFromMap(new IdentityHashMap<Block, Boolean>());
+        Set<Block> onStack = Collections.newSetFromMap(new IdentityHashMap<Block, Boolean>());
+        Deque<Block> stack = new ArrayDeque<>();
+        Deque<Deque<Block>> pending = new ArrayDeque<>();
+        visited.add(entryBlock);
+        onStack.add(entryBlock);
+        stack.push(entryBlock);
+        pending.push(getSuccessors(entryBlock));
+        while (!stack.isEmpty()) {
+            Deque<Block> succs = pending.peek();
+            if (succs.isEmpty()) {
+                Block done = stack.pop();
+                pending.pop();
+                onStack.remove(done);
+                postOrder.add(done);
+                continue;
+            }
+            Block succ = succs.removeFirst();
+            if (onStack.contains(succ)) {
+                heads.add(succ);
+            } else if (visited.add(succ)) {
+                onStack.add(succ);
+                stack.push(succ);
+                pending.push(getSuccessors(succ));
+            }
+        }
+        Collections.reverse(postOrder);
+        reversePostOrder = Collections.unmodifiableList(postOrder);
+        loopHeads = Collections.unmodifiableSet(heads);
+    }
+
     /**
      * Get a list of all successor Blocks for cur
      *
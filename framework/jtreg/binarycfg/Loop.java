@@ -0,0 +1,10 @@
+class Loop {
+    int m(int x) {
+        int y = 1;
+        while (x > 0) {
+            y = y + 2;
+            x--;
+        }
+        return y;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * @test
+ * @summary Test that a CFG written by BinaryCFGVisualizer and rendered by BinaryCFG2DOT equals
+ * the CFG written by DOTCFGVisualizer, apart from the order of the blocks.
+ *
+ * @compile -Aflowdotdir=. -processor org.checkerframework.common.value.ValueChecker Loop.java -AprintErrorStack
+ * @compile -Acfgviz=org.checkerframework.dataflow.cfg.BinaryCFGVisualizer,outdir=.,verbose=true -processor org.checkerframework.common.value.ValueChecker Loop.java -AprintErrorStack
+ * @compile Main.java
+ * @run main Main
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.checkerframework.dataflow.cfg.BinaryCFG2DOT;
+
+public class Main {
+
+    /** The part of a block label that shows the store after the last node, in verbose mode. */
+    private static final Pattern AFTER_STORE =
+            Pattern.compile("~~~~~~~~~\\\\lAfter:.*\\\\l \",\\];$");
+
+    public static void main(String[] args) throws IOException {
+        File dumpFile = null;
+        for (File file : new File(".").listFiles()) {
+            if (file.getName().endsWith(".cfgdump")) {
+                dumpFile = file;
+            }
+        }
+        if (dumpFile == null) {
+            throw new AssertionError("No .cfgdump file was written");
+        }
+
+        new File("rendered").mkdirs();
+        List<String> written =
+                BinaryCFG2DOT.convert(dumpFile, "rendered", Pattern.compile("m\\("), false, false);
+        if (written.size() != 1) {
+            throw new AssertionError("Expected one DOT file for Loop.m: " + written);
+        }
+        List<String> rendered = readLines(new File(written.get(0)));
+
+        // The dump was written with verbose=true, so it holds the store after each block.
+        boolean sawAfterStore = false;
+        List<String> withoutAfterStores = new ArrayList<>();
+        for (String line : rendered) {
+            String stripped = AFTER_STORE.matcher(line).replaceFirst(" \",];");
+            sawAfterStore |= !stripped.equals(line);
+            withoutAfterStores.add(stripped);
+        }
+        Collections.sort(withoutAfterStores);
+        if (!sawAfterStore) {
+            throw new AssertionError("verbose=true was ignored: " + rendered);
+        }
+
+        File expected = null;
+        for (File file : new File(".").listFiles()) {
+            if (file.getName().startsWith("Loop-m-") && file.getName().endsWith(".dot")) {
+                expected = file;
+            }
+        }
+        if (expected == null) {
+            throw new AssertionError("DOTCFGVisualizer wrote no graph for Loop.m");
+        }
+        List<String> expectedLines = readLines(expected);
+        if (!expectedLines.equals(withoutAfterStores)) {
+            throw new AssertionError(
+                    "Rendered graph differs from " + expected + ":\n" + rendered);
+        }
+    }
+
+    /** Returns the non-empty lines of {@code file}, sorted. */
+    private static List<String> readLines(File file) throws IOException {
+        List<String> result = new ArrayList<>();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            if (!line.trim().isEmpty()) {
+                result.add(line);
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+}
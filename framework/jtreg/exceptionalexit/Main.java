@@ -0,0 +1,129 @@
+/*
+ * @test
+ * @summary Test that the stores joined into the exceptional exit store have their dead local
+ * variables removed, and are replaced by the conservative store once the analysis has exceeded
+ * twice its budget, as the stores propagated to any other block are.
+ *
+ * @compile Main.java
+ * @run main Main
+ */
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.tools.javac.api.JavacTaskImpl;
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.dataflow.analysis.Analysis;
+import org.checkerframework.dataflow.cfg.CFGBuilder;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.constantpropagation.Constant;
+import org.checkerframework.dataflow.constantpropagation.ConstantPropagationStore;
+import org.checkerframework.dataflow.constantpropagation.ConstantPropagationTransfer;
+
+public class Main {
+
+    /**
+     * A constant propagation that removes dead local variables, if {@code pruning} is set, and
+     * degrades to an empty conservative store. Both replace a store by an empty store, so that
+     * the exceptional exit store is empty exactly if every store joined into it was replaced.
+     */
+    static class TestAnalysis
+            extends Analysis<Constant, ConstantPropagationStore, ConstantPropagationTransfer> {
+
+        private final boolean pruning;
+
+        TestAnalysis(ProcessingEnvironment env, boolean pruning) {
+            super(env, new ConstantPropagationTransfer());
+            this.pruning = pruning;
+        }
+
+        @Override
+        protected boolean removesDeadLocalVariables() {
+            return pruning;
+        }
+
+        @Override
+        protected ConstantPropagationStore removeLocalVariables(
+                ConstantPropagationStore store, Set<Element> vars) {
+            return new ConstantPropagationStore();
+        }
+
+        @Override
+        protected ConstantPropagationStore getConservativeStore(ConstantPropagationStore store) {
+            return new ConstantPropagationStore();
+        }
+    }
+
+    private static CompilationUnitTree root;
+    private static ClassTree classTree;
+    private static ProcessingEnvironment env;
+
+    public static void main(String[] args) throws IOException {
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = javac.getStandardFileManager(null, null, null);
+        File testfile = new File(System.getProperty("test.src", "."), "Test.java");
+        JavacTaskImpl task =
+                (JavacTaskImpl)
+                        javac.getTask(
+                                null,
+                                fileManager,
+                                null,
+                                null,
+                                null,
+                                fileManager.getJavaFileObjects(testfile));
+        root = task.parse().iterator().next();
+        task.analyze();
+        env = JavacProcessingEnvironment.instance(task.getContext());
+        classTree = (ClassTree) root.getTypeDecls().get(0);
+
+        // y is live before use(y), but dead along its exception to the exceptional exit block.
+        if (isEmpty(analyze("deadLocal", false, -1))) {
+            throw new AssertionError("Without pruning, y is not in the exceptional exit store");
+        }
+        if (!isEmpty(analyze("deadLocal", true, -1))) {
+            throw new AssertionError("The dead local y is in the exceptional exit store");
+        }
+
+        // The analysis degrades while it iterates the loop for the second time. The store before
+        // call() still holds the value of i from before the degradation, but the store that it
+        // propagates after the degradation is conservative.
+        TestAnalysis degraded = analyze("budget", false, 4);
+        if (degraded.getDegradation() != Analysis.Degradation.CONSERVATIVE_STORES) {
+            throw new AssertionError("The analysis did not degrade: " + degraded.getDegradation());
+        }
+        if (!isEmpty(degraded)) {
+            throw new AssertionError(
+                    "The exceptional exit store is not conservative: "
+                            + degraded.getExceptionalExitStore());
+        }
+    }
+
+    /** Analyzes the method of Test named {@code name}. */
+    private static TestAnalysis analyze(String name, boolean pruning, int maxIterations) {
+        for (Tree member : classTree.getMembers()) {
+            if (member instanceof MethodTree
+                    && ((MethodTree) member).getName().contentEquals(name)) {
+                ControlFlowGraph cfg = CFGBuilder.build(root, env, (MethodTree) member, classTree);
+                TestAnalysis analysis = new TestAnalysis(env, pruning);
+                analysis.setBudget(maxIterations, -1);
+                analysis.performAnalysis(cfg);
+                return analysis;
+            }
+        }
+        throw new AssertionError("No method " + name);
+    }
+
+    /** Returns true if the exceptional exit store of {@code analysis} holds no information. */
+    private static boolean isEmpty(TestAnalysis analysis) {
+        return analysis.getExceptionalExitStore().equals(new ConstantPropagationStore());
+    }
+}
@@ -0,0 +1,19 @@
+class Test {
+
+    void deadLocal() {
+        int y = 1;
+        use(y);
+    }
+
+    void budget(int n) {
+        int i = 0;
+        while (i < n) {
+            i = i + 1;
+            call();
+        }
+    }
+
+    void call() {}
+
+    void use(int x) {}
+}
@@ -32,6 +32,7 @@ import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.type.GenericAnnotatedTypeFactory;
 import org.checkerframework.framework.type.QualifierHierarchy;
 import org.checkerframework.framework.type.TypeHierarchy;
+import org.checkerframework.framework.util.CheckerStatistics;
 import org.checkerframework.javacutil.AbstractTypeProcessor;
 import org.checkerframework.javacutil.AnnotationProvider;
 import org.checkerframework.javacutil.ErrorReporter;
@@ -94,6 +95,7 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
         }
 
         super.initChecker();
+        mergedOptions = Collections.unmodifiableMap(getOptions());
     }
 
     /*
@@ -125,6 +127,12 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
     /** Supported options for this checker */
     private Set<String> supportedOptions;
 
+    /**
+     * The options of this checker and its subcheckers, cached once all of them are initialized.
+     * Null until then, because initialization adds options.
+     */
+    private Map<String, String> mergedOptions = null;
+
     /**
      * Returns the set of subchecker classes on which this checker depends. Returns an empty set if
      * this checker does not depend on any others.
@@ -254,7 +262,22 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
 
         assert cls != null : "reflectively loading " + name + " failed";
 
-        // Invoke the constructor.
+        return invokeConstructorFor(cls, paramTypes, args);
+    }
+
+    /**
+     * Invokes the constructor of {@code cls} having the given parameter types on the given
+     * arguments, like {@link #invokeConstructorFor(String, Class[], Object[])} but for a class
+     * that has already been loaded.
+     *
+     * @param <T> the type to which the constructor belongs
+     * @param cls the class to which the constructor belongs
+     * @param paramTypes the types of the constructor's parameters
+     * @param args the arguments on which to invoke the constructor
+     * @return the result of the constructor invocation on {@code args}
+     */
+    public static <T> T invokeConstructorFor(Class<T> cls, Class<?>[] paramTypes, Object[] args) {
+        String name = cls.getName();
         try {
             Constructor<T> ctor = cls.getConstructor(paramTypes);
             return ctor.newInstance(args);
@@ -506,6 +529,27 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
             // Update errsOnLastExit to reflect the errors issued.
             this.errsOnLastExit = log.nerrors;
         }
+
+        // A subchecker's results are used by its parent checker while the parent visits the same
+        // class, so only the checker that runs all others releases them.
+        if (parentChecker == null) {
+            releaseFlowResults();
+        }
+    }
+
+    /**
+     * Releases the flow analysis results of this checker and of all its subcheckers.
+     *
+     * @see GenericAnnotatedTypeFactory#releaseFlowResults()
+     */
+    private void releaseFlowResults() {
+        for (BaseTypeChecker subchecker : getSubcheckers()) {
+            subchecker.releaseFlowResults();
+        }
+        GenericAnnotatedTypeFactory<?, ?, ?, ?> factory = getTypeFactory();
+        if (factory != null) {
+            factory.releaseFlowResults();
+        }
     }
 
     /**
@@ -625,6 +669,29 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
         super.typeProcessingOver();
     }
 
+    @Override
+    public void typeProcessingFinished() {
+        for (BaseTypeChecker checker : getSubcheckers()) {
+            checker.typeProcessingFinished();
+        }
+
+        GenericAnnotatedTypeFactory<?, ?, ?, ?> factory = getTypeFactory();
+        if (factory != null) {
+            factory.writeApiSummary();
+            factory.writeCheckedMethodCache();
+        }
+
+        super.typeProcessingFinished();
+    }
+
+    @Override
+    protected void addStatistics(List<CheckerStatistics> statisticsList) {
+        for (BaseTypeChecker checker : getSubcheckers()) {
+            statisticsList.add(checker.getStatistics());
+        }
+        super.addStatistics(statisticsList);
+    }
+
     @Override
     public Set<String> getSupportedOptions() {
         if (supportedOptions == null) {
@@ -646,6 +713,9 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
 
     @Override
     public Map<String, String> getOptions() {
+        if (mergedOptions != null) {
+            return mergedOptions;
+        }
         Map<String, String> options = new HashMap<String, String>(super.getOptions());
 
         for (BaseTypeChecker checker : getSubcheckers()) {
@@ -655,6 +725,16 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
         return options;
     }
 
+    @Override
+    protected void addOptions(Map<String, String> moreopts) {
+        boolean initialized = mergedOptions != null;
+        mergedOptions = null;
+        super.addOptions(moreopts);
+        if (initialized) {
+            mergedOptions = Collections.unmodifiableMap(getOptions());
+        }
+    }
+
     @Override
     protected Object processArg(Object arg) {
         if (arg instanceof Collection) {
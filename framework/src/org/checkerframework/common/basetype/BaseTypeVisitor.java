@@ -459,6 +459,14 @@ public class BaseTypeVisitor<Factory extends GenericAnnotatedTypeFactory<?, ?, ?
      */
     @Override
     public Void visitMethod(MethodTree node, Void p) {
+        if (atypeFactory.isUnchangedSinceLastRun(node)) {
+            // The method was checked without problems in an earlier run, and neither it nor
+            // anything it depends on has changed since.
+            return null;
+        }
+        int messageCount = checker.getMessageCount();
+        boolean checked = false;
+        atypeFactory.preProcessMethodTree(node);
 
         // We copy the result from getAnnotatedType to ensure that
         // circular types (e.g. K extends Comparable<K>) are represented
@@ -571,7 +579,9 @@ public class BaseTypeVisitor<Factory extends GenericAnnotatedTypeFactory<?, ?, ?
                     break;
                 }
             }
-            return super.visitMethod(node, p);
+            Void result = super.visitMethod(node, p);
+            checked = true;
+            return result;
         } finally {
             boolean abstractMethod =
                     methodElement.getModifiers().contains(Modifier.ABSTRACT)
@@ -587,6 +597,11 @@ public class BaseTypeVisitor<Factory extends GenericAnnotatedTypeFactory<?, ?, ?
 
             visitorState.setMethodReceiver(preMRT);
             visitorState.setMethodTree(preMT);
+
+            if (checked) {
+                atypeFactory.recordCheckedMethod(
+                        node, checker.getMessageCount() == messageCount);
+            }
         }
     }
 
@@ -10,6 +10,7 @@ import com.sun.source.tree.Tree;
 import com.sun.source.tree.Tree.Kind;
 import com.sun.source.tree.TypeCastTree;
 import com.sun.source.util.TreePath;
+import com.sun.source.util.TreeScanner;
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -106,6 +107,19 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
     /** Helper class that holds references to special methods. */
     private final ValueMethodIdentifier methods;
 
+    /**
+     * Whether ranges are widened to the integer constants of the analyzed code before the bounds
+     * of primitive types. Set by {@code thresholds} in the {@code -AflowWidening} command-line
+     * option.
+     */
+    private final boolean widenToThresholds;
+
+    /** The code whose {@link #thresholds} are cached, or null. */
+    private Tree thresholdsCode;
+
+    /** The sorted widening thresholds of {@link #thresholdsCode}. */
+    private long[] thresholds;
+
     static {
         Set<String> backingSet = new HashSet<String>(18);
         backingSet.add("int");
@@ -183,6 +197,7 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         addAliasedAnnotation("org.checkerframework.checker.index.qual.PolyLength", POLY);
 
         methods = new ValueMethodIdentifier(processingEnv);
+        widenToThresholds = checker.getCheckerOptions().flowWideningThresholds;
 
         if (this.getClass().equals(ValueAnnotatedTypeFactory.class)) {
             this.postInit();
@@ -525,6 +540,42 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         }
     }
 
+    /**
+     * Returns the widening thresholds of the code that is currently being analyzed, or null if
+     * there is none: every integer literal {@code v} of the code, {@code v - 1}, {@code v + 1},
+     * and their negations, in ascending order. A loop bound such as {@code i < 100} is then a
+     * widening threshold for {@code i}.
+     */
+    private long[] getWideningThresholds() {
+        if (analyses.isEmpty()) {
+            return null;
+        }
+        Tree code = analyses.getFirst().getControlFlowGraph().getUnderlyingAST().getCode();
+        if (code != thresholdsCode) {
+            final Set<Long> values = new TreeSet<>();
+            new TreeScanner<Void, Void>() {
+                @Override
+                public Void visitLiteral(LiteralTree tree, Void p) {
+                    if (tree.getKind() == Kind.INT_LITERAL || tree.getKind() == Kind.LONG_LITERAL) {
+                        long v = ((Number) tree.getValue()).longValue();
+                        for (long t : new long[] {v - 1, v, v + 1}) {
+                            values.add(t);
+                            values.add(-t);
+                        }
+                    }
+                    return null;
+                }
+            }.scan(code, null);
+            thresholds = new long[values.size()];
+            int i = 0;
+            for (long value : values) {
+                thresholds[i++] = value;
+            }
+            thresholdsCode = code;
+        }
+        return thresholds;
+    }
+
     /** The qualifier hierarchy for the Value type system */
     private final class ValueQualifierHierarchy extends MultiGraphQualifierHierarchy {
 
@@ -633,9 +684,19 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             if (newRange == null || oldRange == null || lubRange.equals(oldRange)) {
                 return lubRange;
             }
+            long[] thresholds = widenToThresholds ? getWideningThresholds() : null;
             // If both bounds of the new range are bigger than the old range, then returned range
             // should use the lower bound of the new range and a MAX_VALUE.
             if ((newRange.from >= oldRange.from && newRange.to >= oldRange.to)) {
+                if (thresholds != null) {
+                    // The least threshold that is at least the upper bound.
+                    int i = Arrays.binarySearch(thresholds, lubRange.to);
+                    int index = i >= 0 ? i : -i - 1;
+                    if (index < thresholds.length
+                            && thresholds[index] < primitiveUpperBound(lubRange.to)) {
+                        return new Range(newRange.from, thresholds[index]);
+                    }
+                }
                 if (lubRange.to < Byte.MAX_VALUE) {
                     return new Range(newRange.from, Byte.MAX_VALUE);
                 } else if (lubRange.to < Short.MAX_VALUE) {
@@ -650,6 +711,14 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             // If both bounds of the old range are bigger than the new range, then returned range
             // should use a MIN_VALUE and the upper bound of the new range.
             if ((newRange.from <= oldRange.from && newRange.to <= oldRange.to)) {
+                if (thresholds != null) {
+                    // The greatest threshold that is at most the lower bound.
+                    int i = Arrays.binarySearch(thresholds, lubRange.from);
+                    int index = i >= 0 ? i : -i - 2;
+                    if (index >= 0 && thresholds[index] > primitiveLowerBound(lubRange.from)) {
+                        return new Range(thresholds[index], newRange.to);
+                    }
+                }
                 if (lubRange.from > Byte.MIN_VALUE) {
                     return new Range(Byte.MIN_VALUE, newRange.to);
                 } else if (lubRange.from > Short.MIN_VALUE) {
@@ -675,6 +744,32 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             }
         }
 
+        /** Returns the upper bound to which {@link #widenedRange} widens {@code to}. */
+        private long primitiveUpperBound(long to) {
+            if (to < Byte.MAX_VALUE) {
+                return Byte.MAX_VALUE;
+            } else if (to < Short.MAX_VALUE) {
+                return Short.MAX_VALUE;
+            } else if (to < Integer.MAX_VALUE) {
+                return Integer.MAX_VALUE;
+            } else {
+                return Long.MAX_VALUE;
+            }
+        }
+
+        /** Returns the lower bound to which {@link #widenedRange} widens {@code from}. */
+        private long primitiveLowerBound(long from) {
+            if (from > Byte.MIN_VALUE) {
+                return Byte.MIN_VALUE;
+            } else if (from > Short.MIN_VALUE) {
+                return Short.MIN_VALUE;
+            } else if (from > Integer.MIN_VALUE) {
+                return Integer.MIN_VALUE;
+            } else {
+                return Long.MIN_VALUE;
+            }
+        }
+
         /**
          * Determines the least upper bound of a1 and a2, which contains the union of their sets of
          * possible values.
@@ -3,6 +3,7 @@ package org.checkerframework.common.value;
 import com.sun.source.tree.Tree;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.ExecutableElement;
+import org.checkerframework.framework.util.MethodDispatchIndex;
 import org.checkerframework.javacutil.TreeUtils;
 
 /** Stores methods that have special handling in the value checker. */
@@ -15,15 +16,25 @@ class ValueMethodIdentifier {
     /** String.endsWith(String) method */
     private final ExecutableElement endsWithMethod;
 
+    /** The methods whose invocations the Value Checker handles specially. */
+    private enum SpecialMethod {
+        STRING_LENGTH
+    }
+
+    /** Maps each specially-handled method to the corresponding {@link SpecialMethod}. */
+    private final MethodDispatchIndex<SpecialMethod> invocations;
+
     public ValueMethodIdentifier(ProcessingEnvironment processingEnv) {
         lengthMethod = TreeUtils.getMethod("java.lang.String", "length", 0, processingEnv);
         startsWithMethod = TreeUtils.getMethod("java.lang.String", "startsWith", 1, processingEnv);
         endsWithMethod = TreeUtils.getMethod("java.lang.String", "endsWith", 1, processingEnv);
+        invocations = new MethodDispatchIndex<>(processingEnv);
+        invocations.register(lengthMethod, SpecialMethod.STRING_LENGTH);
     }
 
     /** Determines whether a tree is an invocation of the {@code String.length()} method. */
     public boolean isStringLengthInvocation(Tree tree, ProcessingEnvironment processingEnv) {
-        return TreeUtils.isMethodInvocation(tree, lengthMethod, processingEnv);
+        return invocations.isInvocationOf(tree, SpecialMethod.STRING_LENGTH);
     }
 
     /** Determines whether a method is the {@code String.length()} method. */
@@ -3,6 +3,7 @@ package org.checkerframework.framework.flow;
 import java.util.List;
 import java.util.Set;
 import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
@@ -101,6 +102,29 @@ public abstract class CFAbstractAnalysis<
     /** @return an identical copy of the store {@code s}. */
     public abstract S createCopiedStore(S s);
 
+    /**
+     * Returns an empty store, which does not refine the type of any expression and therefore
+     * over-approximates every store.
+     */
+    @Override
+    protected S getConservativeStore(S store) {
+        return createEmptyStore(transferFunction.usesSequentialSemantics());
+    }
+
+    /**
+     * Returns true if the transfer function allows dead local variables to be removed from the
+     * stores; see {@link CFAbstractTransfer#removesDeadLocalVariables()}.
+     */
+    @Override
+    protected boolean removesDeadLocalVariables() {
+        return transferFunction.removesDeadLocalVariables();
+    }
+
+    @Override
+    protected S removeLocalVariables(S store, Set<Element> vars) {
+        return store.removeLocalVariables(vars);
+    }
+
     /**
      * Creates an abstract value from the annotated type mirror. The value contains the set of
      * primary annotations on the type; unless, the type is an AnnotatedWildcardType. In that case,
@@ -4,10 +4,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
-import javax.lang.model.element.Name;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Types;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -28,9 +28,7 @@ import org.checkerframework.dataflow.cfg.node.Node;
 import org.checkerframework.dataflow.cfg.node.ThisLiteralNode;
 import org.checkerframework.dataflow.qual.SideEffectFree;
 import org.checkerframework.dataflow.util.PurityUtils;
-import org.checkerframework.framework.qual.MonotonicQualifier;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
-import org.checkerframework.javacutil.AnnotationBuilder;
 import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.Pair;
 
@@ -180,7 +178,7 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
         ExecutableElement method = n.getTarget().getMethod();
 
         // case 1: remove information if necessary
-        if (!(analysis.checker.hasOption("assumeSideEffectFree")
+        if (!(analysis.checker.getCheckerOptions().assumeSideEffectFree
                 || isSideEffectFree(atypeFactory, method))) {
             // update field values
             Map<FlowExpressions.FieldAccess, V> newFieldValues = new HashMap<>();
@@ -190,16 +188,10 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
 
                 // case 3:
                 List<Pair<AnnotationMirror, AnnotationMirror>> fieldAnnotations =
-                        atypeFactory.getAnnotationWithMetaAnnotation(
-                                fieldAccess.getField(), MonotonicQualifier.class);
+                        atypeFactory.getMonotonicQualifiers(fieldAccess.getField());
                 V newOtherVal = null;
                 for (Pair<AnnotationMirror, AnnotationMirror> fieldAnnotation : fieldAnnotations) {
-                    AnnotationMirror monotonicAnnotation = fieldAnnotation.second;
-                    Name annotation =
-                            AnnotationUtils.getElementValueClassName(
-                                    monotonicAnnotation, "value", false);
-                    AnnotationMirror target =
-                            AnnotationBuilder.fromName(atypeFactory.getElementUtils(), annotation);
+                    AnnotationMirror target = fieldAnnotation.second;
                     // Make sure the 'target' annotation is present.
                     if (AnnotationUtils.containsSame(otherVal.getAnnotations(), target)) {
                         newOtherVal =
@@ -361,15 +353,9 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
         if (!sequentialSemantics) { // only compute if necessary
             AnnotatedTypeFactory atypeFactory = this.analysis.atypeFactory;
             List<Pair<AnnotationMirror, AnnotationMirror>> fieldAnnotations =
-                    atypeFactory.getAnnotationWithMetaAnnotation(
-                            fieldAcc.getField(), MonotonicQualifier.class);
+                    atypeFactory.getMonotonicQualifiers(fieldAcc.getField());
             for (Pair<AnnotationMirror, AnnotationMirror> fieldAnnotation : fieldAnnotations) {
-                AnnotationMirror monotonicAnnotation = fieldAnnotation.second;
-                Name annotation =
-                        AnnotationUtils.getElementValueClassName(
-                                monotonicAnnotation, "value", false);
-                AnnotationMirror target =
-                        AnnotationBuilder.fromName(atypeFactory.getElementUtils(), annotation);
+                AnnotationMirror target = fieldAnnotation.second;
                 // Make sure the 'target' annotation is present.
                 if (AnnotationUtils.containsSame(value.getAnnotations(), target)) {
                     isMonotonic = true;
@@ -771,6 +757,28 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
         return thisValue;
     }
 
+    /**
+     * Returns a store that has no information about the local variables in {@code vars}, but is
+     * otherwise equal to this store. Returns this store, unmodified, if it has no information about
+     * any of them.
+     *
+     * @param vars the local variables to remove; compared by identity
+     * @return this store, or a copy of it, without the variables in {@code vars}
+     */
+    @SuppressWarnings("unchecked")
+    public S removeLocalVariables(Set<Element> vars) {
+        S result = (S) this;
+        for (FlowExpressions.LocalVariable localVar : localVariableValues.keySet()) {
+            if (vars.contains(localVar.getElement())) {
+                if (result == this) {
+                    result = copy();
+                }
+                result.localVariableValues.remove(localVar);
+            }
+        }
+        return result;
+    }
+
     /* --------------------------------------------------------- */
     /* Helper and miscellaneous methods */
     /* --------------------------------------------------------- */
@@ -141,6 +141,21 @@ public abstract class CFAbstractTransfer<
         return sequentialSemantics;
     }
 
+    /**
+     * Returns true if the analysis may remove the local variables that are dead before a block
+     * from the stores that it propagates to the block, so that a variable's value only flows from
+     * its assignments to its uses. This speeds up the analysis of long methods with many local
+     * variables. A checker may opt in if neither its transfer function nor its visitor looks up a
+     * local variable in a store after the variable's last use, for example by parsing an
+     * expression in an annotation. By default, returns false.
+     *
+     * @return true if dead local variables may be removed from the stores
+     * @see org.checkerframework.dataflow.analysis.LiveLocalVariables
+     */
+    public boolean removesDeadLocalVariables() {
+        return false;
+    }
+
     /**
      * This method is called before returning the abstract value {@code value} as the result of the
      * transfer function. By default, the value is not changed but subclasses might decide to
@@ -38,6 +38,12 @@ public class CFCFGBuilder extends CFGBuilder {
     /** Type factory to provide types used during CFG building. */
     protected final AnnotatedTypeFactory factory;
 
+    /**
+     * Records what the graph that is being built needs from the checker, or null if graphs are
+     * not shared.
+     */
+    protected SharedCFGCache.Recorder recorder;
+
     public CFCFGBuilder(BaseTypeChecker checker, AnnotatedTypeFactory factory) {
         super(
                 checker.hasOption("assumeAssertionsAreEnabled"),
@@ -50,19 +56,54 @@ public class CFCFGBuilder extends CFGBuilder {
         this.factory = factory;
     }
 
-    /** Build the control flow graph of some code. */
+    /**
+     * Build the control flow graph of some code. With {@code -AshareCFGs}, reuse a graph that
+     * another checker built, if it does not depend on the checker; see {@link SharedCFGCache}.
+     */
     @Override
     public ControlFlowGraph run(
             CompilationUnitTree root, ProcessingEnvironment env, UnderlyingAST underlyingAST) {
         declaredClasses.clear();
         declaredLambdas.clear();
 
+        SharedCFGCache cache = null;
+        recorder = null;
+        if (checker.hasOption("shareCFGs")) {
+            cache = SharedCFGCache.instance(env);
+            ControlFlowGraph shared =
+                    cache.get(
+                            root,
+                            underlyingAST,
+                            assumeAssertionsEnabled,
+                            assumeAssertionsDisabled,
+                            factory);
+            if (shared != null) {
+                return shared;
+            }
+            recorder = new SharedCFGCache.Recorder(factory);
+        }
+
         CFTreeBuilder builder = new CFTreeBuilder(env);
         PhaseOneResult phase1result =
                 new CFCFGTranslationPhaseOne()
-                        .process(root, env, underlyingAST, exceptionalExitLabel, builder, factory);
+                        .process(
+                                root,
+                                env,
+                                underlyingAST,
+                                exceptionalExitLabel,
+                                builder,
+                                recorder != null ? recorder : factory);
         ControlFlowGraph phase2result = new CFGTranslationPhaseTwo().process(phase1result);
         ControlFlowGraph phase3result = CFGTranslationPhaseThree.process(phase2result);
+        if (cache != null) {
+            cache.put(
+                    root,
+                    underlyingAST,
+                    phase3result,
+                    assumeAssertionsEnabled,
+                    assumeAssertionsDisabled,
+                    recorder);
+        }
         return phase3result;
     }
 
@@ -87,6 +128,12 @@ public class CFCFGBuilder extends CFGBuilder {
         return false;
     }
 
+    /** Returns true if the message of {@code tree} mentions {@code @AssumeAssertion}. */
+    private static boolean mentionsAssumeAssertion(AssertTree tree) {
+        ExpressionTree detail = tree.getDetail();
+        return detail != null && detail.toString().contains("@AssumeAssertion(");
+    }
+
     public class CFCFGTranslationPhaseOne extends CFGTranslationPhaseOne {
 
         @Override
@@ -94,6 +141,10 @@ public class CFCFGBuilder extends CFGBuilder {
             if (assumeAssertionsActivatedForAssertTree(checker, tree)) {
                 return true;
             }
+            if (recorder != null && mentionsAssumeAssertion(tree)) {
+                // Whether the assertion is assumed depends on the checker's warning keys.
+                recorder.setCheckerSpecific();
+            }
             return super.assumeAssertionsEnabledFor(tree);
         }
 
@@ -104,11 +155,17 @@ public class CFCFGBuilder extends CFGBuilder {
             if (enclosingMethod != null) {
                 Element methodElement = TreeUtils.elementFromDeclaration(enclosingMethod);
                 factory.setPathHack(tree, methodElement);
+                if (recorder != null) {
+                    recorder.addArtificialTree(tree, methodElement);
+                }
             } else {
                 ClassTree enclosingClass = TreeUtils.enclosingClass(getCurrentPath());
                 if (enclosingClass != null) {
                     Element classElement = TreeUtils.elementFromDeclaration(enclosingClass);
                     factory.setPathHack(tree, classElement);
+                    if (recorder != null) {
+                        recorder.addArtificialTree(tree, classElement);
+                    }
                 }
             }
         }
@@ -116,6 +173,10 @@ public class CFCFGBuilder extends CFGBuilder {
         @Override
         protected VariableTree createEnhancedForLoopIteratorVariable(
                 MethodInvocationTree iteratorCall, VariableElement variableElement) {
+            // The type of the variable belongs to the checker's type system.
+            if (recorder != null) {
+                recorder.setCheckerSpecific();
+            }
             // We do not want to cache flow-insensitive types
             // retrieved during CFG building.
             boolean oldShouldCache = factory.shouldCache;
@@ -140,6 +201,10 @@ public class CFCFGBuilder extends CFGBuilder {
         @Override
         protected VariableTree createEnhancedForLoopArrayVariable(
                 ExpressionTree expression, VariableElement variableElement) {
+            // The type of the variable belongs to the checker's type system.
+            if (recorder != null) {
+                recorder.setCheckerSpecific();
+            }
             // We do not want to cache flow-insensitive types
             // retrieved during CFG building.
             boolean oldShouldCache = factory.shouldCache;
@@ -0,0 +1,246 @@
+package org.checkerframework.framework.flow;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.UnderlyingAST;
+import org.checkerframework.framework.type.AnnotatedTypeFactory;
+import org.checkerframework.javacutil.AnnotationProvider;
+
+/**
+ * A cache of control flow graphs that is shared by all checkers of one compilation, including
+ * subcheckers, the components of an aggregate checker, and independent checkers given to javac
+ * together. When several checkers analyze the same method, the graph is built once. Enabled by the
+ * {@code -AshareCFGs} command-line option.
+ *
+ * <p>A shared graph is treated as immutable: the analyses of the checkers keep their abstract
+ * values and stores in their own maps. Only graphs whose construction did not depend on the
+ * checker are stored. A graph depends on the checker if it declares the temporary variable of an
+ * enhanced for loop, whose type is an annotated type of the checker's type system; if it contains
+ * an {@code assert} statement whose message mentions {@code @AssumeAssertion}; or if it was built
+ * with different {@code -AassumeAssertionsAre...} options. The declaration annotations that were
+ * consulted during construction, such as {@code @TerminatesExecution}, are recorded and compared
+ * against the type factory of each checker that reuses the graph. The artificial trees of the
+ * graph are registered with that type factory, as if it had built the graph itself.
+ *
+ * <p>The cache only holds the graphs of one compilation unit, because all checkers process a
+ * compilation unit before the next one is processed.
+ */
+public class SharedCFGCache {
+
+    /** The key under which the cache of a compilation is stored in the javac context. */
+    private static final Context.Key<SharedCFGCache> KEY = new Context.Key<>();
+
+    /** The compilation unit whose graphs are cached. */
+    private CompilationUnitTree root;
+
+    /** The cached graphs, by the code they represent. */
+    private final Map<Tree, Entry> entries = new IdentityHashMap<>();
+
+    private SharedCFGCache() {}
+
+    /**
+     * Returns the cache for the current compilation, creating it if necessary.
+     *
+     * @param env the processing environment of the compilation
+     * @return the cache for the current compilation
+     */
+    public static synchronized SharedCFGCache instance(ProcessingEnvironment env) {
+        Context context = ((JavacProcessingEnvironment) env).getContext();
+        SharedCFGCache cache = context.get(KEY);
+        if (cache == null) {
+            cache = new SharedCFGCache();
+            context.put(KEY, cache);
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the cached graph for {@code ast}, or null if there is none that the checker of
+     * {@code factory} can use. If a graph is returned, its artificial trees have been registered
+     * with {@code factory}.
+     *
+     * @param root the compilation unit that contains {@code ast}
+     * @param ast the code whose graph is requested
+     * @param assumeAssertionsEnabled whether the requesting checker assumes assertions are enabled
+     * @param assumeAssertionsDisabled whether the requesting checker assumes they are disabled
+     * @param factory the type factory of the requesting checker
+     * @return the cached graph, or null
+     */
+    public synchronized ControlFlowGraph get(
+            CompilationUnitTree root,
+            UnderlyingAST ast,
+            boolean assumeAssertionsEnabled,
+            boolean assumeAssertionsDisabled,
+            AnnotatedTypeFactory factory) {
+        if (root != this.root) {
+            return null;
+        }
+        Entry entry = entries.get(ast.getCode());
+        if (entry == null
+                || entry.ast.getKind() != ast.getKind()
+                || entry.assumeAssertionsEnabled != assumeAssertionsEnabled
+                || entry.assumeAssertionsDisabled != assumeAssertionsDisabled) {
+            return null;
+        }
+        for (DeclAnnotationLookup lookup : entry.lookups) {
+            if ((factory.getDeclAnnotation(lookup.element, lookup.annotation) != null)
+                    != lookup.present) {
+                return null;
+            }
+        }
+        for (ArtificialTree artificial : entry.artificialTrees) {
+            factory.setPathHack(artificial.tree, artificial.enclosing);
+        }
+        return entry.cfg;
+    }
+
+    /**
+     * Stores a graph that was built without depending on the checker, except through the
+     * declaration annotations recorded by {@code recorder}.
+     *
+     * @param root the compilation unit that contains {@code ast}
+     * @param ast the code of the graph
+     * @param cfg the graph
+     * @param assumeAssertionsEnabled whether the graph assumes assertions are enabled
+     * @param assumeAssertionsDisabled whether the graph assumes assertions are disabled
+     * @param recorder the recorder that was used while building the graph
+     */
+    public synchronized void put(
+            CompilationUnitTree root,
+            UnderlyingAST ast,
+            ControlFlowGraph cfg,
+            boolean assumeAssertionsEnabled,
+            boolean assumeAssertionsDisabled,
+            Recorder recorder) {
+        if (recorder.checkerSpecific) {
+            return;
+        }
+        if (root != this.root) {
+            entries.clear();
+            this.root = root;
+        }
+        entries.put(
+                ast.getCode(),
+                new Entry(
+                        ast,
+                        cfg,
+                        assumeAssertionsEnabled,
+                        assumeAssertionsDisabled,
+                        recorder.lookups,
+                        recorder.artificialTrees));
+    }
+
+    /**
+     * Records what the construction of one graph needed from the checker, to decide whether the
+     * graph can be shared. As an {@link AnnotationProvider}, it delegates to the type factory and
+     * records the declaration annotations that were looked up.
+     */
+    public static class Recorder implements AnnotationProvider {
+        /** The type factory of the checker that builds the graph. */
+        private final AnnotationProvider delegate;
+
+        /** Whether the graph depends on the checker in a way that cannot be validated. */
+        private boolean checkerSpecific = false;
+
+        /** The declaration annotations that were looked up. */
+        private final List<DeclAnnotationLookup> lookups = new ArrayList<>();
+
+        /** The artificial trees that were created, with their enclosing elements. */
+        private final List<ArtificialTree> artificialTrees = new ArrayList<>();
+
+        /**
+         * Creates a recorder.
+         *
+         * @param delegate the type factory of the checker that builds the graph
+         */
+        public Recorder(AnnotationProvider delegate) {
+            this.delegate = delegate;
+        }
+
+        /** Marks the graph as depending on the checker, so that it is not shared. */
+        public void setCheckerSpecific() {
+            checkerSpecific = true;
+        }
+
+        /** Records an artificial tree that was registered with the type factory. */
+        public void addArtificialTree(Tree tree, Element enclosing) {
+            artificialTrees.add(new ArtificialTree(tree, enclosing));
+        }
+
+        @Override
+        public AnnotationMirror getDeclAnnotation(
+                Element elt, Class<? extends Annotation> anno) {
+            AnnotationMirror result = delegate.getDeclAnnotation(elt, anno);
+            lookups.add(new DeclAnnotationLookup(elt, anno, result != null));
+            return result;
+        }
+
+        @Override
+        public AnnotationMirror getAnnotationMirror(Tree tree, Class<? extends Annotation> target) {
+            // Type annotations are specific to a type system.
+            checkerSpecific = true;
+            return delegate.getAnnotationMirror(tree, target);
+        }
+    }
+
+    /** A graph in the cache, with what is needed to decide whether a checker may reuse it. */
+    private static class Entry {
+        final UnderlyingAST ast;
+        final ControlFlowGraph cfg;
+        final boolean assumeAssertionsEnabled;
+        final boolean assumeAssertionsDisabled;
+        final List<DeclAnnotationLookup> lookups;
+        final List<ArtificialTree> artificialTrees;
+
+        Entry(
+                UnderlyingAST ast,
+                ControlFlowGraph cfg,
+                boolean assumeAssertionsEnabled,
+                boolean assumeAssertionsDisabled,
+                List<DeclAnnotationLookup> lookups,
+                List<ArtificialTree> artificialTrees) {
+            this.ast = ast;
+            this.cfg = cfg;
+            this.assumeAssertionsEnabled = assumeAssertionsEnabled;
+            this.assumeAssertionsDisabled = assumeAssertionsDisabled;
+            this.lookups = lookups;
+            this.artificialTrees = artificialTrees;
+        }
+    }
+
+    /** The result of looking up a declaration annotation while building a graph. */
+    private static class DeclAnnotationLookup {
+        final Element element;
+        final Class<? extends Annotation> annotation;
+        final boolean present;
+
+        DeclAnnotationLookup(
+                Element element, Class<? extends Annotation> annotation, boolean present) {
+            this.element = element;
+            this.annotation = annotation;
+            this.present = present;
+        }
+    }
+
+    /** An artificial tree of a graph and the element that encloses it. */
+    private static class ArtificialTree {
+        final Tree tree;
+        final Element enclosing;
+
+        ArtificialTree(Tree tree, Element enclosing) {
+            this.tree = tree;
+            this.enclosing = enclosing;
+        }
+    }
+}
@@ -15,6 +15,7 @@ import java.util.Set;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.TypeElement;
 import javax.tools.Diagnostic.Kind;
+import org.checkerframework.framework.util.CheckerStatistics;
 
 /**
  * An aggregate checker that packages multiple checkers together. The resulting checker invokes the
@@ -125,6 +126,21 @@ public abstract class AggregateChecker extends SourceChecker {
         }
     }
 
+    @Override
+    public void typeProcessingFinished() {
+        for (SourceChecker checker : checkers) {
+            checker.typeProcessingFinished();
+        }
+        super.typeProcessingFinished();
+    }
+
+    @Override
+    protected void addStatistics(List<CheckerStatistics> statisticsList) {
+        for (SourceChecker checker : checkers) {
+            checker.addStatistics(statisticsList);
+        }
+    }
+
     @Override
     public final Set<String> getSupportedOptions() {
         Set<String> options = new HashSet<String>();
@@ -0,0 +1,223 @@
+package org.checkerframework.framework.source;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.checkerframework.javacutil.ErrorReporter;
+
+/**
+ * The values of the framework options that are consulted while checking, such as on every method
+ * call or every reported diagnostic. They are parsed and validated once, when the checker is
+ * initialized, so that code on hot paths reads a field instead of looking up a string in the option
+ * map, and so that a malformed value is reported before any class is checked.
+ *
+ * <p>Each checker and subchecker has its own instance; see {@link
+ * SourceChecker#getCheckerOptions()}. The options are looked up the same way as by {@link
+ * SourceChecker#hasOption(String)}, so they can be given for one checker only by prefixing them
+ * with its name. The exceptions are {@code -Anomsgtext}, {@code -Adetailedmsgtext}, and {@code
+ * -AshowSuppressWarningKeys}, which format every message of the compilation and therefore are
+ * looked up among all the options of the compilation, without checker-name prefixes. Options that
+ * are only read once, or that are specific to one type system, are still read with {@link
+ * SourceChecker#getOption(String)} and {@link SourceChecker#hasOption(String)}.
+ */
+public class CheckerOptions {
+
+    /** Whether {@code -Anomsgtext} was given: print message keys instead of message text. */
+    public final boolean noMsgText;
+
+    /** Whether {@code -Adetailedmsgtext} was given: print messages in a format for tools. */
+    public final boolean detailedMsgText;
+
+    /** Whether {@code -AshowSuppressWarningKeys} was given. */
+    public final boolean showSuppressWarningKeys;
+
+    /** Whether {@code -Awarns} was given: report errors as warnings. */
+    public final boolean warns;
+
+    /** Whether {@code -AassumeSideEffectFree} was given: treat every method as side-effect-free. */
+    public final boolean assumeSideEffectFree;
+
+    /** Whether {@code -AatfDoNotCache} was given: disable the type factory caches. */
+    public final boolean atfDoNotCache;
+
+    /** The value of {@code -AatfCacheSize}, or -1 if it is not given. */
+    public final int atfCacheSize;
+
+    /** The value of {@code -AflowBudgetIterations}, or -1 if it is not given. */
+    public final int flowBudgetIterations;
+
+    /** The value of {@code -AflowBudgetMillis}, or -1 if it is not given. */
+    public final long flowBudgetMillis;
+
+    /** Whether {@code -AflowWidening} contains {@code loopHeads}: widen only at loop heads. */
+    public final boolean flowWideningAtLoopHeads;
+
+    /**
+     * Whether {@code -AflowWidening} contains {@code thresholds}: widen to the constants of the
+     * analyzed code, for type systems that support it.
+     */
+    public final boolean flowWideningThresholds;
+
+    /** Whether {@code -AflowWidening} contains {@code narrowing}: narrow after the fix-point. */
+    public final boolean flowNarrowing;
+
+    /** Classes whose uses are not checked, from {@code -AskipUses}; by default matches nothing. */
+    public final Pattern skipUsesPattern;
+
+    /** Classes whose uses are checked, from {@code -AonlyUses}; by default matches everything. */
+    public final Pattern onlyUsesPattern;
+
+    /** Classes whose definitions are not checked, from {@code -AskipDefs}; matches nothing. */
+    public final Pattern skipDefsPattern;
+
+    /** Classes whose definitions are checked, from {@code -AonlyDefs}; matches everything. */
+    public final Pattern onlyDefsPattern;
+
+    /** Warnings about suspicious but legal option values, to be reported by the checker. */
+    final List<String> warnings;
+
+    /**
+     * Parses and validates {@code options}. Aborts if an option has an illegal value.
+     *
+     * @param options the active options of a checker, as returned by {@link
+     *     SourceChecker#getOptions()}
+     * @param compilerOptions all the options of the compilation, as returned by {@link
+     *     javax.annotation.processing.ProcessingEnvironment#getOptions()}
+     */
+    CheckerOptions(Map<String, String> options, Map<String, String> compilerOptions) {
+        List<String> warnings = new ArrayList<>();
+        this.noMsgText = compilerOptions.containsKey("nomsgtext");
+        this.detailedMsgText = compilerOptions.containsKey("detailedmsgtext");
+        this.showSuppressWarningKeys = compilerOptions.containsKey("showSuppressWarningKeys");
+        this.warns = options.containsKey("warns");
+        this.assumeSideEffectFree = options.containsKey("assumeSideEffectFree");
+        this.atfDoNotCache = options.containsKey("atfDoNotCache");
+        this.atfCacheSize = (int) getNonNegative(options, "atfCacheSize");
+        this.flowBudgetIterations = (int) getNonNegative(options, "flowBudgetIterations");
+        this.flowBudgetMillis = getNonNegative(options, "flowBudgetMillis");
+        List<String> widening =
+                getList(options, "flowWidening", "loopHeads", "thresholds", "narrowing");
+        this.flowWideningAtLoopHeads = widening.contains("loopHeads");
+        this.flowWideningThresholds = widening.contains("thresholds");
+        this.flowNarrowing = widening.contains("narrowing");
+        this.skipUsesPattern = getSkipPattern(options, "skipUses", warnings);
+        this.onlyUsesPattern = getOnlyPattern(options, "onlyUses", warnings);
+        this.skipDefsPattern = getSkipPattern(options, "skipDefs", warnings);
+        this.onlyDefsPattern = getOnlyPattern(options, "onlyDefs", warnings);
+        this.warnings = Collections.unmodifiableList(warnings);
+    }
+
+    /**
+     * Returns the value of the option {@code name}, or -1 if it is not given.
+     *
+     * @param options the options
+     * @param name the name of an option whose value must be a non-negative integer
+     * @return the value of the option, or -1 if it is not given
+     */
+    private static long getNonNegative(Map<String, String> options, String name) {
+        String option = options.get(name);
+        if (option == null) {
+            return -1;
+        }
+        try {
+            long value = Long.parseLong(option);
+            if (value >= 0 && value <= Integer.MAX_VALUE) {
+                return value;
+            }
+        } catch (NumberFormatException ex) {
+            // Reported below.
+        }
+        ErrorReporter.errorAbort(name + " was not a non-negative integer: " + option);
+        return -1; // dead code
+    }
+
+    /**
+     * Returns the comma-separated elements of the option {@code name}, or the empty list if it is
+     * not given. Aborts if an element is not one of {@code allowed}.
+     *
+     * @param options the options
+     * @param name the name of an option whose value is a comma-separated list
+     * @param allowed the legal elements of the list
+     * @return the elements of the option
+     */
+    private static List<String> getList(
+            Map<String, String> options, String name, String... allowed) {
+        String option = options.get(name);
+        if (option == null) {
+            return Collections.emptyList();
+        }
+        List<String> legal = Arrays.asList(allowed);
+        List<String> result = new ArrayList<>();
+        for (String element : option.split(",")) {
+            element = element.trim();
+            if (element.isEmpty()) {
+                continue;
+            }
+            if (!legal.contains(element)) {
+                ErrorReporter.errorAbort(
+                        name + " contains \"" + element + "\"; expected elements of " + legal);
+            }
+            result.add(element);
+        }
+        return result;
+    }
+
+    private static Pattern getSkipPattern(
+            Map<String, String> options, String patternName, List<String> warnings) {
+        // Default is an illegal Java identifier substring
+        // so that it won't match anything.
+        // Note that AnnotatedType's toString output format contains characters such as "():{}".
+        return getPattern(options, patternName, "\\]'\"\\]", warnings);
+    }
+
+    private static Pattern getOnlyPattern(
+            Map<String, String> options, String patternName, List<String> warnings) {
+        // default matches everything
+        return getPattern(options, patternName, ".", warnings);
+    }
+
+    /**
+     * Returns the pattern given by the option {@code patternName}, by the system property {@code
+     * checkers.patternName}, or by the environment variable {@code patternName}, in that order of
+     * precedence, or {@code defaultPattern} if none is given.
+     */
+    private static Pattern getPattern(
+            Map<String, String> options,
+            String patternName,
+            String defaultPattern,
+            List<String> warnings) {
+        String pattern = "";
+
+        if (options.containsKey(patternName)) {
+            pattern = options.get(patternName);
+        } else if (System.getProperty("checkers." + patternName) != null) {
+            pattern = System.getProperty("checkers." + patternName);
+        } else if (System.getenv(patternName) != null) {
+            pattern = System.getenv(patternName);
+        }
+
+        if (pattern.indexOf("/") != -1) {
+            warnings.add(
+                    "The "
+                            + patternName
+                            + " property contains \"/\", which will never match a class name: "
+                            + pattern);
+        }
+
+        if (pattern.equals("")) {
+            pattern = defaultPattern;
+        }
+
+        try {
+            return Pattern.compile(pattern);
+        } catch (PatternSyntaxException e) {
+            ErrorReporter.errorAbort(
+                    patternName + " was not a valid regular expression: " + e.getMessage());
+            return null; // dead code
+        }
+    }
+}
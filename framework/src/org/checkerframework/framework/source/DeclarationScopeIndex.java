@@ -0,0 +1,222 @@
+package org.checkerframework.framework.source;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreeScanner;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import javax.tools.Diagnostic;
+
+/**
+ * An index of the source ranges of the class, method, and variable declarations in one compilation
+ * unit. It answers "which declaration of a given kind most closely encloses this source position?"
+ * in logarithmic time, which is what {@link SourceChecker#shouldSuppressWarnings(Tree, String)}
+ * needs in order to find the {@code @SuppressWarnings} annotations that apply to a warning. This
+ * avoids computing a {@link com.sun.source.util.TreePath}, which requires a scan of the compilation
+ * unit, for every reported warning.
+ *
+ * <p>Declarations without a source range, such as default constructors, are not indexed.
+ */
+class DeclarationScopeIndex {
+
+    /** The source range of one declaration. */
+    private static class Scope {
+        /** The declaration. */
+        final Tree tree;
+        /** The start position of the declaration, inclusive. */
+        final long start;
+        /** The end position of the declaration, exclusive. */
+        final long end;
+        /** The closest enclosing declaration of the same kind, or null. */
+        final Scope parent;
+
+        Scope(Tree tree, long start, long end, Scope parent) {
+            this.tree = tree;
+            this.start = start;
+            this.end = end;
+            this.parent = parent;
+        }
+    }
+
+    /** Orders scopes by start position. */
+    private static final Comparator<Scope> BY_START =
+            new Comparator<Scope>() {
+                @Override
+                public int compare(Scope s1, Scope s2) {
+                    return Long.compare(s1.start, s2.start);
+                }
+            };
+
+    /** The compilation unit that is indexed. */
+    private final CompilationUnitTree root;
+
+    /** Class declarations, sorted by start position. */
+    private final Scope[] classes;
+    /** Method declarations, sorted by start position. */
+    private final Scope[] methods;
+    /** Variable declarations, sorted by start position. */
+    private final Scope[] variables;
+
+    /**
+     * Scans {@code root} and indexes its declarations.
+     *
+     * @param root the compilation unit to index
+     * @param positions the source positions of the trees in {@code root}
+     */
+    DeclarationScopeIndex(CompilationUnitTree root, SourcePositions positions) {
+        this.root = root;
+        IndexBuilder builder = new IndexBuilder(root, positions);
+        builder.scan(root, null);
+        this.classes = sorted(builder.classes.scopes);
+        this.methods = sorted(builder.methods.scopes);
+        this.variables = sorted(builder.variables.scopes);
+    }
+
+    /** Returns true if this is the index for {@code root}. */
+    boolean isIndexOf(CompilationUnitTree root) {
+        return this.root == root;
+    }
+
+    /** Returns the innermost class declaration that contains {@code position}, or null. */
+    ClassTree enclosingClass(long position) {
+        return (ClassTree) enclosing(classes, position);
+    }
+
+    /** Returns the innermost method declaration that contains {@code position}, or null. */
+    MethodTree enclosingMethod(long position) {
+        return (MethodTree) enclosing(methods, position);
+    }
+
+    /** Returns the innermost variable declaration that contains {@code position}, or null. */
+    VariableTree enclosingVariable(long position) {
+        return (VariableTree) enclosing(variables, position);
+    }
+
+    /**
+     * Returns the innermost declaration in {@code scopes} that contains {@code position}.
+     *
+     * <p>Declarations are properly nested, so the innermost one that contains {@code position}
+     * encloses the last declaration that starts at or before {@code position}, and is the first
+     * declaration on that declaration's chain of parents that contains {@code position}.
+     */
+    private static Tree enclosing(Scope[] scopes, long position) {
+        int low = 0;
+        int high = scopes.length - 1;
+        int last = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (scopes[mid].start <= position) {
+                last = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        for (Scope scope = last < 0 ? null : scopes[last]; scope != null; scope = scope.parent) {
+            if (position < scope.end) {
+                return scope.tree;
+            }
+        }
+        return null;
+    }
+
+    /** Returns {@code scopes} as an array sorted by start position. */
+    private static Scope[] sorted(List<Scope> scopes) {
+        Collections.sort(scopes, BY_START);
+        return scopes.toArray(new Scope[scopes.size()]);
+    }
+
+    /** The declarations of one kind, and the state needed to find their parents. */
+    private static class ScopeList {
+        /** The declarations found so far. */
+        final List<Scope> scopes = new ArrayList<>();
+        /** The declarations that enclose the tree being scanned, innermost first. */
+        final Deque<Scope> enclosing = new ArrayDeque<>();
+        /** The declaration that was exited most recently, or null. */
+        Scope lastExited;
+
+        /**
+         * Records {@code tree}, if it has a source range, as the innermost enclosing declaration.
+         *
+         * @return true if {@code tree} was recorded
+         */
+        boolean enter(Tree tree, CompilationUnitTree root, SourcePositions positions) {
+            long start = positions.getStartPosition(root, tree);
+            long end = positions.getEndPosition(root, tree);
+            if (start == Diagnostic.NOPOS || end == Diagnostic.NOPOS) {
+                return false;
+            }
+            Scope parent = enclosing.peek();
+            // The variables of a declaration such as "int a = 1, b = 2;" share their modifiers
+            // and type, so all of them start at the same position. Start each one after its
+            // predecessor to keep the ranges disjoint.
+            if (lastExited != null && lastExited.parent == parent && start < lastExited.end) {
+                start = lastExited.end;
+            }
+            Scope scope = new Scope(tree, start, end, parent);
+            scopes.add(scope);
+            enclosing.push(scope);
+            return true;
+        }
+
+        /** Undoes a call to {@link #enter} that returned {@code entered}. */
+        void exit(boolean entered) {
+            if (entered) {
+                lastExited = enclosing.pop();
+            }
+        }
+    }
+
+    /** Collects the declarations of a compilation unit along with their enclosing declarations. */
+    private static class IndexBuilder extends TreeScanner<Void, Void> {
+        final CompilationUnitTree root;
+        final SourcePositions positions;
+
+        final ScopeList classes = new ScopeList();
+        final ScopeList methods = new ScopeList();
+        final ScopeList variables = new ScopeList();
+
+        IndexBuilder(CompilationUnitTree root, SourcePositions positions) {
+            this.root = root;
+            this.positions = positions;
+        }
+
+        @Override
+        public Void visitClass(ClassTree tree, Void p) {
+            boolean entered = classes.enter(tree, root, positions);
+            try {
+                return super.visitClass(tree, p);
+            } finally {
+                classes.exit(entered);
+            }
+        }
+
+        @Override
+        public Void visitMethod(MethodTree tree, Void p) {
+            boolean entered = methods.enter(tree, root, positions);
+            try {
+                return super.visitMethod(tree, p);
+            } finally {
+                methods.exit(entered);
+            }
+        }
+
+        @Override
+        public Void visitVariable(VariableTree tree, Void p) {
+            boolean entered = variables.enter(tree, root, positions);
+            try {
+                return super.visitVariable(tree, p);
+            } finally {
+                variables.exit(entered);
+            }
+        }
+    }
+}
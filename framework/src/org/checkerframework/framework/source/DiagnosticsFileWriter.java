@@ -0,0 +1,326 @@
+package org.checkerframework.framework.source;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.LineMap;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.tools.Diagnostic;
+import org.checkerframework.javacutil.ErrorReporter;
+
+/**
+ * Writes the diagnostics issued by checkers to a file, one JSON object per line (the JSON Lines
+ * format), for consumption by tools. Enabled by the {@code -AdiagnosticsFile} command-line option.
+ *
+ * <p>Each record has the fields {@code checker}, {@code kind}, {@code key}, {@code file}, {@code
+ * start}, {@code end}, {@code line}, {@code column}, and {@code args}. The last holds the message
+ * arguments, such as the found and required types, as strings. If the message template labels its
+ * arguments, as in {@code found : %s}, the record also has a {@code details} object that maps each
+ * label to its argument. Positions are character offsets in the source file; {@code file} is null
+ * and the positions are -1 if the diagnostic has no source position.
+ *
+ * <p>All checkers of one compilation, including subcheckers and the components of an aggregate
+ * checker, share one writer. The writer is flushed after each top-level class, so the file contains
+ * complete records even if the compilation does not finish normally.
+ */
+public class DiagnosticsFileWriter {
+
+    /** The key under which the writer of a compilation is stored in the javac context. */
+    private static final Context.Key<DiagnosticsFileWriter> KEY = new Context.Key<>();
+
+    /** Matches a message template line that labels one argument, as in {@code found : %s}. */
+    private static final Pattern LABELED_ARGUMENT = Pattern.compile("^\\s*([\\w ]*\\w)\\s*:\\s*%s");
+
+    /** Matches a format specifier that consumes an argument. */
+    private static final Pattern FORMAT_SPECIFIER = Pattern.compile("%[^%n]");
+
+    /** The file the records are written to. */
+    private final String fileName;
+
+    /** The destination of the records. */
+    private final Writer out;
+
+    /** Used to compute the positions of trees. */
+    private final Trees trees;
+
+    /**
+     * The labels of the arguments of each checker's message key, or null for unlabeled arguments.
+     * Keyed by {@link #labelsKey}.
+     */
+    private final Map<String, String[]> argumentLabels = new HashMap<>();
+
+    /** The number of checkers that have acquired this writer and not yet released it. */
+    private int users = 0;
+
+    private DiagnosticsFileWriter(String fileName, ProcessingEnvironment env) throws IOException {
+        this.fileName = fileName;
+        this.out =
+                new BufferedWriter(
+                        new OutputStreamWriter(
+                                new FileOutputStream(fileName), StandardCharsets.UTF_8));
+        this.trees = Trees.instance(env);
+    }
+
+    /**
+     * Returns the writer for the current compilation, creating it if necessary. Each call must be
+     * balanced by a call to {@link #release}.
+     *
+     * @param fileName the file to write to
+     * @param env the processing environment of the compilation
+     * @return the writer for the current compilation
+     */
+    public static DiagnosticsFileWriter acquire(String fileName, ProcessingEnvironment env) {
+        Context context = ((JavacProcessingEnvironment) env).getContext();
+        DiagnosticsFileWriter writer = context.get(KEY);
+        if (writer == null) {
+            try {
+                writer = new DiagnosticsFileWriter(fileName, env);
+            } catch (IOException e) {
+                ErrorReporter.errorAbort(
+                        "Could not open diagnostics file " + fileName + ": " + e.getMessage());
+                return null; // dead code
+            }
+            context.put(KEY, writer);
+        } else if (!writer.fileName.equals(fileName)) {
+            ErrorReporter.errorAbort(
+                    "Checkers disagree about the diagnostics file: "
+                            + writer.fileName
+                            + " and "
+                            + fileName);
+        }
+        writer.users++;
+        return writer;
+    }
+
+    /** Closes the file once every checker that acquired this writer has released it. */
+    public void release() {
+        users--;
+        if (users == 0) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                ErrorReporter.errorAbort(
+                        "Could not close diagnostics file " + fileName + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /** Writes the buffered records to the file. */
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            ErrorReporter.errorAbort(
+                    "Could not write diagnostics file " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns true if {@link #write} needs the message template of {@code messageKey}, because no
+     * diagnostic with that key has been written for {@code checker} yet.
+     *
+     * @param checker the name of the checker that issues a diagnostic
+     * @param messageKey the message key of the diagnostic
+     * @return true if the next call to {@link #write} for {@code checker} and {@code messageKey}
+     *     must pass the message template
+     */
+    public boolean needsTemplate(String checker, String messageKey) {
+        return !argumentLabels.containsKey(labelsKey(checker, messageKey));
+    }
+
+    /**
+     * Returns the key of {@link #argumentLabels} for a message key of a checker. Checkers may use
+     * different templates for the same message key.
+     */
+    private static String labelsKey(String checker, String messageKey) {
+        return checker + ':' + messageKey;
+    }
+
+    /**
+     * Writes one diagnostic.
+     *
+     * @param checker the name of the checker that issued the diagnostic
+     * @param kind the kind of the diagnostic
+     * @param messageKey the message key of the diagnostic
+     * @param template the message template for {@code messageKey}, used to label the arguments;
+     *     may be null if {@link #needsTemplate} returns false
+     * @param args the message arguments
+     * @param source the {@link Tree} or {@link Element} the diagnostic is reported at
+     * @param currentRoot the compilation unit being checked, which contains {@code source} if it is
+     *     a tree
+     */
+    public void write(
+            String checker,
+            Diagnostic.Kind kind,
+            String messageKey,
+            String template,
+            Object[] args,
+            Object source,
+            CompilationUnitTree currentRoot) {
+        CompilationUnitTree root;
+        Tree tree;
+        if (source instanceof Element) {
+            TreePath path = trees.getPath((Element) source);
+            root = path == null ? null : path.getCompilationUnit();
+            tree = path == null ? null : path.getLeaf();
+        } else {
+            root = currentRoot;
+            tree = (Tree) source;
+        }
+
+        long start = -1;
+        long end = -1;
+        long line = -1;
+        long column = -1;
+        if (root != null && tree != null) {
+            SourcePositions positions = trees.getSourcePositions();
+            start = positions.getStartPosition(root, tree);
+            end = positions.getEndPosition(root, tree);
+            LineMap lineMap = root.getLineMap();
+            if (start >= 0 && lineMap != null) {
+                line = lineMap.getLineNumber(start);
+                column = lineMap.getColumnNumber(start);
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"checker\":");
+        appendString(sb, checker);
+        sb.append(",\"kind\":");
+        appendString(sb, kind.name());
+        sb.append(",\"key\":");
+        appendString(sb, messageKey);
+        sb.append(",\"file\":");
+        appendString(sb, root == null ? null : root.getSourceFile().getName());
+        sb.append(",\"start\":").append(start);
+        sb.append(",\"end\":").append(end);
+        sb.append(",\"line\":").append(line);
+        sb.append(",\"column\":").append(column);
+        sb.append(",\"args\":[");
+        int argCount = args == null ? 0 : args.length;
+        for (int i = 0; i < argCount; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            appendString(sb, args[i] == null ? null : args[i].toString());
+        }
+        sb.append(']');
+        String[] labels = getArgumentLabels(labelsKey(checker, messageKey), template);
+        if (labels != null && labels.length == argCount) {
+            sb.append(",\"details\":{");
+            boolean first = true;
+            for (int i = 0; i < argCount; i++) {
+                if (labels[i] == null) {
+                    continue;
+                }
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                appendString(sb, labels[i]);
+                sb.append(':');
+                appendString(sb, args[i] == null ? null : args[i].toString());
+            }
+            sb.append('}');
+        }
+        sb.append("}\n");
+
+        try {
+            out.write(sb.toString());
+        } catch (IOException e) {
+            ErrorReporter.errorAbort(
+                    "Could not write diagnostics file " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the label of each argument of the given message template, as determined by lines of
+     * the form {@code label : %s}. Elements for unlabeled arguments are null. Returns null if no
+     * argument is labeled or the template uses explicit argument indices. The result is computed
+     * once per key.
+     */
+    private String[] getArgumentLabels(String key, String template) {
+        if (argumentLabels.containsKey(key)) {
+            return argumentLabels.get(key);
+        }
+        String[] result = null;
+        if (template != null && !template.contains("$")) {
+            List<String> labels = new ArrayList<>();
+            boolean anyLabel = false;
+            for (String templateLine : template.split("\n")) {
+                Matcher specifiers = FORMAT_SPECIFIER.matcher(templateLine);
+                int count = 0;
+                while (specifiers.find()) {
+                    count++;
+                }
+                Matcher labeled = LABELED_ARGUMENT.matcher(templateLine);
+                if (count == 1 && labeled.find()) {
+                    labels.add(labeled.group(1));
+                    anyLabel = true;
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        labels.add(null);
+                    }
+                }
+            }
+            if (anyLabel) {
+                result = labels.toArray(new String[labels.size()]);
+            }
+        }
+        argumentLabels.put(key, result);
+        return result;
+    }
+
+    /** Appends {@code s} to {@code sb} as a JSON string literal, or {@code null} if it is null. */
+    private static void appendString(StringBuilder sb, String s) {
+        if (s == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -24,12 +24,12 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.regex.Pattern;
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Messager;
 import javax.annotation.processing.ProcessingEnvironment;
@@ -50,10 +50,11 @@ import org.checkerframework.framework.qual.AnnotatedFor;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.util.CFContext;
 import org.checkerframework.framework.util.CheckerMain;
+import org.checkerframework.framework.util.CheckerStatistics;
 import org.checkerframework.framework.util.OptionConfiguration;
 import org.checkerframework.javacutil.AbstractTypeProcessor;
+import org.checkerframework.javacutil.AnnotationBuilder;
 import org.checkerframework.javacutil.AnnotationProvider;
-import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.ElementUtils;
 import org.checkerframework.javacutil.ErrorHandler;
 import org.checkerframework.javacutil.ErrorReporter;
@@ -186,6 +187,29 @@ import org.checkerframework.javacutil.TreeUtils;
     // Whether to use .jaif files whole-program inference
     "infer",
 
+    // Bound the number of worklist iterations and the wall-clock milliseconds spent on the
+    // dataflow analysis of a single method.  When a method exceeds its budget, the analysis
+    // widens every join; when it exceeds twice its budget, it stops refining types.
+    // A note names the method and the time spent.
+    // org.checkerframework.framework.type.GenericAnnotatedTypeFactory.analyze
+    "flowBudgetIterations",
+    "flowBudgetMillis",
+
+    // A comma-separated list that selects how the dataflow analysis widens:  "loopHeads"
+    // widens only at loop heads, "thresholds" widens to the integer constants of the method
+    // (Constant Value Checker only), and "narrowing" refines the fix-point once more.
+    // org.checkerframework.framework.type.GenericAnnotatedTypeFactory.analyze
+    "flowWidening",
+
+    // Share the control flow graphs that do not depend on the checker among all checkers of
+    // a compilation, so that each method's graph is built once.
+    // org.checkerframework.framework.flow.CFCFGBuilder.run
+    "shareCFGs",
+
+    // Analyze each method when it is type-checked, rather than all methods of a class at once.
+    // org.checkerframework.framework.type.GenericAnnotatedTypeFactory.preProcessMethodTree
+    "lazyFlow",
+
     // With each warning, in addition to the concrete error key,
     // output the suppress warning keys that can be used to
     // suppress that warning.
@@ -205,6 +229,19 @@ import org.checkerframework.javacutil.TreeUtils;
     // Whether to print warnings about stub files that overwrite annotations
     // from bytecode.
     "stubWarnIfOverwritesBytecode",
+    // Write the fully defaulted annotated types of the public API of the checked classes to a
+    // summary file in the given directory
+    // org.checkerframework.framework.type.AnnotatedTypeFactory.writeApiSummary()
+    "apiSummaryDir",
+    // Directories of summary files written by -AapiSummaryDir, separated by the path separator,
+    // whose types are used for classes that are read from bytecode
+    // org.checkerframework.framework.type.AnnotatedTypeFactory.loadApiSummaries()
+    "apiSummaryPath",
+
+    // Skip the checking of methods that were checked without problems in an earlier run and whose
+    // fingerprint is unchanged; the fingerprints are kept in the given directory
+    // org.checkerframework.framework.type.CheckedMethodCache
+    "incrementalDir",
     // Already listed above, but worth noting again in this section:
     // "useDefaultsForUncheckedCode"
 
@@ -230,6 +267,11 @@ import org.checkerframework.javacutil.TreeUtils;
     // org.checkerframework.framework.source.SourceChecker.message(Kind, Object, String, Object...)
     "detailedmsgtext",
 
+    // Also write each diagnostic to the given file, one JSON object per line.
+    // The compiler output then shows only the message keys, as with -Anomsgtext.
+    // org.checkerframework.framework.source.DiagnosticsFileWriter
+    "diagnosticsFile",
+
     // Whether to output a stack trace for a framework error
     // org.checkerframework.framework.source.SourceChecker.logCheckerError
     "printErrorStack",
@@ -304,6 +346,11 @@ import org.checkerframework.javacutil.TreeUtils;
     // org.checkerframework.framework.source.SourceChecker.shutdownHook()
     "resourceStats",
 
+    // Output per-phase timings, cache hit rates, dataflow counters, and the slowest classes and
+    // methods of each checker to the given file, as JSON if it ends in ".json" and as CSV otherwise
+    // org.checkerframework.framework.util.CheckerStatistics
+    "performanceStats",
+
     // Set the cache size for caches in AnnotatedTypeFactory
     "atfCacheSize",
 
@@ -329,6 +376,9 @@ public abstract class SourceChecker extends AbstractTypeProcessor
     /** Used to report error messages and warnings via the compiler. */
     protected Messager messager;
 
+    /** The writer for the {@code -AdiagnosticsFile} command-line option, or null. */
+    private DiagnosticsFileWriter diagnosticsFile;
+
     /** Used as a helper for the {@link SourceVisitor}. */
     protected Trees trees;
 
@@ -348,38 +398,30 @@ public abstract class SourceChecker extends AbstractTypeProcessor
     private String @Nullable [] suppressWarnings;
 
     /**
-     * Regular expression pattern to specify Java classes that are not annotated, so warnings about
-     * uses of them should be suppressed.
-     *
-     * <p>It contains the pattern specified by the user, through the option {@code
-     * checkers.skipUses}; otherwise it contains a pattern that can match no class.
+     * The source ranges of the declarations in the current compilation unit, used to find the
+     * declarations whose {@code @SuppressWarnings} annotations apply to a tree. Created when a
+     * warning is first reported in a compilation unit.
      */
-    private Pattern skipUsesPattern;
+    private DeclarationScopeIndex declarationScopes;
 
     /**
-     * Regular expression pattern to specify Java classes that are annotated, so warnings about them
-     * should be issued but warnings about all other classes should be suppressed.
-     *
-     * <p>It contains the pattern specified by the user, through the option {@code
-     * checkers.onlyUses}; otherwise it contains a pattern matches every class.
+     * Maps an error key and an element to the result of {@link #shouldSuppressWarnings(Element,
+     * String)}, which is the same for every warning with that key reported within that element.
      */
-    private Pattern onlyUsesPattern;
+    private final Map<String, Map<Element, Boolean>> suppressedElements = new HashMap<>();
 
     /**
-     * Regular expression pattern to specify Java classes whose definition should not be checked.
-     *
-     * <p>It contains the pattern specified by the user, through the option {@code
-     * checkers.skipDefs}; otherwise it contains a pattern that can match no class.
+     * The parsed values of the options that are consulted while checking. Created when first
+     * needed. Do not read this field directly; use {@link #getCheckerOptions()}.
      */
-    private Pattern skipDefsPattern;
+    private CheckerOptions checkerOptions;
 
     /**
-     * Regular expression pattern to specify Java classes whose definition should be checked.
-     *
-     * <p>It contains the pattern specified by the user, through the option {@code
-     * checkers.onlyDefs}; otherwise it contains a pattern that matches every class.
+     * Maps a type name to whether it matches {@link CheckerOptions#skipUsesPattern} or fails to
+     * match {@link CheckerOptions#onlyUsesPattern}. Uses of the same few types are checked over
+     * and over.
      */
-    private Pattern onlyDefsPattern;
+    private final Map<String, Boolean> skipUsesResults = new HashMap<>();
 
     /** The supported lint options */
     private Set<String> supportedLints;
@@ -418,6 +460,9 @@ public abstract class SourceChecker extends AbstractTypeProcessor
      */
     protected SourceChecker parentChecker = null;
 
+    /** Timing and counter statistics; see {@link #getStatistics()}. */
+    private CheckerStatistics statistics;
+
     /** List of upstream checker names. Includes the current checker. */
     protected List<String> upstreamCheckerNames = null;
 
@@ -542,62 +587,6 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         return this.messages;
     }
 
-    private Pattern getSkipPattern(String patternName, Map<String, String> options) {
-        // Default is an illegal Java identifier substring
-        // so that it won't match anything.
-        // Note that AnnotatedType's toString output format contains characters such as "():{}".
-        return getPattern(patternName, options, "\\]'\"\\]");
-    }
-
-    private Pattern getOnlyPattern(String patternName, Map<String, String> options) {
-        // default matches everything
-        return getPattern(patternName, options, ".");
-    }
-
-    private Pattern getPattern(
-            String patternName, Map<String, String> options, String defaultPattern) {
-        String pattern = "";
-
-        if (options.containsKey(patternName)) {
-            pattern = options.get(patternName);
-        } else if (System.getProperty("checkers." + patternName) != null) {
-            pattern = System.getProperty("checkers." + patternName);
-        } else if (System.getenv(patternName) != null) {
-            pattern = System.getenv(patternName);
-        }
-
-        if (pattern.indexOf("/") != -1) {
-            message(
-                    Kind.WARNING,
-                    "The "
-                            + patternName
-                            + " property contains \"/\", which will never match a class name: "
-                            + pattern);
-        }
-
-        if (pattern.equals("")) {
-            pattern = defaultPattern;
-        }
-
-        return Pattern.compile(pattern);
-    }
-
-    private Pattern getSkipUsesPattern(Map<String, String> options) {
-        return getSkipPattern("skipUses", options);
-    }
-
-    private Pattern getOnlyUsesPattern(Map<String, String> options) {
-        return getOnlyPattern("onlyUses", options);
-    }
-
-    private Pattern getSkipDefsPattern(Map<String, String> options) {
-        return getSkipPattern("skipDefs", options);
-    }
-
-    private Pattern getOnlyDefsPattern(Map<String, String> options) {
-        return getOnlyPattern("onlyDefs", options);
-    }
-
     // TODO: do we want this?
     // Cache the keys that we already warned about to prevent repetitions.
     // private Set<String> warnedOnLint = new HashSet<String>();
@@ -861,10 +850,25 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         this.messager = processingEnv.getMessager();
         this.messages = getMessages();
 
+        // Parse the options now, so that illegal values are reported before any class is checked.
+        CheckerOptions checkerOptions = getCheckerOptions();
+        if (parentChecker == null) {
+            for (String warning : checkerOptions.warnings) {
+                message(Kind.WARNING, warning);
+            }
+        }
+
         this.visitor = createSourceVisitor();
 
-        // TODO: hack to clear out static caches.
-        AnnotationUtils.clear();
+        if (hasOption("diagnosticsFile")) {
+            String fileName = getOption("diagnosticsFile");
+            if (fileName == null) {
+                ErrorReporter.errorAbort("-AdiagnosticsFile requires a file name argument");
+            }
+            diagnosticsFile = DiagnosticsFileWriter.acquire(fileName, processingEnv);
+        }
+
+        AnnotationBuilder.initAnnotationCache(processingEnv);
     }
 
     /**
@@ -909,6 +913,9 @@ public abstract class SourceChecker extends AbstractTypeProcessor
      */
     protected int errsOnLastExit = 0;
 
+    /** The number of warnings and errors that this checker has reported. */
+    private int messageCount = 0;
+
     /**
      * Type-check the code with Java specifications and then runs the Checker Rule Checking visitor
      * on the processed source.
@@ -962,6 +969,7 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         }
         if (p.getCompilationUnit() != currentRoot) {
             currentRoot = p.getCompilationUnit();
+            suppressedElements.clear();
             if (hasOption("filenames")) {
                 message(
                         Kind.NOTE,
@@ -973,6 +981,8 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         }
 
         // Visit the attributed tree.
+        CheckerStatistics.Timer visitorTimer =
+                getStatistics().startTimer(CheckerStatistics.Phase.VISITOR);
         try {
             visitor.visit(p);
         } catch (CheckerError ce) {
@@ -980,12 +990,76 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         } catch (Throwable t) {
             logCheckerError(wrapThrowableAsCheckerError("SourceChecker.typeProcess", t, p));
         } finally {
+            getStatistics().recordClass(e.getQualifiedName().toString(), visitorTimer.stop());
+            if (diagnosticsFile != null) {
+                diagnosticsFile.flush();
+            }
             // Also add possibly deferred diagnostics, which will get published back in
             // AbstractTypeProcessor.
             this.errsOnLastExit = log.nerrors;
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Closes the file given by the {@code -AdiagnosticsFile} command-line option, once no
+     * checker uses it any more. If this is the checker that calls all others, writes the
+     * statistics of all checkers to the file given by the {@code -AperformanceStats} command-line
+     * option. Both happen even if a checker reported an error.
+     */
+    @Override
+    public void typeProcessingFinished() {
+        super.typeProcessingFinished();
+        if (diagnosticsFile != null) {
+            diagnosticsFile.release();
+            diagnosticsFile = null;
+        }
+        if (parentChecker == null && hasOption("performanceStats")) {
+            String fileName = getOption("performanceStats");
+            if (fileName == null) {
+                message(Kind.WARNING, "-AperformanceStats requires a file name argument");
+                return;
+            }
+            List<CheckerStatistics> allStatistics = new ArrayList<>();
+            addStatistics(allStatistics);
+            try {
+                CheckerStatistics.write(fileName, allStatistics);
+            } catch (IOException e) {
+                message(
+                        Kind.WARNING,
+                        "Could not write performance statistics to %s: %s",
+                        (Object) fileName,
+                        e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the timing and counter statistics of this checker. The statistics only record
+     * information if the {@code -AperformanceStats} command-line option is given.
+     *
+     * @return the statistics of this checker
+     */
+    public CheckerStatistics getStatistics() {
+        if (statistics == null) {
+            statistics =
+                    new CheckerStatistics(
+                            this.getClass().getSimpleName(), hasOption("performanceStats"));
+        }
+        return statistics;
+    }
+
+    /**
+     * Adds the statistics of this checker and all checkers it calls to {@code statisticsList}.
+     * Checkers that call other checkers override this method.
+     *
+     * @param statisticsList the list to add statistics to
+     */
+    protected void addStatistics(List<CheckerStatistics> statisticsList) {
+        statisticsList.add(getStatistics());
+    }
+
     private CheckerError wrapThrowableAsCheckerError(
             String where, Throwable t, @Nullable TreePath p) {
         return new CheckerError(
@@ -1105,12 +1179,28 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         }
 
         final String defaultFormat = String.format("(%s)", msgKey);
+        if (diagnosticsFile != null) {
+            String checkerName = this.getClass().getName();
+            diagnosticsFile.write(
+                    checkerName,
+                    kind,
+                    msgKey,
+                    diagnosticsFile.needsTemplate(checkerName, msgKey)
+                            ? fullMessageOf(msgKey, null)
+                            : null,
+                    args,
+                    source,
+                    currentRoot);
+        }
+
+        CheckerOptions checkerOptions = getCheckerOptions();
         String fmtString;
-        if (this.processingEnv.getOptions() != null /*nnbug*/
-                && this.processingEnv.getOptions().containsKey("nomsgtext")) {
-            fmtString = defaultFormat;
-        } else if (this.processingEnv.getOptions() != null /*nnbug*/
-                && this.processingEnv.getOptions().containsKey("detailedmsgtext")) {
+        if (checkerOptions.noMsgText || diagnosticsFile != null) {
+            // The message text is just the key, so there is nothing to format. Tools that need
+            // the details read them from the diagnostics file.
+            printMessage(kind, defaultFormat, source);
+            return;
+        } else if (checkerOptions.detailedMsgText) {
             // The -Adetailedmsgtext command-line option was given, so output
             // a stylized error message for easy parsing by a tool.
 
@@ -1160,7 +1250,7 @@ public abstract class SourceChecker extends AbstractTypeProcessor
 
         } else {
             final String suppressing;
-            if (this.processingEnv.getOptions().containsKey("showSuppressWarningKeys")) {
+            if (checkerOptions.showSuppressWarningKeys) {
                 suppressing = String.format("[%s:%s] ", this.getSuppressWarningsKeys(), msgKey);
             } else {
                 suppressing = String.format("[%s] ", msgKey);
@@ -1180,6 +1270,19 @@ public abstract class SourceChecker extends AbstractTypeProcessor
             messageText = messageText.replaceAll("\n", LINE_SEPARATOR);
         }
 
+        printMessage(kind, messageText, source);
+    }
+
+    /**
+     * Prints {@code messageText} at the position of {@code source}.
+     *
+     * @throws IllegalArgumentException if {@code source} is neither a {@link Tree} nor an {@link
+     *     Element}
+     */
+    private void printMessage(Diagnostic.Kind kind, String messageText, Object source) {
+        if (kind != Diagnostic.Kind.NOTE && kind != Diagnostic.Kind.OTHER) {
+            messageCount++;
+        }
         if (source instanceof Element) {
             messager.printMessage(kind, messageText, (Element) source);
         } else if (source instanceof Tree) {
@@ -1189,6 +1292,16 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         }
     }
 
+    /**
+     * Returns the number of warnings and errors that this checker has reported through {@link
+     * #report(Result, Object)}, excluding suppressed ones.
+     *
+     * @return the number of warnings and errors reported so far
+     */
+    public int getMessageCount() {
+        return messageCount;
+    }
+
     /**
      * Do not call this method directly. Call {@link #report(Result, Object)} instead. (This method
      * exists so that the BaseTypeChecker can override it and treat messages from compound checkers
@@ -1350,20 +1463,47 @@ public abstract class SourceChecker extends AbstractTypeProcessor
             return false;
         }
 
-        // trees.getPath might be slow, but this is only used in error reporting
-        // TODO: #1586 this might return null within a cloned finally block and
-        // then a warning that should be suppressed isn't. Fix this when fixing #1586.
-        @Nullable TreePath path = trees.getPath(this.currentRoot, tree);
-        if (path == null) {
-            return false;
+        @Nullable VariableTree var;
+        @Nullable MethodTree method;
+        @Nullable ClassTree cls;
+        long position = trees.getSourcePositions().getStartPosition(this.currentRoot, tree);
+        if (position != Diagnostic.NOPOS) {
+            if (declarationScopes == null || !declarationScopes.isIndexOf(this.currentRoot)) {
+                declarationScopes =
+                        new DeclarationScopeIndex(this.currentRoot, trees.getSourcePositions());
+            }
+            // A declaration encloses itself. Checking for that first also handles variables
+            // that share their modifiers with another, as in "int a, b;", and declarations
+            // without a source range.
+            var =
+                    tree.getKind() == Tree.Kind.VARIABLE
+                            ? (VariableTree) tree
+                            : declarationScopes.enclosingVariable(position);
+            method =
+                    tree.getKind() == Tree.Kind.METHOD
+                            ? (MethodTree) tree
+                            : declarationScopes.enclosingMethod(position);
+            cls =
+                    TreeUtils.classTreeKinds().contains(tree.getKind())
+                            ? (ClassTree) tree
+                            : declarationScopes.enclosingClass(position);
+        } else {
+            // trees.getPath might be slow, but this is only used in error reporting
+            // TODO: #1586 this might return null within a cloned finally block and
+            // then a warning that should be suppressed isn't. Fix this when fixing #1586.
+            @Nullable TreePath path = trees.getPath(this.currentRoot, tree);
+            if (path == null) {
+                return false;
+            }
+            var = TreeUtils.enclosingVariable(path);
+            method = TreeUtils.enclosingMethod(path);
+            cls = TreeUtils.enclosingClass(path);
         }
 
-        @Nullable VariableTree var = TreeUtils.enclosingVariable(path);
         if (var != null && shouldSuppressWarnings(TreeUtils.elementFromTree(var), errKey)) {
             return true;
         }
 
-        @Nullable MethodTree method = TreeUtils.enclosingMethod(path);
         if (method != null) {
             @Nullable Element elt = TreeUtils.elementFromTree(method);
 
@@ -1379,7 +1519,6 @@ public abstract class SourceChecker extends AbstractTypeProcessor
             }
         }
 
-        @Nullable ClassTree cls = TreeUtils.enclosingClass(path);
         if (cls != null) {
             @Nullable Element elt = TreeUtils.elementFromTree(cls);
 
@@ -1453,17 +1592,27 @@ public abstract class SourceChecker extends AbstractTypeProcessor
             return false;
         }
 
-        if (checkSuppressWarnings(elt.getAnnotation(SuppressWarnings.class), errKey)) {
-            return true;
+        Map<Element, Boolean> suppressedForKey = suppressedElements.get(errKey);
+        if (suppressedForKey == null) {
+            suppressedForKey = new IdentityHashMap<>();
+            suppressedElements.put(errKey, suppressedForKey);
+        }
+        Boolean suppressed = suppressedForKey.get(elt);
+        if (suppressed != null) {
+            return suppressed;
         }
 
-        if (isAnnotatedForThisCheckerOrUpstreamChecker(elt)) {
+        if (checkSuppressWarnings(elt.getAnnotation(SuppressWarnings.class), errKey)) {
+            suppressed = true;
+        } else if (isAnnotatedForThisCheckerOrUpstreamChecker(elt)) {
             // Return false immediately. Do NOT check for AnnotatedFor in the
             // enclosing elements, because they may not have an @AnnotatedFor.
-            return false;
+            suppressed = false;
+        } else {
+            suppressed = shouldSuppressWarnings(elt.getEnclosingElement(), errKey);
         }
-
-        return shouldSuppressWarnings(elt.getEnclosingElement(), errKey);
+        suppressedForKey.put(elt, suppressed);
+        return suppressed;
     }
 
     private boolean isAnnotatedForThisCheckerOrUpstreamChecker(@Nullable Element elt) {
@@ -1514,7 +1663,7 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         for (Result.DiagMessage msg : r.getDiagMessages()) {
             if (r.isFailure()) {
                 this.message(
-                        hasOption("warns")
+                        getCheckerOptions().warns
                                 ? Diagnostic.Kind.MANDATORY_WARNING
                                 : Diagnostic.Kind.ERROR,
                         src,
@@ -1736,6 +1885,19 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         return activeOptions;
     }
 
+    /**
+     * Returns the parsed values of the options that the framework consults while checking. They
+     * are created from the options of this checker, as returned by {@link #getOptions()}.
+     *
+     * @return the parsed options of this checker
+     */
+    public CheckerOptions getCheckerOptions() {
+        if (checkerOptions == null) {
+            checkerOptions = new CheckerOptions(getOptions(), processingEnv.getOptions());
+        }
+        return checkerOptions;
+    }
+
     /**
      * Check whether the given option is provided.
      *
@@ -1947,14 +2109,16 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         //     System.out.println("  " + stea[i]);
         // }
         // System.out.println();
-        if (skipUsesPattern == null) {
-            skipUsesPattern = getSkipUsesPattern(getOptions());
-        }
-        if (onlyUsesPattern == null) {
-            onlyUsesPattern = getOnlyUsesPattern(getOptions());
+        Boolean skip = skipUsesResults.get(typeName);
+        if (skip != null) {
+            return skip;
         }
-        return skipUsesPattern.matcher(typeName).find()
-                || !onlyUsesPattern.matcher(typeName).find();
+        CheckerOptions checkerOptions = getCheckerOptions();
+        skip =
+                checkerOptions.skipUsesPattern.matcher(typeName).find()
+                        || !checkerOptions.onlyUsesPattern.matcher(typeName).find();
+        skipUsesResults.put(typeName, skip);
+        return skip;
     }
 
     /**
@@ -1973,15 +2137,9 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         //                   onlyDefsPattern.matcher(qualifiedName).find(),
         //                   (skipDefsPattern.matcher(qualifiedName).find()
         //                    || ! onlyDefsPattern.matcher(qualifiedName).find()));
-        if (skipDefsPattern == null) {
-            skipDefsPattern = getSkipDefsPattern(getOptions());
-        }
-        if (onlyDefsPattern == null) {
-            onlyDefsPattern = getOnlyDefsPattern(getOptions());
-        }
-
-        return skipDefsPattern.matcher(qualifiedName).find()
-                || !onlyDefsPattern.matcher(qualifiedName).find();
+        CheckerOptions checkerOptions = getCheckerOptions();
+        return checkerOptions.skipDefsPattern.matcher(qualifiedName).find()
+                || !checkerOptions.onlyDefsPattern.matcher(qualifiedName).find();
     }
 
     /**
@@ -0,0 +1,190 @@
+package org.checkerframework.framework.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.processing.Processor;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+
+/**
+ * The state that {@link TypecheckExecutor} reuses across the compilations performed by one thread
+ * when tests run in parallel (see {@link TestUtilities#getTestThreads()}).
+ *
+ * <p>Each worker owns a {@link StandardJavaFileManager}, so jar files on the classpath are opened
+ * and indexed once per thread rather than once per test. File managers are not thread-safe, so
+ * each thread gets its own.
+ *
+ * <p>Each worker also owns a class loader from which the checkers are instantiated. The class
+ * loader loads the checkers and the framework itself, but not the JDK, javac, or JUnit, separately
+ * from the system class loader. The framework keeps some state in static fields, such as {@link
+ * org.checkerframework.javacutil.AnnotationBuilder}'s cache, and this keeps compilations running
+ * concurrently on different threads from sharing it. Compilations on the same thread run one after
+ * another and share static state exactly as they do when tests run sequentially.
+ */
+class CompilerWorker {
+
+    /** The worker for each thread that has compiled a test. */
+    private static final ThreadLocal<CompilerWorker> workers = new ThreadLocal<>();
+
+    /** All workers that have not been closed, so that their file managers can be closed. */
+    private static final List<CompilerWorker> openWorkers =
+            Collections.synchronizedList(new ArrayList<CompilerWorker>());
+
+    /** Locations that tests set through command-line options, reset before each compilation. */
+    private static final StandardLocation[] RESET_LOCATIONS = {
+        StandardLocation.CLASS_OUTPUT,
+        StandardLocation.SOURCE_OUTPUT,
+        StandardLocation.CLASS_PATH,
+        StandardLocation.SOURCE_PATH,
+        StandardLocation.ANNOTATION_PROCESSOR_PATH,
+        StandardLocation.PLATFORM_CLASS_PATH
+    };
+
+    /** The file manager shared by all compilations on this worker's thread. */
+    private final StandardJavaFileManager fileManager;
+
+    /** The class loader from which checkers are instantiated. */
+    private final ClassLoader processorLoader;
+
+    private CompilerWorker(JavaCompiler compiler) {
+        this.fileManager = compiler.getStandardFileManager(null, null, null);
+        this.processorLoader =
+                new IsolatingClassLoader(classpathUrls(), CompilerWorker.class.getClassLoader());
+    }
+
+    /** Returns the worker for the current thread, creating it if necessary. */
+    static CompilerWorker forCurrentThread(JavaCompiler compiler) {
+        CompilerWorker worker = workers.get();
+        if (worker == null) {
+            worker = new CompilerWorker(compiler);
+            workers.set(worker);
+            openWorkers.add(worker);
+        }
+        return worker;
+    }
+
+    /**
+     * Returns this worker's file manager, with every location that a test could have changed
+     * through its options reset to the default. The options of the next compilation then set them
+     * again, so no configuration leaks from one test to the next.
+     */
+    StandardJavaFileManager getFileManager() {
+        for (StandardLocation location : RESET_LOCATIONS) {
+            try {
+                fileManager.setLocation(location, null);
+            } catch (IOException e) {
+                throw new RuntimeException("Could not reset " + location, e);
+            }
+        }
+        return fileManager;
+    }
+
+    /** Instantiates the given checkers from this worker's class loader. */
+    List<Processor> createProcessors(List<String> processorNames) {
+        List<Processor> processors = new ArrayList<>(processorNames.size());
+        for (String name : processorNames) {
+            try {
+                Class<?> processorClass = Class.forName(name, true, processorLoader);
+                processors.add((Processor) processorClass.getDeclaredConstructor().newInstance());
+            } catch (ClassNotFoundException
+                    | InstantiationException
+                    | IllegalAccessException
+                    | NoSuchMethodException
+                    | InvocationTargetException e) {
+                throw new RuntimeException("Could not instantiate processor " + name, e);
+            }
+        }
+        return processors;
+    }
+
+    /**
+     * Closes the file managers of all workers. Called once a parallel test run has finished, after
+     * which the threads that owned the workers are gone.
+     */
+    static void closeAll() {
+        synchronized (openWorkers) {
+            for (CompilerWorker worker : openWorkers) {
+                try {
+                    worker.fileManager.close();
+                } catch (IOException e) {
+                    // Nothing useful can be done; the test results are already reported.
+                }
+            }
+            openWorkers.clear();
+        }
+    }
+
+    /** Returns the entries of the classpath of the test JVM as URLs. */
+    private static URL[] classpathUrls() {
+        String classpath = System.getProperty("java.class.path", "");
+        List<URL> urls = new ArrayList<>();
+        for (String entry : classpath.split(File.pathSeparator)) {
+            if (entry.isEmpty()) {
+                continue;
+            }
+            try {
+                urls.add(new File(entry).toURI().toURL());
+            } catch (MalformedURLException e) {
+                throw new RuntimeException("Bad classpath entry: " + entry, e);
+            }
+        }
+        return urls.toArray(new URL[urls.size()]);
+    }
+
+    /**
+     * A class loader that loads classes from its own URLs before delegating to its parent, except
+     * for classes that must be shared with the compiler and the test harness.
+     */
+    private static class IsolatingClassLoader extends URLClassLoader {
+
+        static {
+            ClassLoader.registerAsParallelCapable();
+        }
+
+        IsolatingClassLoader(URL[] urls, ClassLoader parent) {
+            super(urls, parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (isShared(name)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded == null) {
+                    try {
+                        loaded = findClass(name);
+                    } catch (ClassNotFoundException e) {
+                        loaded = getParent().loadClass(name);
+                    }
+                }
+                if (resolve) {
+                    resolveClass(loaded);
+                }
+                return loaded;
+            }
+        }
+
+        /** Returns true if the class must come from the parent class loader. */
+        private static boolean isShared(String name) {
+            return name.startsWith("java.")
+                    || name.startsWith("javax.")
+                    || name.startsWith("com.sun.")
+                    || name.startsWith("sun.")
+                    || name.startsWith("jdk.")
+                    || name.startsWith("org.junit.")
+                    || name.startsWith("junit.")
+                    || name.startsWith("org.hamcrest.")
+                    || name.startsWith("org.checkerframework.framework.test.");
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.checkerframework.framework.test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.runners.model.RunnerScheduler;
+
+/**
+ * Runs the children of a {@link PerDirectorySuite} or {@link PerFileSuite} concurrently on a
+ * bounded pool of threads. Used when the {@code tests.threads} system property is greater than 1;
+ * see {@link TestUtilities#getTestThreads()}.
+ *
+ * <p>Each child compiles its own {@link TestConfiguration} and produces its own {@link
+ * TypecheckResult}, so results do not depend on the order in which the children run.
+ */
+public class ParallelRunnerScheduler implements RunnerScheduler {
+
+    /** The pool on which the children run. */
+    private final ExecutorService executor;
+
+    /** @param threads the maximum number of children to run at once */
+    public ParallelRunnerScheduler(int threads) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executor =
+                Executors.newFixedThreadPool(
+                        threads,
+                        new ThreadFactory() {
+                            @Override
+                            public Thread newThread(Runnable runnable) {
+                                Thread thread =
+                                        new Thread(
+                                                runnable,
+                                                "checker-test-" + threadCount.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                        });
+    }
+
+    @Override
+    public void schedule(Runnable childStatement) {
+        executor.execute(childStatement);
+    }
+
+    @Override
+    public void finished() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        CompilerWorker.closeAll();
+    }
+}
@@ -428,6 +428,18 @@ public class TestUtilities {
         return System.getProperty(propName, String.valueOf(defaultValue)).equalsIgnoreCase("true");
     }
 
+    /**
+     * Returns the number of test configurations to type-check concurrently, from the system
+     * property "tests.threads". Defaults to 1, which runs tests sequentially.
+     *
+     * <p>When this is greater than 1, {@link PerDirectorySuite} and {@link PerFileSuite} run their
+     * children on a pool of this many threads, and {@link TypecheckExecutor} reuses one file
+     * manager per thread and instantiates checkers in a class loader private to the thread.
+     */
+    public static int getTestThreads() {
+        return Math.max(1, Integer.getInteger("tests.threads", 1));
+    }
+
     public static boolean getShouldEmitDebugInfo() {
         String emitDebug = System.getProperty("emit.test.debug");
         return emitDebug != null && emitDebug.equalsIgnoreCase("true");
@@ -35,7 +35,16 @@ public class TypecheckExecutor {
         DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
 
         JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        // When tests run in parallel, reuse this thread's file manager and load the checkers in
+        // this thread's class loader; see CompilerWorker.
+        CompilerWorker worker =
+                TestUtilities.getTestThreads() > 1
+                        ? CompilerWorker.forCurrentThread(compiler)
+                        : null;
+        StandardJavaFileManager fileManager =
+                worker != null
+                        ? worker.getFileManager()
+                        : compiler.getStandardFileManager(null, null, null);
         Iterable<? extends JavaFileObject> javaFiles =
                 fileManager.getJavaFileObjects(
                         configuration.getTestSourceFiles().toArray(new File[] {}));
@@ -74,9 +83,13 @@ public class TypecheckExecutor {
                         javacOutput,
                         fileManager,
                         diagnostics,
-                        options,
+                        // The worker passes the processors as instances instead.
+                        worker != null ? nonJvmOptions : options,
                         new ArrayList<String>(),
                         javaFiles);
+        if (worker != null) {
+            task.setProcessors(worker.createProcessors(configuration.getProcessors()));
+        }
 
         /*
          * In Eclipse, std out and std err for multiple tests appear as one
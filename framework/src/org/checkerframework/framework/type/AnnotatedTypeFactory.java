@@ -31,11 +31,16 @@ import java.io.InputStream;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Target;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -72,6 +77,7 @@ import org.checkerframework.framework.qual.FieldInvariant;
 import org.checkerframework.framework.qual.FromByteCode;
 import org.checkerframework.framework.qual.FromStubFile;
 import org.checkerframework.framework.qual.InheritedAnnotation;
+import org.checkerframework.framework.qual.MonotonicQualifier;
 import org.checkerframework.framework.qual.PolyAll;
 import org.checkerframework.framework.qual.PolymorphicQualifier;
 import org.checkerframework.framework.qual.StubFiles;
@@ -93,6 +99,7 @@ import org.checkerframework.framework.type.visitor.AnnotatedTypeScanner;
 import org.checkerframework.framework.util.AnnotatedTypes;
 import org.checkerframework.framework.util.AnnotationFormatter;
 import org.checkerframework.framework.util.CFContext;
+import org.checkerframework.framework.util.CheckerStatistics;
 import org.checkerframework.framework.util.DefaultAnnotationFormatter;
 import org.checkerframework.framework.util.FieldInvariants;
 import org.checkerframework.framework.util.GraphQualifierHierarchy;
@@ -220,11 +227,66 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     private Map<String, Set<AnnotationMirror>> declAnnosFromStubFiles;
 
     /**
-     * A cache used to store elements whose declaration annotations have already been stored by
-     * calling the method {@link #getDeclAnnotations(Element)}.
+     * The SHA-256 digest of the contents of the stub files, in the order in which they were parsed,
+     * or null before they are parsed. See {@link #getStubFilesDigest()}.
+     */
+    private byte[] stubFilesDigest;
+
+    /** Computes {@link #stubFilesDigest} while the stub files are parsed; null otherwise. */
+    private MessageDigest stubFilesMessageDigest;
+
+    /**
+     * The declaration annotations from stub files of each element that has been queried, resolved
+     * from {@link #declAnnosFromStubFiles} by {@link #getDeclAnnotationsFromStubFiles(Element)}.
+     * This avoids computing the verbose name of an element more than once. Null if caching is
+     * disabled.
+     */
+    private final Map<Element, Set<AnnotationMirror>> declAnnosFromStubFilesByElement;
+
+    /**
+     * A cache used to store elements whose declaration annotations, including those inherited from
+     * overridden methods, have already been stored by calling the method {@link
+     * #getDeclAnnotations(Element)}. Unlike the other caches, it is also used if caching is
+     * disabled.
      */
     private final Map<Element, Set<AnnotationMirror>> cacheDeclAnnos;
 
+    /**
+     * A cache of the declaration annotations that methods inherit from the methods they override,
+     * as computed by {@link #getInheritedDeclAnnotations(ExecutableElement)}. Computing the
+     * declaration annotations of a method that was evicted from {@link #cacheDeclAnnos} does not
+     * search its supertypes again while the method is still in this cache. Null if caching is
+     * disabled.
+     */
+    private final Map<ExecutableElement, List<AnnotationMirror>> inheritedDeclAnnosCache;
+
+    /**
+     * A cache of the monotonic qualifiers of fields, as computed by {@link
+     * #getMonotonicQualifiers(Element)}. Like {@link #cacheDeclAnnos}, it is only filled once the
+     * stub files have been parsed.
+     */
+    private final Map<Element, List<Pair<AnnotationMirror, AnnotationMirror>>>
+            monotonicQualifierCache;
+
+    /**
+     * A cache of the meta-annotations of annotation types, by the element of the annotation type.
+     * See {@link #getMetaAnnotations(AnnotationMirror)}.
+     */
+    private final Map<Element, List<? extends AnnotationMirror>> metaAnnotationCache;
+
+    /**
+     * The annotated API summaries of other modules, given by the {@code -AapiSummaryPath}
+     * command-line option, or null if there are none. See {@link ApiSummary}.
+     */
+    private ApiSummary apiSummary;
+
+    /**
+     * Collects the annotated API of the classes that are type-checked, to be written to the
+     * directory given by the {@code -AapiSummaryDir} command-line option. Null if the option is
+     * not given.
+     */
+    private final ApiSummary.Builder apiSummaryBuilder;
+
     /**
      * A set containing declaration annotations that should be inherited. A declaration annotation
      * will be inherited if it is in this set, or if it has the
@@ -236,6 +298,9 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     /** The checker to use for option handling and resource management. */
     protected final BaseTypeChecker checker;
 
+    /** Timing and cache statistics of {@link #checker}. */
+    protected final CheckerStatistics statistics;
+
     /**
      * Map from the fully-qualified names of the aliased annotations, to the annotations in the
      * Checker Framework that will be used in its place.
@@ -327,6 +392,25 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     /** Mapping from an Element to the source Tree of the declaration. */
     private final Map<Element, Tree> elementToTreeCache;
 
+    /**
+     * Mapping from an invocation tree to its inferred type arguments; see {@link
+     * #findTypeArguments(ExpressionTree, ExecutableElement, AnnotatedExecutableType,
+     * AnnotatedTypeMirror)}.
+     */
+    private final Map<ExpressionTree, InferredTypeArguments> typeArgumentsCache;
+
+    /**
+     * The number of times that type arguments were inferred for each invocation tree of the current
+     * compilation unit, to detect repeated re-inference.
+     */
+    private final Map<ExpressionTree, Integer> inferenceCounts = new IdentityHashMap<>();
+
+    /**
+     * The number of inferences for a single invocation tree after which a note is issued, because
+     * the inference is likely re-run once per enclosing invocation, which is exponential.
+     */
+    private static final int REINFERENCE_NOTE_THRESHOLD = 1000;
+
     /**
      * Whether to ignore uninferred type arguments. This is a temporary flag to work around Issue
      * 979.
@@ -351,6 +435,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         this.processingEnv = checker.getProcessingEnvironment();
         // this.root = root;
         this.checker = checker;
+        this.statistics = checker.getStatistics();
         this.trees = Trees.instance(processingEnv);
         this.elements = processingEnv.getElementUtils();
         this.types = processingEnv.getTypeUtils();
@@ -361,9 +446,11 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         this.fromByteCode = AnnotationBuilder.fromClass(elements, FromByteCode.class);
         this.fromStubFile = AnnotationBuilder.fromClass(elements, FromStubFile.class);
 
-        this.cacheDeclAnnos = new HashMap<Element, Set<AnnotationMirror>>();
+        this.monotonicQualifierCache = new HashMap<>();
+        this.metaAnnotationCache = new HashMap<>();
 
-        this.shouldCache = !checker.hasOption("atfDoNotCache");
+        this.cacheDeclAnnos = CollectionUtils.createLRUCache(getCacheSize());
+        this.shouldCache = !checker.getCheckerOptions().atfDoNotCache;
         if (shouldCache) {
             int cacheSize = getCacheSize();
             this.classAndMethodTreeCache = CollectionUtils.createLRUCache(cacheSize);
@@ -372,6 +459,9 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
             this.fromTypeTreeCache = CollectionUtils.createLRUCache(cacheSize);
             this.elementCache = CollectionUtils.createLRUCache(cacheSize);
             this.elementToTreeCache = CollectionUtils.createLRUCache(cacheSize);
+            this.typeArgumentsCache = CollectionUtils.createLRUCache(cacheSize);
+            this.declAnnosFromStubFilesByElement = CollectionUtils.createLRUCache(cacheSize);
+            this.inheritedDeclAnnosCache = CollectionUtils.createLRUCache(cacheSize);
         } else {
             this.classAndMethodTreeCache = null;
             this.fromExpressionTreeCache = null;
@@ -379,8 +469,14 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
             this.fromTypeTreeCache = null;
             this.elementCache = null;
             this.elementToTreeCache = null;
+            this.typeArgumentsCache = null;
+            this.declAnnosFromStubFilesByElement = null;
+            this.inheritedDeclAnnosCache = null;
         }
 
+        this.apiSummaryBuilder =
+                checker.getOption("apiSummaryDir") != null ? new ApiSummary.Builder() : null;
+
         this.typeFormatter = createAnnotatedTypeFormatter();
         this.annotationFormatter = createAnnotationFormatter();
 
@@ -473,7 +569,13 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      * this AnnotatedTypeFactory.
      */
     protected void postInit() {
-        this.qualHierarchy = createQualifierHierarchy();
+        CheckerStatistics.Timer qualHierarchyTimer =
+                statistics.startTimer(CheckerStatistics.Phase.QUALIFIER_HIERARCHY);
+        try {
+            this.qualHierarchy = createQualifierHierarchy();
+        } finally {
+            qualHierarchyTimer.stop();
+        }
         if (qualHierarchy == null) {
             ErrorReporter.errorAbort(
                     "AnnotatedTypeFactory with null qualifier hierarchy not supported.");
@@ -503,12 +605,64 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
                         elements, org.checkerframework.dataflow.qual.TerminatesExecution.class));
 
         initializeReflectionResolution();
+        loadApiSummaries();
 
         if (this.getClass().equals(AnnotatedTypeFactory.class)) {
             this.parseStubFiles();
         }
     }
 
+    /**
+     * Loads the summary file of this checker from each directory given by the {@code
+     * -AapiSummaryPath} command-line option.
+     */
+    private void loadApiSummaries() {
+        String path = checker.getOption("apiSummaryPath");
+        if (path == null) {
+            return;
+        }
+        List<File> files = new ArrayList<>();
+        for (String dir : path.split(File.pathSeparator)) {
+            File file = new File(dir, checker.getClass().getName() + ApiSummary.EXTENSION);
+            if (file.isFile()) {
+                files.add(file);
+            }
+        }
+        if (files.isEmpty()) {
+            return;
+        }
+        try {
+            apiSummary = new ApiSummary(files, this);
+        } catch (IOException e) {
+            ErrorReporter.errorAbort("Could not read API summary: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes the annotated API of the classes that were type-checked to the directory given by
+     * the {@code -AapiSummaryDir} command-line option, if it was given. Called by {@link
+     * BaseTypeChecker#typeProcessingFinished()}, even if errors were reported.
+     */
+    public void writeApiSummary() {
+        if (apiSummaryBuilder == null || apiSummaryBuilder.isEmpty()) {
+            return;
+        }
+        File dir = new File(checker.getOption("apiSummaryDir"));
+        File file = new File(dir, checker.getClass().getName() + ApiSummary.EXTENSION);
+        try {
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("cannot create directory " + dir);
+            }
+            apiSummaryBuilder.write(file);
+        } catch (IOException e) {
+            checker.message(
+                    Kind.WARNING,
+                    "Could not write API summary to %s: %s",
+                    (Object) file,
+                    e.getMessage());
+        }
+    }
+
     /** Returns the WholeProgramInference instance. */
     public WholeProgramInference getWholeProgramInference() {
         return wholeProgramInference;
@@ -535,6 +689,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         this.root = root;
         treePathCache.clear();
         pathHack.clear();
+        inferenceCounts.clear();
 
         if (shouldCache) {
             // Clear the caches with trees because once the compilation unit changes,
@@ -544,6 +699,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
             fromMemberTreeCache.clear();
             fromTypeTreeCache.clear();
             classAndMethodTreeCache.clear();
+            typeArgumentsCache.clear();
 
             // There is no need to clear the following cache, it is limited by cache size and it
             // contents won't change between compilation units.
@@ -933,6 +1089,21 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     /** Mapping from a Tree to its TreePath */
     private final TreePathCacher treePathCache = new TreePathCacher();
 
+    /**
+     * Returns true if {@code cache} contains {@code key}, and records the lookup in the {@link
+     * #statistics}.
+     *
+     * @param cache the cache to look up {@code key} in
+     * @param key the key to look up
+     * @param cacheName the name of the cache, used in the statistics output
+     * @return true if {@code cache} contains {@code key}
+     */
+    protected boolean isCacheHit(Map<?, ?> cache, Object key, String cacheName) {
+        boolean hit = cache.containsKey(key);
+        statistics.recordCacheAccess(cacheName, hit);
+        return hit;
+    }
+
     /**
      * Returns the int supplied to the checker via the atfCacheSize option or the default cache
      * size.
@@ -940,16 +1111,8 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      * @return cache size passed as argument to checker or DEFAULT_CACHE_SIZE
      */
     protected int getCacheSize() {
-        String option = checker.getOption("atfCacheSize");
-        if (option == null) {
-            return DEFAULT_CACHE_SIZE;
-        }
-        try {
-            return Integer.valueOf(option);
-        } catch (NumberFormatException ex) {
-            ErrorReporter.errorAbort("atfCacheSize was not an integer: " + option);
-            return 0; // dead code
-        }
+        int cacheSize = checker.getCheckerOptions().atfCacheSize;
+        return cacheSize < 0 ? DEFAULT_CACHE_SIZE : cacheSize;
     }
 
     /**
@@ -972,6 +1135,32 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         return type;
     }
 
+    /**
+     * Returns the annotated type of {@code elt} from the API summaries of other modules, or null if
+     * they do not contain it. The summary holds the type that {@link #getAnnotatedType(Element)}
+     * computed when the module of {@code elt} was type-checked, and takes the place of the
+     * annotations in the class file. Every component of that type is annotated, so applying the
+     * defaults again does not change it. Only called for elements that are read from bytecode and
+     * are not in a stub file.
+     *
+     * @param elt the element
+     * @return the annotated type of {@code elt} from the summaries, or null
+     */
+    private AnnotatedTypeMirror fromApiSummary(Element elt) {
+        if (apiSummary == null || typesFromStubFiles == null) {
+            return null;
+        }
+        switch (elt.getKind()) {
+            case FIELD:
+            case ENUM_CONSTANT:
+            case METHOD:
+            case CONSTRUCTOR:
+                return apiSummary.getAnnotatedType(elt);
+            default:
+                return null;
+        }
+    }
+
     @Override
     public AnnotationMirror getAnnotationMirror(Tree tree, Class<? extends Annotation> target) {
         AnnotationMirror mirror = AnnotationBuilder.fromClass(elements, target);
@@ -995,7 +1184,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
             ErrorReporter.errorAbort("AnnotatedTypeFactory.getAnnotatedType: null tree");
             return null; // dead code
         }
-        if (shouldCache && classAndMethodTreeCache.containsKey(tree)) {
+        if (shouldCache && isCacheHit(classAndMethodTreeCache, tree, "classAndMethodTreeCache")) {
             return classAndMethodTreeCache.get(tree).deepCopy();
         }
 
@@ -1037,22 +1226,41 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      */
     public void preProcessClassTree(ClassTree classTree) {}
 
+    /**
+     * Called by {@link BaseTypeVisitor#visitMethod(MethodTree, Void)} before the methodTree is type
+     * checked.
+     *
+     * @param methodTree MethodTree on which to perform preprocessing
+     */
+    public void preProcessMethodTree(MethodTree methodTree) {}
+
     /**
      * Called by {@link BaseTypeVisitor#visitClass(ClassTree, Void)} after the ClassTree has been
      * type checked.
      *
      * <p>The default implementation uses this to store the defaulted AnnotatedTypeMirrors and
-     * inherited declaration annotations back into the corresponding Elements. Subclasses might want
-     * to override this method if storing defaulted types is not desirable.
+     * inherited declaration annotations back into the corresponding Elements, and to add the
+     * public API of the class to the API summary if the {@code -AapiSummaryDir} command-line
+     * option is given. Subclasses might want to override this method if storing defaulted types is
+     * not desirable.
      */
     public void postProcessClassTree(ClassTree tree) {
         TypesIntoElements.store(processingEnv, this, tree);
+        if (apiSummaryBuilder != null) {
+            apiSummaryBuilder.addClass(TreeUtils.elementFromDeclaration(tree), this);
+        }
         DeclarationsIntoElements.store(processingEnv, this, tree);
         if (checker.hasOption("infer") && wholeProgramInference != null) {
             // Write scenes into .jaif files. In order to perform the write
             // operation only once for each .jaif file, the best location to
             // do so is here.
-            wholeProgramInference.saveResults();
+            CheckerStatistics.Timer wpiTimer =
+                    statistics.startTimer(CheckerStatistics.Phase.WPI_WRITE);
+            try {
+                wholeProgramInference.saveResults();
+            } finally {
+                wpiTimer.stop();
+            }
         }
     }
 
@@ -1092,7 +1300,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      * @return AnnotatedTypeMirror of the element with explicitly-written and stub file annotations
      */
     public AnnotatedTypeMirror fromElement(Element elt) {
-        if (shouldCache && elementCache.containsKey(elt)) {
+        if (shouldCache && isCacheHit(elementCache, elt, "elementCache")) {
             return elementCache.get(elt).deepCopy();
         }
         if (elt.getKind() == ElementKind.PACKAGE) {
@@ -1111,8 +1319,11 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
             type = typesFromStubFiles.get(elt).deepCopy();
         } else if (decl == null
                 && (typesFromStubFiles == null || !typesFromStubFiles.containsKey(elt))) {
-            type = toAnnotatedType(elt.asType(), ElementUtils.isTypeDeclaration(elt));
-            ElementAnnotationApplier.apply(type, elt, this);
+            type = fromApiSummary(elt);
+            if (type == null) {
+                type = toAnnotatedType(elt.asType(), ElementUtils.isTypeDeclaration(elt));
+                ElementAnnotationApplier.apply(type, elt, this);
+            }
 
             if (elt instanceof ExecutableElement || elt instanceof VariableElement) {
                 annotateInheritedFromClass(type);
@@ -1144,31 +1355,45 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     }
 
     /**
-     * Adds @FromByteCode to methods, constructors, and fields declared in class files that are not
-     * already annotated with @FromStubFile
+     * Returns the declaration annotations of {@code elt} from stub files. Adds @FromByteCode to
+     * methods, constructors, and fields declared in class files that are not already annotated
+     * with @FromStubFile. Must not be called while the stub files are parsed.
+     *
+     * @param elt an element
+     * @return the declaration annotations of {@code elt} from stub files
      */
-    private void addFromByteCode(Element elt) {
-        if (declAnnosFromStubFiles == null) { // || trees.getTree(elt) != null) {
-            // Parsing stub files, don't add @FromByteCode
-            return;
+    private Set<AnnotationMirror> getDeclAnnotationsFromStubFiles(Element elt) {
+        Set<AnnotationMirror> annos;
+        if (declAnnosFromStubFilesByElement != null) {
+            annos = declAnnosFromStubFilesByElement.get(elt);
+            if (annos != null) {
+                return annos;
+            }
         }
+        String eltName = ElementUtils.getVerboseName(elt);
+        annos = declAnnosFromStubFiles.get(eltName);
 
         if (elt.getKind() == ElementKind.CONSTRUCTOR
                 || elt.getKind() == ElementKind.METHOD
                 || elt.getKind() == ElementKind.FIELD) {
             // Only add @FromByteCode to methods, constructors, and fields
             if (ElementUtils.isElementFromByteCode(elt)) {
-                Set<AnnotationMirror> annos =
-                        declAnnosFromStubFiles.get(ElementUtils.getVerboseName(elt));
                 if (annos == null) {
                     annos = AnnotationUtils.createAnnotationSet();
-                    declAnnosFromStubFiles.put(ElementUtils.getVerboseName(elt), annos);
+                    declAnnosFromStubFiles.put(eltName, annos);
                 }
                 if (!AnnotationUtils.containsSameIgnoringValues(annos, fromStubFile)) {
                     annos.add(fromByteCode);
                 }
             }
         }
+        if (annos == null) {
+            annos = Collections.emptySet();
+        }
+        if (declAnnosFromStubFilesByElement != null) {
+            declAnnosFromStubFilesByElement.put(elt, annos);
+        }
+        return annos;
     }
 
     /**
@@ -1201,7 +1426,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
                             + tree);
             return null; // dead code
         }
-        if (shouldCache && fromMemberTreeCache.containsKey(tree)) {
+        if (shouldCache && isCacheHit(fromMemberTreeCache, tree, "fromMemberTreeCache")) {
             return fromMemberTreeCache.get(tree).deepCopy();
         }
         AnnotatedTypeMirror result = TypeFromTree.fromMember(this, tree);
@@ -1229,7 +1454,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      * @see TypeFromExpressionVisitor
      */
     private AnnotatedTypeMirror fromExpression(ExpressionTree tree) {
-        if (shouldCache && fromExpressionTreeCache.containsKey(tree)) {
+        if (shouldCache && isCacheHit(fromExpressionTreeCache, tree, "fromExpressionTreeCache")) {
             return fromExpressionTreeCache.get(tree).deepCopy();
         }
 
@@ -1258,7 +1483,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      * @return the (partially) annotated type of the type in the AST
      */
     /*package private*/ final AnnotatedTypeMirror fromTypeTree(Tree tree) {
-        if (shouldCache && fromTypeTreeCache.containsKey(tree)) {
+        if (shouldCache && isCacheHit(fromTypeTreeCache, tree, "fromTypeTreeCache")) {
             return fromTypeTreeCache.get(tree).deepCopy();
         }
 
@@ -2025,7 +2250,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         List<AnnotatedTypeMirror> typeargs = new ArrayList<>(methodType.getTypeVariables().size());
 
         Map<TypeVariable, AnnotatedTypeMirror> typeVarMapping =
-                AnnotatedTypes.findTypeArguments(processingEnv, this, tree, methodElt, methodType);
+                findTypeArguments(tree, methodElt, methodType, receiverType);
 
         if (!typeVarMapping.isEmpty()) {
             for (AnnotatedTypeVariable tv : methodType.getTypeVariables()) {
@@ -2054,6 +2279,110 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         return Pair.of(methodType, typeargs);
     }
 
+    /**
+     * Returns the type arguments of the invocation {@code tree}, as computed by {@link
+     * AnnotatedTypes#findTypeArguments}.
+     *
+     * <p>Inferring type arguments computes the types of the arguments and of the assignment
+     * context, which may in turn infer the type arguments of enclosing invocations. So that each
+     * invocation in a long chain is inferred only once, the result is cached per tree, together
+     * with the receiver type that it was computed for, while {@link #canCacheTypeArguments()}
+     * holds.
+     *
+     * @param tree a method or constructor invocation
+     * @param elt the invoked method or constructor
+     * @param preType the type of the invoked method or constructor, as a member of the receiver
+     * @param receiverType the type of the receiver, which determines {@code preType}
+     * @return a mapping from the type variables of {@code elt} to their type arguments
+     */
+    private Map<TypeVariable, AnnotatedTypeMirror> findTypeArguments(
+            ExpressionTree tree,
+            ExecutableElement elt,
+            AnnotatedExecutableType preType,
+            AnnotatedTypeMirror receiverType) {
+        if (elt.getTypeParameters().isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        boolean cacheable = shouldCache && canCacheTypeArguments();
+        if (cacheable && isCacheHit(typeArgumentsCache, tree, "typeArgumentsCache")) {
+            InferredTypeArguments cached = typeArgumentsCache.get(tree);
+            if (cached.receiverType == null
+                    ? receiverType == null
+                    : cached.receiverType.equals(receiverType)) {
+                return deepCopyTypeArguments(cached.typeArguments);
+            }
+        }
+
+        Integer count = inferenceCounts.get(tree);
+        count = (count == null) ? 1 : count + 1;
+        inferenceCounts.put(tree, count);
+        if (count == REINFERENCE_NOTE_THRESHOLD) {
+            checker.message(
+                    Kind.NOTE,
+                    "Type arguments of %s were inferred %d times; an enclosing invocation may "
+                            + "cause exponential re-inference",
+                    tree.toString().replace("\n", " "),
+                    count);
+        }
+
+        Map<TypeVariable, AnnotatedTypeMirror> typeArguments =
+                AnnotatedTypes.findTypeArguments(processingEnv, this, tree, elt, preType);
+        if (cacheable) {
+            typeArgumentsCache.put(
+                    tree,
+                    new InferredTypeArguments(
+                            receiverType == null ? null : receiverType.deepCopy(),
+                            deepCopyTypeArguments(typeArguments)));
+        }
+        return typeArguments;
+    }
+
+    /**
+     * Returns true if the type arguments inferred for an invocation can be cached, because the
+     * types of the expressions that inference depends on will not change. Subclasses whose types
+     * change over time, such as during a dataflow analysis, should override this method.
+     *
+     * @return true if inferred type arguments can be cached
+     */
+    protected boolean canCacheTypeArguments() {
+        return true;
+    }
+
+    /**
+     * Clears the cache of inferred type arguments. Subclasses should call this method when the
+     * types of expressions that inference depends on have changed.
+     */
+    protected void clearTypeArgumentsCache() {
+        if (typeArgumentsCache != null) {
+            typeArgumentsCache.clear();
+        }
+    }
+
+    /** Returns a copy of {@code typeArguments} whose values are deep copies. */
+    private static Map<TypeVariable, AnnotatedTypeMirror> deepCopyTypeArguments(
+            Map<TypeVariable, AnnotatedTypeMirror> typeArguments) {
+        Map<TypeVariable, AnnotatedTypeMirror> copy = new LinkedHashMap<>();
+        for (Map.Entry<TypeVariable, AnnotatedTypeMirror> entry : typeArguments.entrySet()) {
+            AnnotatedTypeMirror typeArgument = entry.getValue();
+            copy.put(entry.getKey(), typeArgument == null ? null : typeArgument.deepCopy());
+        }
+        return copy;
+    }
+
+    /** Type arguments inferred for an invocation, and the receiver type they were inferred for. */
+    private static class InferredTypeArguments {
+        final @Nullable AnnotatedTypeMirror receiverType;
+        final Map<TypeVariable, AnnotatedTypeMirror> typeArguments;
+
+        InferredTypeArguments(
+                @Nullable AnnotatedTypeMirror receiverType,
+                Map<TypeVariable, AnnotatedTypeMirror> typeArguments) {
+            this.receiverType = receiverType;
+            this.typeArguments = typeArguments;
+        }
+    }
+
     /**
      * Java special-cases the return type of {@link java.lang.Class#getClass() getClass()}. Though
      * the method has a return type of {@code Class<?>}, the compiler special cases this return-type
@@ -2148,7 +2477,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         List<AnnotatedTypeMirror> typeargs = new ArrayList<>(con.getTypeVariables().size());
 
         Map<TypeVariable, AnnotatedTypeMirror> typeVarMapping =
-                AnnotatedTypes.findTypeArguments(processingEnv, this, tree, ctor, con);
+                findTypeArguments(tree, ctor, con, type);
 
         if (!typeVarMapping.isEmpty()) {
             for (AnnotatedTypeVariable tv : con.getTypeVariables()) {
@@ -2645,7 +2974,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         if (root == null) {
             return null;
         }
-        if (shouldCache && elementToTreeCache.containsKey(elt)) {
+        if (shouldCache && isCacheHit(elementToTreeCache, elt, "elementToTreeCache")) {
             return elementToTreeCache.get(elt);
         }
 
@@ -2929,7 +3258,43 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         if (this.typesFromStubFiles != null || this.declAnnosFromStubFiles != null) {
             ErrorReporter.errorAbort("AnnotatedTypeFactory.parseStubFiles called more than once");
         }
+        try {
+            stubFilesMessageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            ErrorReporter.errorAbort("AnnotatedTypeFactory: SHA-256 is not available", e);
+        }
+        CheckerStatistics.Timer stubTimer =
+                statistics.startTimer(CheckerStatistics.Phase.STUB_PARSING);
+        try {
+            readStubFiles();
+        } finally {
+            stubTimer.stop();
+        }
+        stubFilesDigest = stubFilesMessageDigest.digest();
+        stubFilesMessageDigest = null;
+    }
 
+    /**
+     * Returns the SHA-256 digest of the contents of the stub files, in the order in which they were
+     * parsed. Tells whether the stub files changed between two runs of the checker.
+     *
+     * @return the digest of the stub files, or null if they have not been parsed yet
+     */
+    public byte[] getStubFilesDigest() {
+        return stubFilesDigest == null ? null : stubFilesDigest.clone();
+    }
+
+    /** Returns {@code in}, which adds the bytes read from it to {@link #stubFilesMessageDigest}. */
+    private InputStream digested(InputStream in) {
+        return new DigestInputStream(in, stubFilesMessageDigest);
+    }
+
+    /**
+     * Reads the stub files for {@link #parseStubFiles}, without timing it.
+     *
+     * <p>Sets typesFromStubFiles and declAnnosFromStubFiles by side effect, just before returning.
+     */
+    private void readStubFiles() {
         Map<Element, AnnotatedTypeMirror> typesFromStubFiles =
                 new HashMap<Element, AnnotatedTypeMirror>();
         Map<String, Set<AnnotationMirror>> declAnnosFromStubFiles =
@@ -2942,7 +3307,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
             if (in != null) {
                 StubParser.parse(
                         "jdk.astub",
-                        in,
+                        digested(in),
                         this,
                         processingEnv,
                         typesFromStubFiles,
@@ -2956,7 +3321,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         if (input != null) {
             StubParser.parse(
                     "flow.astub",
-                    input,
+                    digested(input),
                     this,
                     processingEnv,
                     typesFromStubFiles,
@@ -3016,7 +3381,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
                 if (in != null) {
                     StubParser.parse(
                             stubPath,
-                            in,
+                            digested(in),
                             this,
                             processingEnv,
                             typesFromStubFiles,
@@ -3044,7 +3409,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
                 }
                 StubParser.parse(
                         resource.getDescription(),
-                        stubStream,
+                        digested(stubStream),
                         this,
                         processingEnv,
                         typesFromStubFiles,
@@ -3162,9 +3527,10 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      * @param elt the element for which to determine annotations
      */
     public Set<AnnotationMirror> getDeclAnnotations(Element elt) {
-        if (cacheDeclAnnos.containsKey(elt)) {
+        Set<AnnotationMirror> cached = cacheDeclAnnos.get(elt);
+        if (cached != null) {
             // Found in cache, return result.
-            return cacheDeclAnnos.get(elt);
+            return cached;
         }
 
         Set<AnnotationMirror> results = AnnotationUtils.createAnnotationSet();
@@ -3186,16 +3552,9 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
 
         // If declAnnosFromStubFiles == null, return the annotations in the element.
         if (declAnnosFromStubFiles != null) {
-            // Adding @FromByteCode annotation to declAnnosFromStubFiles entry with key
-            // elt, if elt is from bytecode.
-            addFromByteCode(elt);
-
-            // Retrieving annotations from stub files.
-            String eltName = ElementUtils.getVerboseName(elt);
-            Set<AnnotationMirror> stubAnnos = declAnnosFromStubFiles.get(eltName);
-            if (stubAnnos != null) {
-                results.addAll(stubAnnos);
-            }
+            // Retrieving annotations from stub files, including @FromByteCode if elt is from
+            // bytecode.
+            results.addAll(getDeclAnnotationsFromStubFiles(elt));
 
             if (elt.getKind() == ElementKind.METHOD) {
                 // Retrieve the annotations from the overridden method's element.
@@ -3218,6 +3577,26 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      *     the element itself.
      */
     private void inheritOverriddenDeclAnnos(ExecutableElement elt, Set<AnnotationMirror> results) {
+        for (AnnotationMirror annotation : getInheritedDeclAnnotations(elt)) {
+            addOrMerge(results, annotation);
+        }
+    }
+
+    /**
+     * Returns the inheritable declaration annotations of all elements that the method element
+     * {@code elt} overrides, in the order in which they take precedence.
+     *
+     * @param elt method element
+     * @return the declaration annotations that {@code elt} inherits
+     */
+    private List<AnnotationMirror> getInheritedDeclAnnotations(ExecutableElement elt) {
+        if (inheritedDeclAnnosCache != null) {
+            List<AnnotationMirror> cached = inheritedDeclAnnosCache.get(elt);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        List<AnnotationMirror> results = new ArrayList<>();
         Map<AnnotatedDeclaredType, ExecutableElement> overriddenMethods =
                 AnnotatedTypes.overriddenMethods(elements, this, elt);
 
@@ -3245,11 +3624,18 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
                                     annotationsOnAnnotation, InheritedAnnotation.class)
                             || AnnotationUtils.containsSameIgnoringValues(
                                     inheritedAnnotations, annotation)) {
-                        addOrMerge(results, annotation);
+                        results.add(annotation);
                     }
                 }
             }
         }
+        if (results.isEmpty()) {
+            results = Collections.emptyList();
+        }
+        if (inheritedDeclAnnosCache != null) {
+            inheritedDeclAnnosCache.put(elt, results);
+        }
+        return results;
     }
 
     private void addOrMerge(Set<AnnotationMirror> results, AnnotationMirror annotation) {
@@ -3345,7 +3731,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         // Go through all annotations found.
         for (AnnotationMirror annotation : annotationMirrors) {
             List<? extends AnnotationMirror> annotationsOnAnnotation =
-                    annotation.getAnnotationType().asElement().getAnnotationMirrors();
+                    getMetaAnnotations(annotation);
             for (AnnotationMirror a : annotationsOnAnnotation) {
                 if (AnnotationUtils.areSameByClass(a, metaAnnotation)) {
                     result.add(Pair.of(annotation, a));
@@ -3355,6 +3741,63 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         return result;
     }
 
+    /**
+     * Returns the annotations on the declaration of the annotation type of {@code annotation}.
+     *
+     * @param annotation an annotation
+     * @return the meta-annotations of {@code annotation}
+     */
+    private List<? extends AnnotationMirror> getMetaAnnotations(AnnotationMirror annotation) {
+        Element annotationType = annotation.getAnnotationType().asElement();
+        List<? extends AnnotationMirror> result = metaAnnotationCache.get(annotationType);
+        if (result == null) {
+            result = annotationType.getAnnotationMirrors();
+            metaAnnotationCache.put(annotationType, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the monotonic qualifiers of a field: for each annotation of {@code field} that has
+     * the meta-annotation {@link MonotonicQualifier}, a pair of the annotation and the qualifier
+     * that the annotation may only be refined to (the {@code value} of the meta-annotation). The
+     * result is computed once per field, so it is cheap enough to call for every field on every
+     * method call, as in {@link
+     * org.checkerframework.framework.flow.CFAbstractStore#updateForMethodCall}.
+     *
+     * @param field the element of a field
+     * @return a list of pairs {@code (anno, target)}, where {@code anno} is an annotation at {@code
+     *     field} whose annotation type has the meta-annotation {@code @MonotonicQualifier(target)}
+     */
+    public List<Pair<AnnotationMirror, AnnotationMirror>> getMonotonicQualifiers(Element field) {
+        List<Pair<AnnotationMirror, AnnotationMirror>> result =
+                monotonicQualifierCache.get(field);
+        if (result != null) {
+            return result;
+        }
+        List<Pair<AnnotationMirror, AnnotationMirror>> fieldAnnotations =
+                getAnnotationWithMetaAnnotation(field, MonotonicQualifier.class);
+        if (fieldAnnotations.isEmpty()) {
+            result = Collections.emptyList();
+        } else {
+            result = new ArrayList<>(fieldAnnotations.size());
+            for (Pair<AnnotationMirror, AnnotationMirror> fieldAnnotation : fieldAnnotations) {
+                Name target =
+                        AnnotationUtils.getElementValueClassName(
+                                fieldAnnotation.second, "value", false);
+                result.add(
+                        Pair.of(
+                                fieldAnnotation.first,
+                                AnnotationBuilder.fromName(elements, target)));
+            }
+            result = Collections.unmodifiableList(result);
+        }
+        if (shouldCache && declAnnosFromStubFiles != null) {
+            monotonicQualifierCache.put(field, result);
+        }
+        return result;
+    }
+
     /**
      * Returns a wildcard type to be used as a type argument when the correct type could not be
      * inferred. The wildcard will be marked as an uninferred wildcard so that {@link
@@ -0,0 +1,479 @@
+package org.checkerframework.framework.type;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedArrayType;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclaredType;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
+import org.checkerframework.javacutil.AnnotationBuilder;
+import org.checkerframework.javacutil.AnnotationUtils;
+import org.checkerframework.javacutil.ElementUtils;
+
+/**
+ * The annotated API summaries of compiled modules, as written by the {@code -AapiSummaryDir}
+ * command-line option and read by the {@code -AapiSummaryPath} command-line option.
+ *
+ * <p>A summary file holds, for one checker, the fully defaulted annotated types of the public and
+ * protected fields, methods, and constructors of the classes compiled together. A later
+ * compilation that uses these classes from bytecode reads the type of a member from the summary,
+ * instead of reading its annotations from the class file.
+ *
+ * <p>A type is stored as the annotations of each of its components, in the order of {@link
+ * #collect}. Only types whose components are declared, array, primitive, and void types, and whose
+ * annotations have no elements, are stored; in particular, generic methods and the members of
+ * generic classes are not.
+ *
+ * <p>The file format is big-endian: the {@link #MAGIC} number and {@link #VERSION}; the number of
+ * strings and each string as its length and UTF-8 bytes; the number of entries and, for each entry,
+ * the string index of the member's key, the number of components, and for each component the
+ * number of annotations followed by the string indexes of their names. Summary files are mapped
+ * into memory, and an entry is decoded only when its member is used.
+ */
+public class ApiSummary {
+
+    /** The first four bytes of a summary file. */
+    static final int MAGIC = 0x43465341;
+
+    /** The version of the file format. */
+    static final int VERSION = 1;
+
+    /** The extension of summary files. */
+    public static final String EXTENSION = ".apisummary";
+
+    /** The type factory that uses the summaries. */
+    private final AnnotatedTypeFactory atypeFactory;
+
+    /** The location of the entry of each member, by key. */
+    private final Map<String, Location> index = new HashMap<>();
+
+    /** The qualified names of the classes that have a member in {@link #index}. */
+    private final Set<String> classNames = new HashSet<>();
+
+    /**
+     * Whether each class whose members were looked up has a member in {@link #index}, so that the
+     * key of a member is only computed for the members of those classes.
+     */
+    private final Map<Element, Boolean> summarizedClasses = new HashMap<>();
+
+    /**
+     * Loads the summary files of a checker.
+     *
+     * @param files the summary files; if several contain a member, the first one is used
+     * @param atypeFactory the type factory of the checker
+     * @throws IOException if a file cannot be read or is not a summary file
+     */
+    public ApiSummary(List<File> files, AnnotatedTypeFactory atypeFactory) throws IOException {
+        this.atypeFactory = atypeFactory;
+        for (File file : files) {
+            load(file);
+        }
+    }
+
+    /** Maps {@code file} into memory and indexes its entries. */
+    private void load(File file) throws IOException {
+        MappedByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                FileChannel channel = raf.getChannel()) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException(file + " is not an API summary file of version " + VERSION);
+        }
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        SummaryFile summaryFile = new SummaryFile(buffer, strings);
+        int entries = buffer.getInt();
+        for (int i = 0; i < entries; i++) {
+            String key = strings[buffer.getInt()];
+            if (!index.containsKey(key)) {
+                index.put(key, new Location(summaryFile, buffer.position()));
+                classNames.add(className(key));
+            }
+            int components = buffer.getInt();
+            for (int c = 0; c < components; c++) {
+                int annotations = buffer.getInt();
+                buffer.position(buffer.position() + 4 * annotations);
+            }
+        }
+    }
+
+    /**
+     * Returns the qualified name of the class of the member whose key is {@code key}. A key is
+     * the verbose name of the member, as in {@code p.C.f} or {@code p.C.m(p.D)}.
+     */
+    private static String className(String key) {
+        int paren = key.indexOf('(');
+        return key.substring(0, key.lastIndexOf('.', paren == -1 ? key.length() : paren));
+    }
+
+    /**
+     * Returns the annotated type of {@code elt} from the summaries, or null if the summaries do not
+     * contain {@code elt}, or if its entry does not match the type of {@code elt} or names an
+     * annotation that is not a qualifier of the checker.
+     *
+     * @param elt a field, method, or constructor
+     * @return the annotated type of {@code elt}, or null
+     */
+    public AnnotatedTypeMirror getAnnotatedType(Element elt) {
+        if (index.isEmpty()) {
+            return null;
+        }
+        Element classElt = elt.getEnclosingElement();
+        Boolean summarized = summarizedClasses.get(classElt);
+        if (summarized == null) {
+            summarized = classNames.contains(ElementUtils.getQualifiedClassName(elt).toString());
+            summarizedClasses.put(classElt, summarized);
+        }
+        if (!summarized) {
+            return null;
+        }
+        Location location = index.get(ElementUtils.getVerboseName(elt));
+        if (location == null) {
+            return null;
+        }
+        List<List<AnnotationMirror>> components = location.decode(atypeFactory);
+        if (components == null) {
+            return null;
+        }
+        AnnotatedTypeMirror type = atypeFactory.toAnnotatedType(elt.asType(), false);
+        if (type instanceof AnnotatedExecutableType) {
+            ((AnnotatedExecutableType) type).setElement((ExecutableElement) elt);
+        }
+        Iterator<List<AnnotationMirror>> iterator = components.iterator();
+        if (!apply(type, iterator) || iterator.hasNext()) {
+            return null;
+        }
+        return type;
+    }
+
+    /**
+     * Adds the annotations of each component of {@code type}, in the order of {@link #collect},
+     * from {@code components}.
+     *
+     * @return false if the components of {@code type} do not match {@code components}
+     */
+    private static boolean apply(
+            AnnotatedTypeMirror type, Iterator<List<AnnotationMirror>> components) {
+        switch (type.getKind()) {
+            case EXECUTABLE:
+                AnnotatedExecutableType method = (AnnotatedExecutableType) type;
+                if (!method.getTypeVariables().isEmpty()) {
+                    return false;
+                }
+                if (method.getReceiverType() != null
+                        && !apply(method.getReceiverType(), components)) {
+                    return false;
+                }
+                if (!apply(method.getReturnType(), components)) {
+                    return false;
+                }
+                for (AnnotatedTypeMirror parameter : method.getParameterTypes()) {
+                    if (!apply(parameter, components)) {
+                        return false;
+                    }
+                }
+                for (AnnotatedTypeMirror thrown : method.getThrownTypes()) {
+                    if (!apply(thrown, components)) {
+                        return false;
+                    }
+                }
+                return true;
+            case DECLARED:
+                AnnotatedDeclaredType declared = (AnnotatedDeclaredType) type;
+                if (declared.getEnclosingType() != null || !applyPrimary(type, components)) {
+                    return false;
+                }
+                for (AnnotatedTypeMirror typeArgument : declared.getTypeArguments()) {
+                    if (!apply(typeArgument, components)) {
+                        return false;
+                    }
+                }
+                return true;
+            case ARRAY:
+                return applyPrimary(type, components)
+                        && apply(((AnnotatedArrayType) type).getComponentType(), components);
+            default:
+                if (type.getKind().isPrimitive()) {
+                    return applyPrimary(type, components);
+                }
+                switch (type.getKind()) {
+                    case VOID:
+                    case NONE:
+                        return applyPrimary(type, components);
+                    default:
+                        return false;
+                }
+        }
+    }
+
+    /** Replaces the primary annotations of {@code type} by the next component. */
+    private static boolean applyPrimary(
+            AnnotatedTypeMirror type, Iterator<List<AnnotationMirror>> components) {
+        if (!components.hasNext()) {
+            return false;
+        }
+        type.clearAnnotations();
+        type.addAnnotations(components.next());
+        return true;
+    }
+
+    /**
+     * Appends the annotations of each component of {@code type} to {@code components}: for an
+     * executable type, the components of its receiver type, return type, parameter types, and
+     * thrown types; for a declared type, its primary annotations and the components of its type
+     * arguments; and for an array type, its primary annotations and the components of its
+     * component type.
+     *
+     * @return false if {@code type} cannot be stored in a summary
+     */
+    private static boolean collect(AnnotatedTypeMirror type, List<List<String>> components) {
+        switch (type.getKind()) {
+            case EXECUTABLE:
+                AnnotatedExecutableType method = (AnnotatedExecutableType) type;
+                if (!method.getTypeVariables().isEmpty()) {
+                    return false;
+                }
+                if (method.getReceiverType() != null
+                        && !collect(method.getReceiverType(), components)) {
+                    return false;
+                }
+                if (!collect(method.getReturnType(), components)) {
+                    return false;
+                }
+                for (AnnotatedTypeMirror parameter : method.getParameterTypes()) {
+                    if (!collect(parameter, components)) {
+                        return false;
+                    }
+                }
+                for (AnnotatedTypeMirror thrown : method.getThrownTypes()) {
+                    if (!collect(thrown, components)) {
+                        return false;
+                    }
+                }
+                return true;
+            case DECLARED:
+                AnnotatedDeclaredType declared = (AnnotatedDeclaredType) type;
+                if (declared.getEnclosingType() != null || !collectPrimary(type, components)) {
+                    return false;
+                }
+                for (AnnotatedTypeMirror typeArgument : declared.getTypeArguments()) {
+                    if (!collect(typeArgument, components)) {
+                        return false;
+                    }
+                }
+                return true;
+            case ARRAY:
+                return collectPrimary(type, components)
+                        && collect(((AnnotatedArrayType) type).getComponentType(), components);
+            default:
+                if (type.getKind().isPrimitive()) {
+                    return collectPrimary(type, components);
+                }
+                switch (type.getKind()) {
+                    case VOID:
+                    case NONE:
+                        return collectPrimary(type, components);
+                    default:
+                        return false;
+                }
+        }
+    }
+
+    /** Appends the names of the primary annotations of {@code type} to {@code components}. */
+    private static boolean collectPrimary(
+            AnnotatedTypeMirror type, List<List<String>> components) {
+        List<String> names = new ArrayList<>();
+        for (AnnotationMirror anno : type.getAnnotations()) {
+            if (!anno.getElementValues().isEmpty()) {
+                return false;
+            }
+            names.add(AnnotationUtils.annotationName(anno));
+        }
+        components.add(names);
+        return true;
+    }
+
+    /** A memory-mapped summary file. */
+    private static class SummaryFile {
+        /** The contents of the file. */
+        final ByteBuffer buffer;
+        /** The string table of the file. */
+        final String[] strings;
+        /** The qualifiers named by the string table, resolved on first use. */
+        final Map<Integer, AnnotationMirror> qualifiers = new HashMap<>();
+
+        SummaryFile(ByteBuffer buffer, String[] strings) {
+            this.buffer = buffer;
+            this.strings = strings;
+        }
+
+        /** Returns the qualifier named by string {@code index}, or null if it is not one. */
+        AnnotationMirror qualifier(int index, AnnotatedTypeFactory atypeFactory) {
+            if (qualifiers.containsKey(index)) {
+                return qualifiers.get(index);
+            }
+            AnnotationMirror anno =
+                    AnnotationBuilder.fromName(atypeFactory.getElementUtils(), strings[index]);
+            if (anno != null && !atypeFactory.isSupportedQualifier(anno)) {
+                anno = null;
+            }
+            qualifiers.put(index, anno);
+            return anno;
+        }
+    }
+
+    /** The location of an entry in a summary file. */
+    private static class Location {
+        /** The file that contains the entry. */
+        final SummaryFile file;
+        /** The offset of the number of components of the entry. */
+        final int offset;
+
+        Location(SummaryFile file, int offset) {
+            this.file = file;
+            this.offset = offset;
+        }
+
+        /** Returns the components of the entry, or null if an annotation is not a qualifier. */
+        List<List<AnnotationMirror>> decode(AnnotatedTypeFactory atypeFactory) {
+            ByteBuffer buffer = file.buffer;
+            int position = offset;
+            int components = buffer.getInt(position);
+            position += 4;
+            List<List<AnnotationMirror>> result = new ArrayList<>(components);
+            for (int c = 0; c < components; c++) {
+                int annotations = buffer.getInt(position);
+                position += 4;
+                List<AnnotationMirror> annos = new ArrayList<>(annotations);
+                for (int a = 0; a < annotations; a++) {
+                    AnnotationMirror anno =
+                            file.qualifier(buffer.getInt(position), atypeFactory);
+                    position += 4;
+                    if (anno == null) {
+                        return null;
+                    }
+                    annos.add(anno);
+                }
+                result.add(annos);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Collects the annotated types of the public and protected members of the classes of one
+     * compilation and writes them to a summary file.
+     */
+    public static class Builder {
+        /** The components of each member's type, by key, sorted for a deterministic file. */
+        private final Map<String, List<List<String>>> entries = new TreeMap<>();
+
+        /**
+         * Adds the public and protected fields, methods, and constructors of {@code classElt},
+         * with their annotated types as computed by {@code atypeFactory}.
+         *
+         * @param classElt a class that was type-checked
+         * @param atypeFactory the type factory that checked it
+         */
+        public void addClass(TypeElement classElt, AnnotatedTypeFactory atypeFactory) {
+            for (Element member : classElt.getEnclosedElements()) {
+                switch (member.getKind()) {
+                    case FIELD:
+                    case ENUM_CONSTANT:
+                    case METHOD:
+                    case CONSTRUCTOR:
+                        break;
+                    default:
+                        continue;
+                }
+                Set<Modifier> modifiers = member.getModifiers();
+                if (!modifiers.contains(Modifier.PUBLIC)
+                        && !modifiers.contains(Modifier.PROTECTED)) {
+                    continue;
+                }
+                List<List<String>> components = new ArrayList<>();
+                if (collect(atypeFactory.getAnnotatedType(member), components)) {
+                    entries.put(ElementUtils.getVerboseName(member), components);
+                }
+            }
+        }
+
+        /** Returns true if no member has been added. */
+        public boolean isEmpty() {
+            return entries.isEmpty();
+        }
+
+        /**
+         * Writes the collected members to {@code file}.
+         *
+         * @param file the summary file
+         * @throws IOException if the file cannot be written
+         */
+        public void write(File file) throws IOException {
+            Map<String, Integer> strings = new LinkedHashMap<>();
+            for (Map.Entry<String, List<List<String>>> entry : entries.entrySet()) {
+                intern(entry.getKey(), strings);
+                for (List<String> component : entry.getValue()) {
+                    for (String name : component) {
+                        intern(name, strings);
+                    }
+                }
+            }
+            try (OutputStream fileStream = new FileOutputStream(file);
+                    DataOutputStream out = new DataOutputStream(fileStream)) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(strings.size());
+                for (String string : strings.keySet()) {
+                    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+                out.writeInt(entries.size());
+                for (Map.Entry<String, List<List<String>>> entry : entries.entrySet()) {
+                    out.writeInt(strings.get(entry.getKey()));
+                    out.writeInt(entry.getValue().size());
+                    for (List<String> component : entry.getValue()) {
+                        out.writeInt(component.size());
+                        for (String name : component) {
+                            out.writeInt(strings.get(name));
+                        }
+                    }
+                }
+            }
+        }
+
+        /** Adds {@code string} to the string table if it is not in it yet. */
+        private static void intern(String string, Map<String, Integer> strings) {
+            if (!strings.containsKey(string)) {
+                strings.put(string, strings.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,465 @@
+package org.checkerframework.framework.type;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MemberReferenceTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreeScanner;
+import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.tools.JavaFileObject;
+import org.checkerframework.framework.source.SourceChecker;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclaredType;
+import org.checkerframework.framework.util.AnnotatedTypes;
+import org.checkerframework.javacutil.ElementUtils;
+import org.checkerframework.javacutil.ErrorReporter;
+import org.checkerframework.javacutil.TreeUtils;
+
+/**
+ * The methods that a checker found no problems in during earlier runs, together with a
+ * fingerprint of everything their checking depended on. Enabled by the {@code -AincrementalDir}
+ * command-line option, which names the directory in which the cache of each checker is kept
+ * between runs.
+ *
+ * <p>The fingerprint of a method is a digest of its source code; of the declaration of each class
+ * that encloses it and of the fields of the class that declares it; of its annotated type and
+ * declaration annotations; of those of the methods it overrides; of those of every field, method,
+ * constructor, and class that it names; and of the annotated supertypes of its class, of the
+ * classes it names, and of the classes that declare the members it names, and transitively of
+ * their supertypes. A method whose fingerprint is unchanged since a run in which it was checked
+ * without a warning or error need not be checked or analyzed again.
+ *
+ * <p>The whole cache is discarded if the checker or its options, the version or build of the
+ * checker and of the framework, the contents of the stub files, or the JDK class files that javac
+ * reads, which include the annotated JDK, have changed.
+ *
+ * <p>Some dependencies are not part of the fingerprint: the members that a method uses without
+ * naming them, such as the {@code iterator} method that an enhanced {@code for} loop invokes or
+ * the methods that unboxing and string concatenation invoke, and the classes that the method uses
+ * only as the types of expressions, without naming them. Subclasses of the classes that a method
+ * uses, and the methods that override the methods that it invokes, are not dependencies: a call is
+ * checked against the type of the method that it statically invokes.
+ *
+ * <p>Only methods, not constructors, of top-level and member classes are cached.
+ */
+public class CheckedMethodCache {
+
+    /** The file that holds the cache between runs. */
+    private final File file;
+
+    /** The checker whose methods are cached. */
+    private final SourceChecker checker;
+
+    /**
+     * The digest of the checker, its options, and the code, stub files, and JDK that it runs with,
+     * which the cached fingerprints are valid for. Null until the cache is read from its file by
+     * {@link #read}.
+     */
+    private String header;
+
+    /** The fingerprints of the methods without problems, by the verbose name of the method. */
+    private final Map<String, String> fingerprints = new TreeMap<>();
+
+    /** The fingerprints computed in this run, by method. */
+    private final Map<MethodTree, String> computed = new IdentityHashMap<>();
+
+    /** The formatter for the annotated types that are part of a fingerprint. */
+    private final AnnotatedTypeFormatter formatter = new DefaultAnnotatedTypeFormatter(true, true);
+
+    /** The annotated direct supertypes of each class, as they are appended to a fingerprint. */
+    private final Map<TypeElement, String> supertypes = new HashMap<>();
+
+    /**
+     * Creates the cache of a checker. The cache is read from {@code file} when it is first used, if
+     * the file was written for the same checker, options, code, stub files, and JDK.
+     *
+     * @param file the file that holds the cache between runs
+     * @param checker the checker
+     */
+    public CheckedMethodCache(File file, SourceChecker checker) {
+        this.file = file;
+        this.checker = checker;
+    }
+
+    /**
+     * Computes the {@link #header} and reads the cache from its file, unless that was done
+     * already. Must not be called before the stub files are parsed.
+     */
+    private void read(AnnotatedTypeFactory atypeFactory) {
+        if (header != null) {
+            return;
+        }
+        byte[] stubFilesDigest = atypeFactory.getStubFilesDigest();
+        header =
+                digest(
+                        checker.getClass().getName()
+                                + '\n'
+                                + new TreeMap<>(checker.getOptions())
+                                + '\n'
+                                + codeVersion(checker.getClass())
+                                + '\n'
+                                + codeVersion(SourceChecker.class)
+                                + '\n'
+                                + jdkVersion(atypeFactory.getElementUtils())
+                                + '\n'
+                                + (stubFilesDigest == null ? "" : hex(stubFilesDigest)));
+        if (!file.isFile()) {
+            return;
+        }
+        try (BufferedReader in =
+                new BufferedReader(
+                        new InputStreamReader(
+                                Files.newInputStream(file.toPath()), StandardCharsets.UTF_8))) {
+            if (!header.equals(in.readLine())) {
+                return;
+            }
+            String line;
+            while ((line = in.readLine()) != null) {
+                int tab = line.lastIndexOf('\t');
+                if (tab != -1) {
+                    fingerprints.put(line.substring(0, tab), line.substring(tab + 1));
+                }
+            }
+        } catch (IOException e) {
+            // Start with an empty cache.
+            fingerprints.clear();
+        }
+    }
+
+    /**
+     * Returns the name of {@code cls}, the implementation version of its package if its jar file
+     * declares one, and the location and modification time of its class file.
+     */
+    private static String codeVersion(Class<?> cls) {
+        StringBuilder sb = new StringBuilder(cls.getName());
+        Package pkg = cls.getPackage();
+        if (pkg != null && pkg.getImplementationVersion() != null) {
+            sb.append(' ').append(pkg.getImplementationVersion());
+        }
+        String name = cls.getName();
+        URL url = cls.getResource(name.substring(name.lastIndexOf('.') + 1) + ".class");
+        if (url != null) {
+            sb.append(' ').append(url);
+            try {
+                sb.append(' ').append(url.openConnection().getLastModified());
+            } catch (IOException e) {
+                // Only the location is known.
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the location and modification time of the class file of {@code java.lang.Object}
+     * that javac reads. If the annotated JDK is on the boot class path, that class file is part of
+     * it.
+     */
+    private static String jdkVersion(Elements elements) {
+        TypeElement object = elements.getTypeElement("java.lang.Object");
+        JavaFileObject classfile =
+                object instanceof ClassSymbol ? ((ClassSymbol) object).classfile : null;
+        if (classfile == null) {
+            return "";
+        }
+        return classfile.toUri() + " " + classfile.getLastModified();
+    }
+
+    /**
+     * Returns true if {@code method} was checked without problems in an earlier run, and nothing
+     * that its checking depends on has changed since.
+     *
+     * @param method a method
+     * @param atypeFactory the type factory of the checker
+     * @return true if {@code method} need not be checked again
+     */
+    public boolean isUnchanged(MethodTree method, AnnotatedTypeFactory atypeFactory) {
+        read(atypeFactory);
+        String fingerprint = fingerprint(method, atypeFactory);
+        if (fingerprint == null) {
+            return false;
+        }
+        return fingerprint.equals(fingerprints.get(key(TreeUtils.elementFromDeclaration(method))));
+    }
+
+    /**
+     * Records whether the checking of {@code method} in this run found problems.
+     *
+     * @param method a method that was checked
+     * @param clean true if no warning or error was reported within {@code method}
+     * @param atypeFactory the type factory of the checker
+     */
+    public void recordChecked(MethodTree method, boolean clean, AnnotatedTypeFactory atypeFactory) {
+        read(atypeFactory);
+        String fingerprint = fingerprint(method, atypeFactory);
+        if (fingerprint == null) {
+            return;
+        }
+        String key = key(TreeUtils.elementFromDeclaration(method));
+        if (clean) {
+            fingerprints.put(key, fingerprint);
+        } else {
+            fingerprints.remove(key);
+        }
+    }
+
+    /**
+     * Forgets the fingerprints computed for the methods of the previous compilation unit. Called
+     * when the type factory moves on to the next compilation unit.
+     */
+    public void clearFingerprints() {
+        computed.clear();
+    }
+
+    /**
+     * Writes the cache to its file. Methods that were not checked in this run keep their entries.
+     * Does nothing if no method was checked in this run.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void write() throws IOException {
+        if (header == null) {
+            return;
+        }
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("cannot create directory " + dir);
+        }
+        try (Writer out =
+                new BufferedWriter(
+                        new OutputStreamWriter(
+                                Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8))) {
+            out.write(header);
+            out.write('\n');
+            for (Map.Entry<String, String> entry : fingerprints.entrySet()) {
+                out.write(entry.getKey());
+                out.write('\t');
+                out.write(entry.getValue());
+                out.write('\n');
+            }
+        }
+    }
+
+    /** Returns the key of {@code method} in the cache. */
+    private static String key(ExecutableElement method) {
+        return ElementUtils.getVerboseName(method);
+    }
+
+    /**
+     * Returns the fingerprint of {@code method}, or null if it cannot be cached. The fingerprint is
+     * computed once per run, before the method is analyzed.
+     */
+    private String fingerprint(MethodTree method, AnnotatedTypeFactory atypeFactory) {
+        if (computed.containsKey(method)) {
+            return computed.get(method);
+        }
+        String result = null;
+        ExecutableElement methodElt = TreeUtils.elementFromDeclaration(method);
+        TypeElement classElt = ElementUtils.enclosingClass(methodElt);
+        if (method.getBody() != null
+                && !TreeUtils.isConstructor(method)
+                && (classElt.getNestingKind() == NestingKind.TOP_LEVEL
+                        || classElt.getNestingKind() == NestingKind.MEMBER)) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(method);
+            TreePath path = atypeFactory.getPath(method);
+            boolean declaringClass = true;
+            for (TreePath p = path; p != null; p = p.getParentPath()) {
+                if (TreeUtils.isClassTree(p.getLeaf())) {
+                    appendClass((ClassTree) p.getLeaf(), declaringClass, sb);
+                    declaringClass = false;
+                }
+            }
+            appendElement(methodElt, atypeFactory, sb);
+            for (ExecutableElement overridden :
+                    AnnotatedTypes.overriddenMethods(
+                                    atypeFactory.getElementUtils(), atypeFactory, methodElt)
+                            .values()) {
+                appendElement(overridden, atypeFactory, sb);
+            }
+            Set<TypeElement> classes = new LinkedHashSet<>();
+            addWithSupertypes(classElt, atypeFactory, classes);
+            for (Element used : usedElements(method)) {
+                appendElement(used, atypeFactory, sb);
+                addWithSupertypes(
+                        used instanceof TypeElement
+                                ? (TypeElement) used
+                                : ElementUtils.enclosingClass(used),
+                        atypeFactory,
+                        classes);
+            }
+            for (TypeElement cls : classes) {
+                appendSupertypes(cls, atypeFactory, sb);
+            }
+            result = digest(sb.toString());
+        }
+        computed.put(method, result);
+        return result;
+    }
+
+    /**
+     * Appends the declaration of {@code classTree}, without its members, to {@code sb}; if {@code
+     * declaringClass}, also appends its fields.
+     */
+    private static void appendClass(ClassTree classTree, boolean declaringClass, StringBuilder sb) {
+        sb.append('\n')
+                .append(classTree.getModifiers())
+                .append(classTree.getSimpleName())
+                .append(classTree.getTypeParameters())
+                .append(classTree.getExtendsClause())
+                .append(classTree.getImplementsClause());
+        if (declaringClass) {
+            for (Tree member : classTree.getMembers()) {
+                if (member.getKind() == Tree.Kind.VARIABLE) {
+                    sb.append('\n').append((VariableTree) member);
+                }
+            }
+        }
+    }
+
+    /** Adds {@code cls} and, transitively, its supertypes to {@code classes}. */
+    private static void addWithSupertypes(
+            TypeElement cls, AnnotatedTypeFactory atypeFactory, Set<TypeElement> classes) {
+        if (cls == null || !classes.add(cls)) {
+            return;
+        }
+        for (TypeMirror supertype :
+                atypeFactory.getProcessingEnv().getTypeUtils().directSupertypes(cls.asType())) {
+            if (supertype.getKind() == TypeKind.DECLARED) {
+                addWithSupertypes(
+                        (TypeElement) ((DeclaredType) supertype).asElement(),
+                        atypeFactory,
+                        classes);
+            }
+        }
+    }
+
+    /** Appends the name and the annotated direct supertypes of {@code cls}. */
+    private void appendSupertypes(
+            TypeElement cls, AnnotatedTypeFactory atypeFactory, StringBuilder sb) {
+        String result = supertypes.get(cls);
+        if (result == null) {
+            StringBuilder supertypesOf = new StringBuilder();
+            supertypesOf.append(cls.getQualifiedName()).append(" <:");
+            AnnotatedDeclaredType type = atypeFactory.getAnnotatedType(cls);
+            for (AnnotatedDeclaredType supertype : type.directSuperTypes()) {
+                supertypesOf.append(' ').append(formatter.format(supertype));
+            }
+            result = supertypesOf.toString();
+            supertypes.put(cls, result);
+        }
+        sb.append('\n').append(result);
+    }
+
+    /** Appends the name, annotated type, and declaration annotations of {@code elt}. */
+    private void appendElement(Element elt, AnnotatedTypeFactory atypeFactory, StringBuilder sb) {
+        sb.append('\n').append(ElementUtils.getVerboseName(elt)).append(' ');
+        sb.append(formatter.format(atypeFactory.getAnnotatedType(elt)))
+                .append(' ')
+                .append(atypeFactory.getDeclAnnotations(elt));
+    }
+
+    /**
+     * Returns the fields, methods, constructors, and classes that are named within {@code method},
+     * in the order of their first use.
+     */
+    private static Set<Element> usedElements(MethodTree method) {
+        final Set<Element> result = new LinkedHashSet<>();
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void visitIdentifier(IdentifierTree tree, Void p) {
+                add(TreeUtils.elementFromUse(tree));
+                return super.visitIdentifier(tree, p);
+            }
+
+            @Override
+            public Void visitMemberSelect(MemberSelectTree tree, Void p) {
+                add(TreeUtils.elementFromUse(tree));
+                return super.visitMemberSelect(tree, p);
+            }
+
+            @Override
+            public Void visitMemberReference(MemberReferenceTree tree, Void p) {
+                add(TreeUtils.elementFromUse(tree));
+                return super.visitMemberReference(tree, p);
+            }
+
+            @Override
+            public Void visitNewClass(NewClassTree tree, Void p) {
+                add(TreeUtils.constructor(tree));
+                return super.visitNewClass(tree, p);
+            }
+
+            private void add(Element elt) {
+                if (elt == null) {
+                    return;
+                }
+                switch (elt.getKind()) {
+                    case FIELD:
+                    case ENUM_CONSTANT:
+                    case METHOD:
+                    case CONSTRUCTOR:
+                    case CLASS:
+                    case INTERFACE:
+                    case ENUM:
+                    case ANNOTATION_TYPE:
+                        result.add(elt);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }.scan(method, null);
+        return result;
+    }
+
+    /** Returns the SHA-256 digest of {@code s}, in hexadecimal. */
+    private static String digest(String s) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            ErrorReporter.errorAbort("CheckedMethodCache: SHA-256 is not available", e);
+            return null; // dead code
+        }
+        return hex(md.digest(s.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /** Returns {@code bytes} in hexadecimal. */
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+}
@@ -9,6 +9,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.TypeElement;
@@ -34,6 +35,7 @@ import org.checkerframework.framework.util.AtmCombo;
 import org.checkerframework.framework.util.PluginUtil;
 import org.checkerframework.framework.util.TypeArgumentMapper;
 import org.checkerframework.javacutil.AnnotationUtils;
+import org.checkerframework.javacutil.CollectionUtils;
 import org.checkerframework.javacutil.ErrorReporter;
 import org.checkerframework.javacutil.Pair;
 import org.checkerframework.javacutil.TypesUtils;
@@ -63,6 +65,17 @@ public class DefaultTypeHierarchy extends AbstractAtmComboVisitor<Boolean, Visit
     protected final boolean ignoreRawTypes;
     protected final boolean invariantArrayComponents;
 
+    /** The maximum number of entries in {@link #annoSubtypeCache}. */
+    private static final int ANNO_SUBTYPE_CACHE_SIZE = 500;
+
+    /**
+     * Memoized results of {@code qualifierHierarchy.isSubtype} for pairs of non-null annotations,
+     * or null if the {@code -AatfDoNotCache} command-line option is given. A type hierarchy
+     * compares the same few qualifiers over and over, and some qualifier hierarchies, such as
+     * those whose qualifiers have arguments, compare qualifiers slowly.
+     */
+    private final Map<Pair<AnnotationMirror, AnnotationMirror>, Boolean> annoSubtypeCache;
+
     // TODO: Incorporate feedback from David/Suzanne
     // IMPORTANT_NOTE:
 
@@ -135,6 +148,12 @@ public class DefaultTypeHierarchy extends AbstractAtmComboVisitor<Boolean, Visit
 
         this.ignoreRawTypes = ignoreRawTypes;
         this.invariantArrayComponents = invariantArrayComponents;
+
+        if (checker.getCheckerOptions().atfDoNotCache) {
+            this.annoSubtypeCache = null;
+        } else {
+            this.annoSubtypeCache = CollectionUtils.createLRUCache(ANNO_SUBTYPE_CACHE_SIZE);
+        }
     }
 
     public DefaultRawnessComparer createRawnessComparer() {
@@ -288,7 +307,16 @@ public class DefaultTypeHierarchy extends AbstractAtmComboVisitor<Boolean, Visit
             return true;
         }
 
-        return qualifierHierarchy.isSubtype(subtypeAnno, supertypeAnno);
+        if (annoSubtypeCache == null || subtypeAnno == null || supertypeAnno == null) {
+            return qualifierHierarchy.isSubtype(subtypeAnno, supertypeAnno);
+        }
+        Pair<AnnotationMirror, AnnotationMirror> key = Pair.of(subtypeAnno, supertypeAnno);
+        Boolean result = annoSubtypeCache.get(key);
+        if (result == null) {
+            result = qualifierHierarchy.isSubtype(subtypeAnno, supertypeAnno);
+            annoSubtypeCache.put(key, result);
+        }
+        return result;
     }
 
     /**
@@ -1,21 +1,28 @@
 package org.checkerframework.framework.type;
 
+import com.sun.source.tree.AssignmentTree;
 import com.sun.source.tree.BlockTree;
 import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionStatementTree;
 import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
 import com.sun.source.tree.LambdaExpressionTree;
 import com.sun.source.tree.MemberReferenceTree;
+import com.sun.source.tree.MemberSelectTree;
 import com.sun.source.tree.MethodInvocationTree;
 import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.ModifiersTree;
 import com.sun.source.tree.NewClassTree;
 import com.sun.source.tree.ReturnTree;
+import com.sun.source.tree.StatementTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.Tree.Kind;
 import com.sun.source.tree.UnaryTree;
 import com.sun.source.tree.VariableTree;
 import com.sun.source.util.TreePath;
+import java.io.File;
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -32,6 +39,8 @@ import java.util.Queue;
 import java.util.Set;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
@@ -40,6 +49,8 @@ import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.dataflow.analysis.Analysis;
+import org.checkerframework.dataflow.analysis.Analysis.WideningStrategy;
 import org.checkerframework.dataflow.analysis.AnalysisResult;
 import org.checkerframework.dataflow.analysis.FlowExpressions;
 import org.checkerframework.dataflow.analysis.FlowExpressions.FieldAccess;
@@ -90,6 +101,8 @@ import org.checkerframework.framework.type.typeannotator.ListTypeAnnotator;
 import org.checkerframework.framework.type.typeannotator.PropagationTypeAnnotator;
 import org.checkerframework.framework.type.typeannotator.TypeAnnotator;
 import org.checkerframework.framework.util.AnnotatedTypes;
+import org.checkerframework.framework.util.CheckerStatistics;
+import org.checkerframework.framework.util.ContractsUtils;
 import org.checkerframework.framework.util.FlowExpressionParseUtil;
 import org.checkerframework.framework.util.FlowExpressionParseUtil.FlowExpressionParseException;
 import org.checkerframework.framework.util.QualifierPolymorphism;
@@ -100,6 +113,7 @@ import org.checkerframework.framework.util.typeinference.TypeArgInferenceUtil;
 import org.checkerframework.javacutil.AnnotationBuilder;
 import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.CollectionUtils;
+import org.checkerframework.javacutil.ElementUtils;
 import org.checkerframework.javacutil.ErrorReporter;
 import org.checkerframework.javacutil.Pair;
 import org.checkerframework.javacutil.TreeUtils;
@@ -178,6 +192,65 @@ public abstract class GenericAnnotatedTypeFactory<
                     IdentityHashMap<Node, TransferResult<Value, Store>>>
             flowResultAnalysisCaches;
 
+    /**
+     * The number of worklist iterations after which the analysis of a single method degrades, or
+     * -1 if unbounded. Set by the {@code -AflowBudgetIterations} command-line option.
+     *
+     * @see org.checkerframework.dataflow.analysis.Analysis#setBudget(int, long)
+     */
+    private final int flowBudgetIterations;
+
+    /**
+     * The wall-clock milliseconds after which the analysis of a single method degrades, or -1 if
+     * unbounded. Set by the {@code -AflowBudgetMillis} command-line option.
+     *
+     * @see org.checkerframework.dataflow.analysis.Analysis#setBudget(int, long)
+     */
+    private final long flowBudgetMillis;
+
+    /**
+     * Where the analysis of a method widens. Set by the {@code -AflowWidening} command-line option.
+     *
+     * @see org.checkerframework.dataflow.analysis.Analysis#setWidening(WideningStrategy, int)
+     */
+    private final WideningStrategy flowWideningStrategy;
+
+    /**
+     * The number of narrowing rounds after the analysis of a method reaches its fix-point. Set by
+     * the {@code -AflowWidening} command-line option.
+     *
+     * @see org.checkerframework.dataflow.analysis.Analysis#setWidening(WideningStrategy, int)
+     */
+    private final int flowNarrowingIterations;
+
+    /**
+     * Whether methods are analyzed on demand rather than when their class is analyzed. Set by the
+     * {@code -AlazyFlow} command-line option.
+     *
+     * @see #preProcessMethodTree(MethodTree)
+     */
+    private final boolean lazyFlow;
+
+    /**
+     * The analysis and transfer function classes of the checker, by kind, as found by {@link
+     * #findFlowClass(String)}. A kind maps to null if the checker has no such class.
+     */
+    private final Map<String, Class<?>> flowClasses = new HashMap<>();
+
+    /**
+     * The methods that were checked without problems in earlier runs, or null if the {@code
+     * -AincrementalDir} command-line option is not given.
+     */
+    private final CheckedMethodCache checkedMethodCache;
+
+    /**
+     * The methods of the current compilation unit for which a warning or error was reported while
+     * they, or the lambda expressions within them, were analyzed. Such a method is never recorded
+     * as checked without problems. Null if the {@code -AincrementalDir} command-line option is not
+     * given.
+     */
+    private final Set<MethodTree> methodsWithFlowMessages;
+
     /**
      * Creates a type factory for checking the given compilation unit with respect to the given
      * annotation.
@@ -197,12 +270,38 @@ public abstract class GenericAnnotatedTypeFactory<
         this.regularExitStores = null;
         this.methodInvocationStores = null;
         this.returnStatementStores = null;
+        this.deferredMethods = null;
 
         this.initializationStore = null;
         this.initializationStaticStore = null;
 
         this.cfgVisualizer = createCFGVisualizer();
 
+        this.flowBudgetIterations = checker.getCheckerOptions().flowBudgetIterations;
+        this.flowBudgetMillis = checker.getCheckerOptions().flowBudgetMillis;
+        this.flowWideningStrategy =
+                checker.getCheckerOptions().flowWideningAtLoopHeads
+                        ? WideningStrategy.LOOP_HEADS
+                        : WideningStrategy.ALL_BLOCKS;
+        this.flowNarrowingIterations = checker.getCheckerOptions().flowNarrowing ? 1 : 0;
+        this.lazyFlow = checker.hasOption("lazyFlow");
+
+        String incrementalDir = checker.getOption("incrementalDir");
+        if (incrementalDir != null
+                && !checker.hasOption("infer")
+                && !checker.hasOption("flowdotdir")
+                && !checker.hasOption("cfgviz")) {
+            this.checkedMethodCache =
+                    new CheckedMethodCache(
+                            new File(incrementalDir, checker.getClass().getName() + ".checked"),
+                            checker);
+            this.methodsWithFlowMessages =
+                    Collections.newSetFromMap(new IdentityHashMap<MethodTree, Boolean>());
+        } else {
+            this.checkedMethodCache = null;
+            this.methodsWithFlowMessages = null;
+        }
+
         if (shouldCache) {
             int cacheSize = getCacheSize();
             flowResultAnalysisCaches = CollectionUtils.createLRUCache(cacheSize);
@@ -245,6 +344,23 @@ public abstract class GenericAnnotatedTypeFactory<
         }
     }
 
+    /**
+     * Performs flow-sensitive type refinement on {@code methodTree} if its analysis was deferred
+     * by the {@code -AlazyFlow} command-line option. Methods whose analysis was skipped because
+     * dataflow cannot refine their types are not analyzed.
+     *
+     * @param methodTree tree on which to perform flow-sensitive type refinement
+     */
+    @Override
+    public void preProcessMethodTree(MethodTree methodTree) {
+        if (this.everUseFlow && deferredMethods != null) {
+            DeferredMethod deferred = deferredMethods.get(methodTree);
+            if (deferred != null && !deferred.trivial) {
+                analyzeDeferredMethod(methodTree);
+            }
+        }
+    }
+
     /**
      * Creates a type factory for checking the given compilation unit with respect to the given
      * annotation.
@@ -264,12 +380,94 @@ public abstract class GenericAnnotatedTypeFactory<
         this.regularExitStores = null;
         this.methodInvocationStores = null;
         this.returnStatementStores = null;
+        this.deferredMethods = null;
         this.initializationStore = null;
         this.initializationStaticStore = null;
 
         if (shouldCache) {
             this.flowResultAnalysisCaches.clear();
         }
+        if (checkedMethodCache != null) {
+            checkedMethodCache.clearFingerprints();
+            methodsWithFlowMessages.clear();
+        }
+    }
+
+    /**
+     * Returns true if {@code method} was checked without problems in an earlier run, and neither
+     * it nor anything its checking depends on has changed since, so that it need not be analyzed
+     * or checked again. Always false unless the {@code -AincrementalDir} command-line option is
+     * given.
+     *
+     * @param method a method
+     * @return true if {@code method} need not be checked again
+     * @see CheckedMethodCache
+     */
+    public boolean isUnchangedSinceLastRun(MethodTree method) {
+        return checkedMethodCache != null && checkedMethodCache.isUnchanged(method, this);
+    }
+
+    /**
+     * Records whether the checking of {@code method} reported a warning or error, for use by the
+     * next run. Does nothing unless the {@code -AincrementalDir} command-line option is given.
+     *
+     * <p>A method for which a warning or error was reported while it was analyzed is never
+     * recorded as checked without problems, even if {@code clean} is true: its flow analysis may
+     * have run before the visitor reached it.
+     *
+     * @param method a method that was checked
+     * @param clean true if no warning or error was reported within {@code method}
+     */
+    public void recordCheckedMethod(MethodTree method, boolean clean) {
+        if (checkedMethodCache != null) {
+            checkedMethodCache.recordChecked(
+                    method, clean && !methodsWithFlowMessages.contains(method), this);
+        }
+    }
+
+    /**
+     * Records that a warning or error was reported while {@code ast} was analyzed, so that the
+     * method that contains it is not considered to be checked without problems.
+     *
+     * @param ast the method or lambda expression that was analyzed
+     */
+    private void recordFlowMessages(UnderlyingAST ast) {
+        MethodTree method;
+        switch (ast.getKind()) {
+            case METHOD:
+                method = ((CFGMethod) ast).getMethod();
+                break;
+            case LAMBDA:
+                method = TreeUtils.enclosingMethod(getPath(((CFGLambda) ast).getLambdaTree()));
+                break;
+            default:
+                // Initializers are checked in every run.
+                return;
+        }
+        if (method != null) {
+            methodsWithFlowMessages.add(method);
+            // The method may not be checked again in this run, if it was analyzed on demand.
+            checkedMethodCache.recordChecked(method, false, this);
+        }
+    }
+
+    /**
+     * Writes the methods that were checked without problems to the directory given by the {@code
+     * -AincrementalDir} command-line option, if it was given. Called by {@link
+     * BaseTypeChecker#typeProcessingFinished()}, even if errors were reported.
+     */
+    public void writeCheckedMethodCache() {
+        if (checkedMethodCache == null) {
+            return;
+        }
+        try {
+            checkedMethodCache.write();
+        } catch (IOException e) {
+            checker.message(
+                    javax.tools.Diagnostic.Kind.WARNING,
+                    "Could not write the incremental checking cache: %s",
+                    e.getMessage());
+        }
     }
 
     // **********************************************************************
@@ -378,24 +576,14 @@ public abstract class GenericAnnotatedTypeFactory<
     @SuppressWarnings({"unchecked", "rawtypes"})
     protected FlowAnalysis createFlowAnalysis(List<Pair<VariableElement, Value>> fieldValues) {
 
-        // Try to reflectively load the visitor.
-        Class<?> checkerClass = checker.getClass();
-
-        while (checkerClass != BaseTypeChecker.class) {
-            final String classToLoad =
-                    checkerClass
-                            .getName()
-                            .replace("Checker", "Analysis")
-                            .replace("Subchecker", "Analysis");
-            FlowAnalysis result =
+        // Try to reflectively load the analysis.
+        Class<?> analysisClass = findFlowClass("Analysis");
+        if (analysisClass != null) {
+            return (FlowAnalysis)
                     BaseTypeChecker.invokeConstructorFor(
-                            classToLoad,
+                            analysisClass,
                             new Class<?>[] {BaseTypeChecker.class, this.getClass(), List.class},
                             new Object[] {checker, this, fieldValues});
-            if (result != null) {
-                return result;
-            }
-            checkerClass = checkerClass.getSuperclass();
         }
 
         // If an analysis couldn't be loaded reflectively, return the
@@ -408,6 +596,36 @@ public abstract class GenericAnnotatedTypeFactory<
         return (FlowAnalysis) new CFAnalysis(checker, (GenericAnnotatedTypeFactory) this, tmp);
     }
 
+    /**
+     * Returns the class that follows the checker naming convention for {@code kind}: the class
+     * whose name is that of the checker, or of one of its superclasses, with "Checker" replaced by
+     * {@code kind}. The result is cached, because an analysis and a transfer function are created
+     * for every method, and a class loader searches its whole class path again for a class that
+     * does not exist.
+     *
+     * @param kind "Analysis" or "Transfer"
+     * @return the class, or null if there is none
+     */
+    private Class<?> findFlowClass(String kind) {
+        if (flowClasses.containsKey(kind)) {
+            return flowClasses.get(kind);
+        }
+        Class<?> result = null;
+        Class<?> checkerClass = checker.getClass();
+        while (result == null && checkerClass != BaseTypeChecker.class) {
+            final String classToLoad =
+                    checkerClass.getName().replace("Checker", kind).replace("Subchecker", kind);
+            try {
+                result = Class.forName(classToLoad);
+            } catch (Exception e) {
+                // no class is found, try the superclass
+            }
+            checkerClass = checkerClass.getSuperclass();
+        }
+        flowClasses.put(kind, result);
+        return result;
+    }
+
     /**
      * Returns the appropriate transfer function that is used for the org.checkerframework.dataflow
      * analysis.
@@ -425,24 +643,17 @@ public abstract class GenericAnnotatedTypeFactory<
     public TransferFunction createFlowTransferFunction(
             CFAbstractAnalysis<Value, Store, TransferFunction> analysis) {
 
-        // Try to reflectively load the visitor.
-        Class<?> checkerClass = checker.getClass();
-
-        while (checkerClass != BaseTypeChecker.class) {
-            final String classToLoad =
-                    checkerClass
-                            .getName()
-                            .replace("Checker", "Transfer")
-                            .replace("Subchecker", "Transfer");
+        // Try to reflectively load the transfer function.
+        Class<?> transferClass = findFlowClass("Transfer");
+        if (transferClass != null) {
+            @SuppressWarnings("unchecked")
             TransferFunction result =
-                    BaseTypeChecker.invokeConstructorFor(
-                            classToLoad,
-                            new Class<?>[] {analysis.getClass()},
-                            new Object[] {analysis});
-            if (result != null) {
-                return result;
-            }
-            checkerClass = checkerClass.getSuperclass();
+                    (TransferFunction)
+                            BaseTypeChecker.invokeConstructorFor(
+                                    transferClass,
+                                    new Class<?>[] {analysis.getClass()},
+                                    new Object[] {analysis});
+            return result;
         }
 
         // If a transfer function couldn't be loaded reflectively, return the
@@ -823,7 +1034,8 @@ public abstract class GenericAnnotatedTypeFactory<
      * </pre>
      *
      * Note that flowResult contains analysis results for Trees from multiple classes which are
-     * produced by multiple calls to performFlowAnalysis.
+     * produced by multiple calls to performFlowAnalysis. The results are released when the
+     * top-level class that contains them has been visited; see {@link #releaseFlowResults()}.
      */
     protected AnalysisResult<Value, Store> flowResult;
 
@@ -843,6 +1055,48 @@ public abstract class GenericAnnotatedTypeFactory<
      */
     protected IdentityHashMap<MethodInvocationTree, Store> methodInvocationStores;
 
+    /**
+     * Methods whose flow analysis was deferred by {@link #performFlowAnalysis(ClassTree)}, either
+     * because dataflow cannot refine the type of any of their expressions (see {@link
+     * #canSkipFlowAnalysis(MethodTree)}) or because of the {@code -AlazyFlow} command-line option.
+     * A method is analyzed on demand, and removed from this map, if a store within it is
+     * requested or, for non-trivial methods, when the visitor reaches it.
+     */
+    private IdentityHashMap<MethodTree, DeferredMethod> deferredMethods;
+
+    /** The information needed to analyze a method whose flow analysis was skipped. */
+    private class DeferredMethod {
+        /** The method to analyze. */
+        final CFGMethod ast;
+        /** The abstract values for all fields of the class that declares the method. */
+        final List<Pair<VariableElement, Value>> fieldValues;
+        /** The outermost class that was being analyzed when the method was deferred. */
+        final ClassTree currentClass;
+        /** Whether the analysis was skipped because dataflow cannot refine the method's types. */
+        final boolean trivial;
+        /** Whether the method is a constructor, which starts from {@link #initializationStore}. */
+        final boolean isConstructor;
+        /**
+         * The store after the field initializers and initializer blocks of the class that declares
+         * the method, or null if there is none.
+         */
+        final Store initializationStore;
+
+        DeferredMethod(
+                CFGMethod ast,
+                List<Pair<VariableElement, Value>> fieldValues,
+                ClassTree currentClass,
+                boolean trivial,
+                Store initializationStore) {
+            this.ast = ast;
+            this.fieldValues = fieldValues;
+            this.currentClass = currentClass;
+            this.trivial = trivial;
+            this.isConstructor = TreeUtils.isConstructor(ast.getMethod());
+            this.initializationStore = initializationStore;
+        }
+    }
+
     /**
      * Returns the regular exit store for a method or another code block (such as static
      * initializers).
@@ -851,12 +1105,16 @@ public abstract class GenericAnnotatedTypeFactory<
      *     method cannot exit through the regular exit block).
      */
     public @Nullable Store getRegularExitStore(Tree t) {
+        if (t.getKind() == Kind.METHOD) {
+            analyzeDeferredMethod((MethodTree) t);
+        }
         return regularExitStores.get(t);
     }
 
     /** @return all return node and store pairs for a given method */
     public List<Pair<ReturnNode, TransferResult<Value, Store>>> getReturnStatementStores(
             MethodTree methodTree) {
+        analyzeDeferredMethod(methodTree);
         assert returnStatementStores.containsKey(methodTree);
         return returnStatementStores.get(methodTree);
     }
@@ -864,6 +1122,7 @@ public abstract class GenericAnnotatedTypeFactory<
     /** @return the store immediately before a given {@link Tree}. */
     public Store getStoreBefore(Tree tree) {
         if (analyses.isEmpty()) {
+            analyzeDeferredMethodEnclosing(tree);
             return flowResult.getStoreBefore(tree);
         }
         FlowAnalysis analysis = analyses.getFirst();
@@ -912,6 +1171,7 @@ public abstract class GenericAnnotatedTypeFactory<
     /** @return the store immediately after a given {@link Tree}. */
     public Store getStoreAfter(Tree tree) {
         if (analyses.isEmpty()) {
+            analyzeDeferredMethodEnclosing(tree);
             return flowResult.getStoreAfter(tree);
         }
         FlowAnalysis analysis = analyses.getFirst();
@@ -947,6 +1207,7 @@ public abstract class GenericAnnotatedTypeFactory<
      * @return the {@link Node}s for a given {@link Tree}.
      */
     public Set<Node> getNodesForTree(Tree tree) {
+        analyzeDeferredMethodEnclosing(tree);
         return flowResult.getNodesForTree(tree);
     }
 
@@ -974,6 +1235,37 @@ public abstract class GenericAnnotatedTypeFactory<
         return null;
     }
 
+    /**
+     * Releases the results of all flow analyses performed so far. This is called once every
+     * checker, including the checkers that depend on this one, has finished visiting a top-level
+     * class, because no later top-level class reads the stores or values of an earlier one. The
+     * released classes remain marked as scanned, so they are not analyzed again.
+     */
+    public void releaseFlowResults() {
+        if (flowResult == null || !analyses.isEmpty()) {
+            return;
+        }
+        regularExitStores = new IdentityHashMap<>();
+        returnStatementStores = new IdentityHashMap<>();
+        deferredMethods = new IdentityHashMap<>();
+        methodInvocationStores = null;
+        flowResult = new AnalysisResult<>(flowResultAnalysisCaches);
+        initializationStore = null;
+        initializationStaticStore = null;
+        clearTypeArgumentsCache();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>While a dataflow analysis is running, the types of expressions change from one iteration
+     * to the next, so type arguments are not cached.
+     */
+    @Override
+    protected boolean canCacheTypeArguments() {
+        return analyses.isEmpty();
+    }
+
     /** @return the value of effectively final local variables */
     public HashMap<Element, Value> getFinalLocalValues() {
         return flowResult.getFinalLocalValues();
@@ -987,6 +1279,7 @@ public abstract class GenericAnnotatedTypeFactory<
         if (flowResult == null) {
             regularExitStores = new IdentityHashMap<>();
             returnStatementStores = new IdentityHashMap<>();
+            deferredMethods = new IdentityHashMap<>();
             flowResult = new AnalysisResult<>(flowResultAnalysisCaches);
         }
 
@@ -1100,6 +1393,19 @@ public abstract class GenericAnnotatedTypeFactory<
                 // TODO: at this point, we don't have any information about
                 // fields of superclasses.
                 for (CFGMethod met : methods) {
+                    boolean trivial =
+                            canSkipFlowAnalysis(met.getMethod())
+                                    || isUnchangedSinceLastRun(met.getMethod());
+                    if (trivial || lazyFlow) {
+                        deferredMethods.put(
+                                met.getMethod(),
+                                new DeferredMethod(
+                                        met, fieldValues, classTree, trivial, initializationStore));
+                        statistics.incrementCounter(
+                                trivial ? "dataflow.skippedMethods" : "dataflow.deferredMethods",
+                                1);
+                        continue;
+                    }
                     analyze(
                             queue,
                             lambdaQueue,
@@ -1145,6 +1451,232 @@ public abstract class GenericAnnotatedTypeFactory<
         }
     }
 
+    /**
+     * Returns true if the flow analysis of {@code method} can be skipped, because dataflow cannot
+     * refine the type of any expression in its body beyond the type that the type factory computes
+     * without dataflow.
+     *
+     * <p>This holds for straight-line methods such as getters and setters: the body consists of at
+     * most one statement, which is a {@code return} or an assignment to a field, and every
+     * expression in it is a literal, a parameter, {@code this}, or a field of {@code this} or of a
+     * class. Constructors, synchronized methods, methods with contracts, and fields whose
+     * initializer seeds the initial store are excluded. No method is skipped during whole-program
+     * inference, which relies on the transfer function seeing every method, or when CFGs are
+     * visualized.
+     *
+     * <p>The stores of a skipped method are still available: a method is analyzed on demand if
+     * any of its stores is requested. Subclasses whose transfer functions refine the types of
+     * such trivial expressions should override this method to return false.
+     *
+     * @param method a method with a body
+     * @return true if the flow analysis of {@code method} can be skipped
+     */
+    protected boolean canSkipFlowAnalysis(MethodTree method) {
+        if (getWholeProgramInference() != null
+                || checker.hasOption("flowdotdir")
+                || checker.hasOption("cfgviz")
+                || TreeUtils.isConstructor(method)
+                || method.getModifiers().getFlags().contains(Modifier.SYNCHRONIZED)) {
+            return false;
+        }
+        List<? extends StatementTree> statements = method.getBody().getStatements();
+        if (statements.size() > 1) {
+            return false;
+        }
+        if (statements.size() == 1) {
+            StatementTree statement = statements.get(0);
+            switch (statement.getKind()) {
+                case RETURN:
+                    ExpressionTree result = ((ReturnTree) statement).getExpression();
+                    if (result != null && !isTrivialExpression(result)) {
+                        return false;
+                    }
+                    break;
+                case EXPRESSION_STATEMENT:
+                    ExpressionTree expr = ((ExpressionStatementTree) statement).getExpression();
+                    if (expr.getKind() != Kind.ASSIGNMENT) {
+                        return false;
+                    }
+                    AssignmentTree assignment = (AssignmentTree) expr;
+                    Element target = TreeUtils.elementFromUse(assignment.getVariable());
+                    if (target == null
+                            || !target.getKind().isField()
+                            || !isTrivialFieldAccess(assignment.getVariable())
+                            || !isTrivialExpression(assignment.getExpression())) {
+                        return false;
+                    }
+                    break;
+                default:
+                    return false;
+            }
+        }
+        ExecutableElement methodElt = TreeUtils.elementFromDeclaration(method);
+        return ContractsUtils.getInstance(this).getContracts(methodElt).isEmpty();
+    }
+
+    /**
+     * Returns true if {@code tree} is a literal, a parameter, {@code this}, or a field that {@link
+     * #isTrivialFieldAccess(ExpressionTree)} accepts, possibly parenthesized.
+     */
+    private boolean isTrivialExpression(ExpressionTree tree) {
+        tree = TreeUtils.skipParens(tree);
+        switch (tree.getKind()) {
+            case BOOLEAN_LITERAL:
+            case CHAR_LITERAL:
+            case DOUBLE_LITERAL:
+            case FLOAT_LITERAL:
+            case INT_LITERAL:
+            case LONG_LITERAL:
+            case NULL_LITERAL:
+            case STRING_LITERAL:
+                return true;
+            case IDENTIFIER:
+                if (((IdentifierTree) tree).getName().contentEquals("this")) {
+                    return true;
+                }
+                Element element = TreeUtils.elementFromUse(tree);
+                if (element == null) {
+                    return false;
+                }
+                if (element.getKind() == ElementKind.PARAMETER) {
+                    return true;
+                }
+                return element.getKind().isField() && isTrivialFieldRead(tree);
+            case MEMBER_SELECT:
+                return isTrivialFieldAccess(tree) && isTrivialFieldRead(tree);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns true if {@code tree} is a field of {@code this} or of a class, accessed either by
+     * its simple name or as {@code this.f} or {@code C.f}.
+     */
+    private boolean isTrivialFieldAccess(ExpressionTree tree) {
+        if (tree.getKind() == Kind.IDENTIFIER) {
+            return true;
+        }
+        if (tree.getKind() != Kind.MEMBER_SELECT || TreeUtils.isArrayLengthAccess(tree)) {
+            return false;
+        }
+        Element field = TreeUtils.elementFromUse(tree);
+        if (field == null || !field.getKind().isField()) {
+            return false;
+        }
+        ExpressionTree receiver = ((MemberSelectTree) tree).getExpression();
+        if (receiver.getKind() == Kind.IDENTIFIER
+                && ((IdentifierTree) receiver).getName().contentEquals("this")) {
+            return true;
+        }
+        Element receiverElt = TreeUtils.elementFromUse(receiver);
+        return receiverElt != null
+                && (receiverElt.getKind().isClass() || receiverElt.getKind().isInterface());
+    }
+
+    /**
+     * Returns false if reading the field {@code tree} can yield a value that is more precise than
+     * its declared type, because the field is final and has an initializer.
+     */
+    private boolean isTrivialFieldRead(ExpressionTree tree) {
+        Element field = TreeUtils.elementFromUse(tree);
+        if (!ElementUtils.isFinal(field)) {
+            return true;
+        }
+        Tree decl = declarationFromElement(field);
+        return decl == null
+                || (decl.getKind() == Kind.VARIABLE
+                        && ((VariableTree) decl).getInitializer() == null);
+    }
+
+    /**
+     * Analyzes {@code method}, the lambda expressions within it, and the classes declared within
+     * it, if its flow analysis was deferred by {@link #performFlowAnalysis(ClassTree)}. A
+     * constructor starts from the store after the initializers of its class, as it would have
+     * during the analysis of the class.
+     *
+     * @param method a method
+     */
+    private void analyzeDeferredMethod(MethodTree method) {
+        if (deferredMethods == null || !analyses.isEmpty()) {
+            return;
+        }
+        DeferredMethod deferred = deferredMethods.remove(method);
+        if (deferred == null) {
+            return;
+        }
+        ClassTree ct = deferred.ast.getClassTree();
+        AnnotatedDeclaredType preClassType = visitorState.getClassType();
+        ClassTree preClassTree = visitorState.getClassTree();
+        AnnotatedDeclaredType preAMT = visitorState.getMethodReceiver();
+        MethodTree preMT = visitorState.getMethodTree();
+        Store preInitializationStore = initializationStore;
+        Store preInitializationStaticStore = initializationStaticStore;
+
+        visitorState.setClassType(getAnnotatedType(ct));
+        visitorState.setClassTree(ct);
+        visitorState.setMethodReceiver(null);
+        visitorState.setMethodTree(null);
+        initializationStore = deferred.initializationStore;
+
+        Queue<ClassTree> classQueue = new ArrayDeque<>();
+        Queue<Pair<LambdaExpressionTree, Store>> lambdaQueue = new ArrayDeque<>();
+        try {
+            analyze(
+                    classQueue,
+                    lambdaQueue,
+                    deferred.ast,
+                    deferred.fieldValues,
+                    deferred.currentClass,
+                    deferred.isConstructor,
+                    false,
+                    false);
+            while (!lambdaQueue.isEmpty()) {
+                Pair<LambdaExpressionTree, Store> lambdaPair = lambdaQueue.poll();
+                analyze(
+                        classQueue,
+                        lambdaQueue,
+                        new CFGLambda(lambdaPair.first),
+                        deferred.fieldValues,
+                        deferred.currentClass,
+                        false,
+                        false,
+                        false,
+                        lambdaPair.second);
+            }
+        } finally {
+            visitorState.setClassType(preClassType);
+            visitorState.setClassTree(preClassTree);
+            visitorState.setMethodReceiver(preAMT);
+            visitorState.setMethodTree(preMT);
+            initializationStore = preInitializationStore;
+            initializationStaticStore = preInitializationStaticStore;
+        }
+
+        // The local and anonymous classes of the method.
+        while (!classQueue.isEmpty()) {
+            checkAndPerformFlowAnalysis(classQueue.remove());
+            initializationStore = preInitializationStore;
+            initializationStaticStore = preInitializationStaticStore;
+        }
+    }
+
+    /**
+     * Analyzes the method that encloses {@code tree} if its flow analysis was skipped by {@link
+     * #performFlowAnalysis(ClassTree)}.
+     *
+     * @param tree a tree
+     */
+    private void analyzeDeferredMethodEnclosing(Tree tree) {
+        if (deferredMethods == null || deferredMethods.isEmpty()) {
+            return;
+        }
+        MethodTree method = TreeUtils.enclosingMethod(getPath(tree));
+        if (method != null) {
+            analyzeDeferredMethod(method);
+        }
+    }
+
     // Maintain a deque of analyses to accommodate nested classes.
     protected final Deque<FlowAnalysis> analyses;
     // Maintain for every class the store that is used when we analyze initialization code
@@ -1192,9 +1724,20 @@ public abstract class GenericAnnotatedTypeFactory<
             boolean updateInitializationStore,
             boolean isStatic,
             Store lambdaStore) {
+        int messageCount = checker.getMessageCount();
+        CheckerStatistics.Timer cfgTimer =
+                statistics.startTimer(CheckerStatistics.Phase.CFG_CONSTRUCTION);
         CFGBuilder builder = new CFCFGBuilder(checker, this);
-        ControlFlowGraph cfg = builder.run(root, processingEnv, ast);
+        ControlFlowGraph cfg;
+        long cfgNanos;
+        try {
+            cfg = builder.run(root, processingEnv, ast);
+        } finally {
+            cfgNanos = cfgTimer.stop();
+        }
         FlowAnalysis newAnalysis = createFlowAnalysis(fieldValues);
+        newAnalysis.setBudget(flowBudgetIterations, flowBudgetMillis);
+        newAnalysis.setWidening(flowWideningStrategy, flowNarrowingIterations);
         TransferFunction transfer = newAnalysis.getTransferFunction();
         if (emptyStore == null) {
             emptyStore = newAnalysis.createEmptyStore(transfer.usesSequentialSemantics());
@@ -1213,11 +1756,35 @@ public abstract class GenericAnnotatedTypeFactory<
                 }
             }
         }
-        analyses.getFirst().performAnalysis(cfg);
+        CheckerStatistics.Timer dataflowTimer =
+                statistics.startTimer(CheckerStatistics.Phase.DATAFLOW);
+        long dataflowNanos;
+        try {
+            analyses.getFirst().performAnalysis(cfg);
+        } finally {
+            dataflowNanos = dataflowTimer.stop();
+        }
+        if (statistics.isEnabled()) {
+            recordAnalysisStatistics(ast, newAnalysis, cfgNanos + dataflowNanos);
+        }
+        if (newAnalysis.getDegradation() != Analysis.Degradation.NONE) {
+            checker.message(
+                    javax.tools.Diagnostic.Kind.NOTE,
+                    "Dataflow analysis of %s exceeded its budget (%d iterations, %d ms); "
+                            + "precision was reduced by %s",
+                    describe(ast),
+                    newAnalysis.getWorklistIterations(),
+                    newAnalysis.getAnalysisMillis(),
+                    newAnalysis.getDegradation());
+        }
         AnalysisResult<Value, Store> result = analyses.getFirst().getResult();
+        if (checkedMethodCache != null && checker.getMessageCount() != messageCount) {
+            recordFlowMessages(ast);
+        }
 
         // store result
         flowResult.combine(result);
+        clearTypeArgumentsCache();
         if (ast.getKind() == UnderlyingAST.Kind.METHOD) {
             // store exit store (for checking postconditions)
             CFGMethod mast = (CFGMethod) ast;
@@ -1265,6 +1832,42 @@ public abstract class GenericAnnotatedTypeFactory<
         }
     }
 
+    /**
+     * Adds the counters of a finished analysis of {@code ast} to the {@link #statistics}.
+     *
+     * @param ast the AST that was analyzed
+     * @param analysis the finished analysis
+     * @param nanos the wall-clock nanoseconds spent constructing the CFG and analyzing it
+     */
+    private void recordAnalysisStatistics(UnderlyingAST ast, FlowAnalysis analysis, long nanos) {
+        statistics.incrementCounter("dataflow.analyses", 1);
+        statistics.incrementCounter(
+                "dataflow.worklistIterations", analysis.getWorklistIterations());
+        statistics.incrementCounter("dataflow.wideningEvents", analysis.getWideningCount());
+        if (ast.getKind() == UnderlyingAST.Kind.METHOD) {
+            statistics.recordMethod(describe(ast), nanos);
+        }
+    }
+
+    /**
+     * Returns a human-readable description of {@code ast}, for use in diagnostics.
+     *
+     * @param ast an AST that is analyzed
+     * @return the fully-qualified method name for a method, and a generic description otherwise
+     */
+    private String describe(UnderlyingAST ast) {
+        switch (ast.getKind()) {
+            case METHOD:
+                ExecutableElement method =
+                        TreeUtils.elementFromDeclaration(((CFGMethod) ast).getMethod());
+                return ElementUtils.enclosingClass(method).getQualifiedName() + "." + method;
+            case LAMBDA:
+                return "a lambda expression in " + visitorState.getClassType().getUnderlyingType();
+            default:
+                return "an initializer in " + visitorState.getClassType().getUnderlyingType();
+        }
+    }
+
     /**
      * Handle the visualization of the CFG, by calling {@code visualizeCFG} on the first analysis.
      * This method gets invoked in {@code analyze} if on of the visualization options is provided.
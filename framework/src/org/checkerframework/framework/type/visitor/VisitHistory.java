@@ -1,10 +1,11 @@
 package org.checkerframework.framework.type.visitor;
 
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Set;
 import org.checkerframework.framework.type.AnnotatedTypeMirror;
 import org.checkerframework.framework.util.PluginUtil;
-import org.checkerframework.javacutil.Pair;
 
 /**
  * IMPORTANT: DO NOT USE VisitHistory FOR VISITORS THAT UPDATE AN ANNOTATED TYPE MIRROR'S
@@ -23,19 +24,28 @@ import org.checkerframework.javacutil.Pair;
  */
 public class VisitHistory {
 
-    private final Set<Pair<AnnotatedTypeMirror, AnnotatedTypeMirror>> visited;
+    private final Set<Visit> visited;
+
+    /**
+     * The hash codes of the types that have been passed to this history. {@link
+     * AnnotatedTypeMirror#hashCode()} traverses the whole type, so it is computed at most once per
+     * type; this is sound because the types are not modified while the history is in use.
+     */
+    private final Map<AnnotatedTypeMirror, Integer> hashCodes;
 
     public VisitHistory() {
         this.visited = new HashSet<>();
+        this.hashCodes = new IdentityHashMap<>();
     }
 
     public void clear() {
         visited.clear();
+        hashCodes.clear();
     }
 
     /** Add a visit for type1 and type2. */
     public void add(final AnnotatedTypeMirror type1, final AnnotatedTypeMirror type2) {
-        this.visited.add(Pair.of(type1, type2));
+        this.visited.add(new Visit(type1, type2));
     }
 
     /**
@@ -45,11 +55,69 @@ public class VisitHistory {
      * @return true if an equivalent pair has already been added to the history
      */
     public boolean contains(final AnnotatedTypeMirror type1, final AnnotatedTypeMirror type2) {
-        return this.visited.contains(Pair.of(type1, type2));
+        return this.visited.contains(new Visit(type1, type2));
     }
 
     @Override
     public String toString() {
         return "VisitHistory( " + PluginUtil.join(", ", visited) + " )";
     }
+
+    /** Returns the hash code of {@code type}, computing it only the first time. */
+    private int hashCodeOf(final AnnotatedTypeMirror type) {
+        if (type == null) {
+            return 0;
+        }
+        Integer hashCode = hashCodes.get(type);
+        if (hashCode == null) {
+            hashCode = type.hashCode();
+            hashCodes.put(type, hashCode);
+        }
+        return hashCode;
+    }
+
+    /**
+     * A pair of types whose hash code is computed once, from the cached hash codes of the types.
+     * Two visits are equal if their types are equal, as for {@code Pair<AnnotatedTypeMirror,
+     * AnnotatedTypeMirror>}.
+     */
+    private final class Visit {
+        private final AnnotatedTypeMirror type1;
+        private final AnnotatedTypeMirror type2;
+        private final int hashCode;
+
+        Visit(final AnnotatedTypeMirror type1, final AnnotatedTypeMirror type2) {
+            this.type1 = type1;
+            this.type2 = type2;
+            this.hashCode = 31 * hashCodeOf(type1) + hashCodeOf(type2);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Visit)) {
+                return false;
+            }
+            Visit other = (Visit) o;
+            return hashCode == other.hashCode
+                    && sameType(type1, other.type1)
+                    && sameType(type2, other.type2);
+        }
+
+        private boolean sameType(AnnotatedTypeMirror a, AnnotatedTypeMirror b) {
+            return a == b || (a != null && a.equals(b));
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return "(" + type1 + ", " + type2 + ")";
+        }
+    }
 }
@@ -0,0 +1,530 @@
+package org.checkerframework.framework.util;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects timing and counter statistics for a single checker. Statistics are only collected if
+ * the checker was invoked with the {@code -AperformanceStats=file} command-line option; otherwise
+ * all methods of this class return immediately.
+ *
+ * <p>The following information is collected:
+ *
+ * <ul>
+ *   <li>wall-clock and CPU time for every {@link Phase}. Phases may be nested, e.g. dataflow
+ *       analysis is triggered from within the visitor, so the time of a phase includes the time of
+ *       all phases nested within it.
+ *   <li>hits and misses of named caches, e.g. the caches of the {@link
+ *       org.checkerframework.framework.type.AnnotatedTypeFactory}.
+ *   <li>named counters, e.g. the number of worklist iterations and widening events of the
+ *       dataflow analysis.
+ *   <li>the accumulated time spent in each class and each method, of which the slowest {@link
+ *       #TOP_N} are reported.
+ * </ul>
+ *
+ * The statistics of a checker and all its subcheckers are written to a single file by {@link
+ * #write(String, List)}. If the file name ends in {@code .json}, the output is a JSON document;
+ * otherwise it is a CSV file with the columns {@code checker,category,name,count,value1,value2}.
+ */
+public class CheckerStatistics {
+
+    /** The phases of type-checking whose time is measured. */
+    public enum Phase {
+        STUB_PARSING("stub-parsing"),
+        QUALIFIER_HIERARCHY("qualifier-hierarchy"),
+        CFG_CONSTRUCTION("cfg-construction"),
+        DATAFLOW("dataflow"),
+        VISITOR("visitor"),
+        WPI_WRITE("wpi-write");
+
+        /** The name used for this phase in the output. */
+        public final String outputName;
+
+        Phase(String outputName) {
+            this.outputName = outputName;
+        }
+    }
+
+    /** The number of slowest classes and methods that are reported. */
+    public static final int TOP_N = 25;
+
+    /** A timer that does nothing; returned by {@link #startTimer} if statistics are disabled. */
+    private static final Timer DISABLED_TIMER = new Timer(null, null, 0, 0);
+
+    /** Used to measure the CPU time of the current thread. */
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+    /** The name of the checker whose statistics are collected. */
+    private final String checkerName;
+
+    /** Whether statistics are collected at all. */
+    private final boolean enabled;
+
+    /** Number of times each phase was entered, indexed by {@link Phase#ordinal()}. */
+    private final long[] phaseCounts = new long[Phase.values().length];
+
+    /** Wall-clock nanoseconds spent in each phase, indexed by {@link Phase#ordinal()}. */
+    private final long[] phaseWallNanos = new long[Phase.values().length];
+
+    /** CPU nanoseconds spent in each phase, indexed by {@link Phase#ordinal()}. */
+    private final long[] phaseCpuNanos = new long[Phase.values().length];
+
+    /** Hits and misses of each named cache. The value array is {hits, misses}. */
+    private final Map<String, long[]> cacheAccesses = new TreeMap<>();
+
+    /** Named counters. */
+    private final Map<String, Long> counters = new TreeMap<>();
+
+    /** Accumulated wall-clock nanoseconds spent in each class. */
+    private final Map<String, Long> classNanos = new HashMap<>();
+
+    /** Accumulated wall-clock nanoseconds spent in each method. */
+    private final Map<String, Long> methodNanos = new HashMap<>();
+
+    /**
+     * Creates a new statistics collector.
+     *
+     * @param checkerName the name of the checker whose statistics are collected
+     * @param enabled whether statistics should be collected
+     */
+    public CheckerStatistics(String checkerName, boolean enabled) {
+        this.checkerName = checkerName;
+        this.enabled = enabled;
+    }
+
+    /** @return true if statistics are being collected */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** @return the name of the checker whose statistics are collected */
+    public String getCheckerName() {
+        return checkerName;
+    }
+
+    /**
+     * Starts measuring the time of {@code phase}. The caller must call {@link Timer#stop()} on the
+     * result, usually in a {@code finally} block.
+     *
+     * @param phase the phase that is entered
+     * @return a running timer for {@code phase}
+     */
+    public Timer startTimer(Phase phase) {
+        if (!enabled) {
+            return DISABLED_TIMER;
+        }
+        return new Timer(this, phase, System.nanoTime(), currentThreadCpuTime());
+    }
+
+    /**
+     * Records a lookup in the cache {@code cacheName}.
+     *
+     * @param cacheName the name of the cache
+     * @param hit whether the lookup found a cached value
+     */
+    public void recordCacheAccess(String cacheName, boolean hit) {
+        if (!enabled) {
+            return;
+        }
+        long[] accesses = cacheAccesses.get(cacheName);
+        if (accesses == null) {
+            accesses = new long[2];
+            cacheAccesses.put(cacheName, accesses);
+        }
+        accesses[hit ? 0 : 1]++;
+    }
+
+    /**
+     * Adds {@code delta} to the counter {@code name}.
+     *
+     * @param name the name of the counter
+     * @param delta the amount to add
+     */
+    public void incrementCounter(String name, long delta) {
+        if (!enabled) {
+            return;
+        }
+        Long old = counters.get(name);
+        counters.put(name, old == null ? delta : old + delta);
+    }
+
+    /**
+     * Records that {@code nanos} wall-clock nanoseconds were spent processing the class {@code
+     * className}.
+     *
+     * @param className the fully-qualified name of the class
+     * @param nanos the wall-clock nanoseconds spent
+     */
+    public void recordClass(String className, long nanos) {
+        if (enabled) {
+            accumulate(classNanos, className, nanos);
+        }
+    }
+
+    /**
+     * Records that {@code nanos} wall-clock nanoseconds were spent processing the method {@code
+     * methodName}.
+     *
+     * @param methodName the fully-qualified name of the method
+     * @param nanos the wall-clock nanoseconds spent
+     */
+    public void recordMethod(String methodName, long nanos) {
+        if (enabled) {
+            accumulate(methodNanos, methodName, nanos);
+        }
+    }
+
+    /**
+     * Adds {@code nanos} to the value of {@code key} in {@code map}.
+     *
+     * @param map a map from names to nanoseconds
+     * @param key the name whose time to increase
+     * @param nanos the nanoseconds to add
+     */
+    private static void accumulate(Map<String, Long> map, String key, long nanos) {
+        Long old = map.get(key);
+        map.put(key, old == null ? nanos : old + nanos);
+    }
+
+    /**
+     * Returns the CPU time of the current thread.
+     *
+     * @return the CPU nanoseconds of the current thread, or 0 if the JVM cannot measure them
+     */
+    private static long currentThreadCpuTime() {
+        return THREAD_BEAN.isCurrentThreadCpuTimeSupported()
+                ? THREAD_BEAN.getCurrentThreadCpuTime()
+                : 0;
+    }
+
+    /** A running measurement of a single phase, as returned by {@link #startTimer}. */
+    public static class Timer {
+        /** The statistics that the time is added to, or null if statistics are disabled. */
+        private final CheckerStatistics statistics;
+
+        /** The measured phase. */
+        private final Phase phase;
+
+        /** The wall-clock time when the measurement started, from {@link System#nanoTime()}. */
+        private final long startWall;
+
+        /** The CPU time of the current thread when the measurement started. */
+        private final long startCpu;
+
+        /**
+         * Creates a running timer.
+         *
+         * @param statistics the statistics that the time is added to, or null
+         * @param phase the measured phase
+         * @param startWall the current wall-clock time
+         * @param startCpu the current CPU time of the current thread
+         */
+        private Timer(CheckerStatistics statistics, Phase phase, long startWall, long startCpu) {
+            this.statistics = statistics;
+            this.phase = phase;
+            this.startWall = startWall;
+            this.startCpu = startCpu;
+        }
+
+        /**
+         * Stops the measurement and adds the elapsed time to the phase.
+         *
+         * @return the elapsed wall-clock nanoseconds, or 0 if statistics are disabled
+         */
+        public long stop() {
+            if (statistics == null) {
+                return 0;
+            }
+            long wall = System.nanoTime() - startWall;
+            long cpu = currentThreadCpuTime() - startCpu;
+            int i = phase.ordinal();
+            statistics.phaseCounts[i]++;
+            statistics.phaseWallNanos[i] += wall;
+            statistics.phaseCpuNanos[i] += cpu;
+            return wall;
+        }
+    }
+
+    /**
+     * Returns the {@link #TOP_N} entries of {@code map} with the largest values, largest first.
+     */
+    private static List<Map.Entry<String, Long>> slowest(Map<String, Long> map) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(map.entrySet());
+        Collections.sort(
+                entries,
+                new Comparator<Map.Entry<String, Long>>() {
+                    @Override
+                    public int compare(Map.Entry<String, Long> e1, Map.Entry<String, Long> e2) {
+                        int byTime = Long.compare(e2.getValue(), e1.getValue());
+                        return byTime != 0 ? byTime : e1.getKey().compareTo(e2.getKey());
+                    }
+                });
+        return entries.size() > TOP_N ? entries.subList(0, TOP_N) : entries;
+    }
+
+    /**
+     * Writes the given statistics to {@code fileName}, replacing any existing content. The format
+     * is JSON if {@code fileName} ends in {@code .json}, and CSV otherwise.
+     *
+     * @param fileName the file to write
+     * @param allStatistics the statistics of all checkers that ran in this compilation
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(String fileName, List<CheckerStatistics> allStatistics)
+            throws IOException {
+        try (Writer out =
+                new BufferedWriter(
+                        new OutputStreamWriter(
+                                new FileOutputStream(fileName), StandardCharsets.UTF_8))) {
+            if (fileName.endsWith(".json")) {
+                writeJson(out, allStatistics);
+            } else {
+                writeCsv(out, allStatistics);
+            }
+        }
+    }
+
+    /**
+     * Writes {@code allStatistics} to {@code out} as CSV, one row per measured item.
+     *
+     * @param out where to write
+     * @param allStatistics the statistics of every checker
+     */
+    private static void writeCsv(Writer out, List<CheckerStatistics> allStatistics)
+            throws IOException {
+        out.write("checker,category,name,count,value1,value2\n");
+        for (CheckerStatistics s : allStatistics) {
+            // For phases, value1 is wall-clock and value2 is CPU milliseconds.
+            for (Phase phase : Phase.values()) {
+                int i = phase.ordinal();
+                csvRow(
+                        out,
+                        s.checkerName,
+                        "phase",
+                        phase.outputName,
+                        s.phaseCounts[i],
+                        millis(s.phaseWallNanos[i]),
+                        millis(s.phaseCpuNanos[i]));
+            }
+            // For caches, count is the number of lookups, value1 the hits and value2 the hit rate.
+            for (Map.Entry<String, long[]> e : s.cacheAccesses.entrySet()) {
+                long hits = e.getValue()[0];
+                long lookups = hits + e.getValue()[1];
+                csvRow(
+                        out,
+                        s.checkerName,
+                        "cache",
+                        e.getKey(),
+                        lookups,
+                        hits,
+                        hitRate(e.getValue()));
+            }
+            for (Map.Entry<String, Long> e : s.counters.entrySet()) {
+                csvRow(out, s.checkerName, "counter", e.getKey(), e.getValue(), "", "");
+            }
+            // For classes and methods, count is the rank and value1 is wall-clock milliseconds.
+            int rank = 1;
+            for (Map.Entry<String, Long> e : slowest(s.classNanos)) {
+                csvRow(out, s.checkerName, "class", e.getKey(), rank++, millis(e.getValue()), "");
+            }
+            rank = 1;
+            for (Map.Entry<String, Long> e : slowest(s.methodNanos)) {
+                csvRow(out, s.checkerName, "method", e.getKey(), rank++, millis(e.getValue()), "");
+            }
+        }
+    }
+
+    /**
+     * Writes one CSV row to {@code out}.
+     *
+     * @param out where to write
+     * @param checker the name of the checker
+     * @param category the kind of item: phase, cache, counter, class, or method
+     * @param name the name of the item
+     * @param count the count column; its meaning depends on {@code category}
+     * @param value1 the first value column; its meaning depends on {@code category}
+     * @param value2 the second value column; its meaning depends on {@code category}
+     */
+    private static void csvRow(
+            Writer out,
+            String checker,
+            String category,
+            String name,
+            long count,
+            Object value1,
+            Object value2)
+            throws IOException {
+        out.write(checker);
+        out.write(',');
+        out.write(category);
+        out.write(',');
+        out.write(csvQuote(name));
+        out.write(',');
+        out.write(Long.toString(count));
+        out.write(',');
+        out.write(String.valueOf(value1));
+        out.write(',');
+        out.write(String.valueOf(value2));
+        out.write('\n');
+    }
+
+    /**
+     * Returns {@code s} as a CSV field, quoted if necessary.
+     *
+     * @param s a string
+     * @return {@code s}, quoted if it contains a comma or a quote
+     */
+    private static String csvQuote(String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0) {
+            return s;
+        }
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Writes {@code allStatistics} to {@code out} as a JSON object.
+     *
+     * @param out where to write
+     * @param allStatistics the statistics of every checker
+     */
+    private static void writeJson(Writer out, List<CheckerStatistics> allStatistics)
+            throws IOException {
+        out.write("{\"checkers\": [");
+        boolean firstChecker = true;
+        for (CheckerStatistics s : allStatistics) {
+            out.write(firstChecker ? "\n" : ",\n");
+            firstChecker = false;
+            out.write("  {\"checker\": " + jsonString(s.checkerName) + ",\n");
+
+            out.write("   \"phases\": {");
+            for (Phase phase : Phase.values()) {
+                int i = phase.ordinal();
+                out.write(phase.ordinal() == 0 ? "" : ", ");
+                out.write(
+                        jsonString(phase.outputName)
+                                + ": {\"count\": "
+                                + s.phaseCounts[i]
+                                + ", \"wallMillis\": "
+                                + millis(s.phaseWallNanos[i])
+                                + ", \"cpuMillis\": "
+                                + millis(s.phaseCpuNanos[i])
+                                + "}");
+            }
+            out.write("},\n");
+
+            out.write("   \"caches\": {");
+            String sep = "";
+            for (Map.Entry<String, long[]> e : s.cacheAccesses.entrySet()) {
+                out.write(
+                        sep
+                                + jsonString(e.getKey())
+                                + ": {\"hits\": "
+                                + e.getValue()[0]
+                                + ", \"misses\": "
+                                + e.getValue()[1]
+                                + ", \"hitRate\": "
+                                + hitRate(e.getValue())
+                                + "}");
+                sep = ", ";
+            }
+            out.write("},\n");
+
+            out.write("   \"counters\": {");
+            sep = "";
+            for (Map.Entry<String, Long> e : s.counters.entrySet()) {
+                out.write(sep + jsonString(e.getKey()) + ": " + e.getValue());
+                sep = ", ";
+            }
+            out.write("},\n");
+
+            out.write("   \"slowestClasses\": ");
+            writeJsonTimes(out, slowest(s.classNanos));
+            out.write(",\n   \"slowestMethods\": ");
+            writeJsonTimes(out, slowest(s.methodNanos));
+            out.write("}");
+        }
+        out.write("\n]}\n");
+    }
+
+    /**
+     * Writes {@code entries} to {@code out} as a JSON array of names and times.
+     *
+     * @param out where to write
+     * @param entries names and their wall-clock nanoseconds
+     */
+    private static void writeJsonTimes(Writer out, List<Map.Entry<String, Long>> entries)
+            throws IOException {
+        out.write("[");
+        String sep = "";
+        for (Map.Entry<String, Long> e : entries) {
+            out.write(
+                    sep
+                            + "{\"name\": "
+                            + jsonString(e.getKey())
+                            + ", \"wallMillis\": "
+                            + millis(e.getValue())
+                            + "}");
+            sep = ", ";
+        }
+        out.write("]");
+    }
+
+    /**
+     * Returns {@code s} as a JSON string literal.
+     *
+     * @param s a string
+     * @return {@code s}, quoted and escaped
+     */
+    private static String jsonString(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Formats nanoseconds as milliseconds.
+     *
+     * @param nanos a duration in nanoseconds
+     * @return the duration in milliseconds, with three decimal places
+     */
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    /**
+     * Formats the hit rate of a cache.
+     *
+     * @param accesses the hits and the misses of a cache
+     * @return the fraction of lookups that were hits, or "0" if there were no lookups
+     */
+    private static String hitRate(long[] accesses) {
+        long lookups = accesses[0] + accesses[1];
+        if (lookups == 0) {
+            return "0";
+        }
+        return String.format(Locale.ROOT, "%.4f", (double) accesses[0] / lookups);
+    }
+}
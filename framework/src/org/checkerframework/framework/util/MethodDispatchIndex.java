@@ -0,0 +1,154 @@
+package org.checkerframework.framework.util;
+
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.Tree;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Name;
+import org.checkerframework.javacutil.CollectionUtils;
+import org.checkerframework.javacutil.ElementUtils;
+import org.checkerframework.javacutil.TreeUtils;
+
+/**
+ * An index from methods that a checker handles specially to the handlers for those methods.
+ *
+ * <p>A checker registers each (method, handler) pair once, typically in the constructor of its
+ * type factory or visitor. Looking up an invocation then resolves the invoked {@link
+ * ExecutableElement} once and returns the handlers of every registered method that it is, or
+ * overrides, as determined by {@link ElementUtils#isMethod}. Registered methods are bucketed by
+ * simple name, so invocations of methods whose name was never registered are rejected without
+ * consulting {@link javax.lang.model.util.Elements#overrides}. The handlers found for the most
+ * recently invoked methods are memoized, so the override check is usually performed once per
+ * invoked method and registered method.
+ *
+ * <p>Handlers can be any object: an enum constant naming the special case is the common choice.
+ *
+ * @param <H> the type of the handlers
+ */
+public class MethodDispatchIndex<H> {
+
+    /** The processing environment, used to determine whether one method overrides another. */
+    private final ProcessingEnvironment env;
+
+    /** The registered methods, keyed by simple name. */
+    private final Map<Name, List<Registration<H>>> registrations = new HashMap<>();
+
+    /** The maximum number of entries in {@link #handlersCache}. */
+    private static final int HANDLERS_CACHE_SIZE = 300;
+
+    /**
+     * The handlers that apply to recently invoked methods, including those inherited through
+     * overriding. Cleared whenever a new method is registered.
+     */
+    private final Map<ExecutableElement, List<H>> handlersCache =
+            CollectionUtils.createLRUCache(HANDLERS_CACHE_SIZE);
+
+    /** @param env the processing environment */
+    public MethodDispatchIndex(ProcessingEnvironment env) {
+        this.env = env;
+    }
+
+    /** A registered method and its handler. */
+    private static class Registration<H> {
+        final ExecutableElement method;
+        final H handler;
+
+        Registration(ExecutableElement method, H handler) {
+            this.method = method;
+            this.handler = handler;
+        }
+    }
+
+    /**
+     * Registers {@code handler} for {@code method} and every method that overrides it.
+     *
+     * @param method a method that is handled specially
+     * @param handler the handler for invocations of {@code method}
+     */
+    public void register(ExecutableElement method, H handler) {
+        Name name = method.getSimpleName();
+        List<Registration<H>> forName = registrations.get(name);
+        if (forName == null) {
+            forName = new ArrayList<>(1);
+            registrations.put(name, forName);
+        }
+        forName.add(new Registration<>(method, handler));
+        handlersCache.clear();
+    }
+
+    /**
+     * Registers {@code handler} for each of {@code methods}, such as all the overloads of a
+     * method.
+     *
+     * @param methods methods that are handled specially
+     * @param handler the handler for invocations of any of {@code methods}
+     */
+    public void register(Collection<ExecutableElement> methods, H handler) {
+        for (ExecutableElement method : methods) {
+            register(method, handler);
+        }
+    }
+
+    /**
+     * Returns the handlers for {@code method}: those registered for {@code method} itself and for
+     * every method that it overrides, in registration order.
+     *
+     * @param method an invoked method
+     * @return the handlers for {@code method}, or an empty list if it is not handled specially
+     */
+    public List<H> getHandlers(ExecutableElement method) {
+        List<Registration<H>> forName = registrations.get(method.getSimpleName());
+        if (forName == null) {
+            return Collections.emptyList();
+        }
+        List<H> handlers = handlersCache.get(method);
+        if (handlers == null) {
+            handlers = new ArrayList<>(1);
+            for (Registration<H> registration : forName) {
+                if (ElementUtils.isMethod(method, registration.method, env)) {
+                    handlers.add(registration.handler);
+                }
+            }
+            handlers =
+                    handlers.isEmpty()
+                            ? Collections.<H>emptyList()
+                            : Collections.unmodifiableList(handlers);
+            handlersCache.put(method, handlers);
+        }
+        return handlers;
+    }
+
+    /**
+     * Returns the handlers for the method invoked by {@code tree}.
+     *
+     * @param tree a tree
+     * @return the handlers for the method invoked by {@code tree}, or an empty list if {@code
+     *     tree} is not a method invocation or the invoked method is not handled specially
+     */
+    public List<H> getHandlers(Tree tree) {
+        if (!(tree instanceof MethodInvocationTree)) {
+            return Collections.emptyList();
+        }
+        return getHandlers(TreeUtils.elementFromUse((MethodInvocationTree) tree));
+    }
+
+    /**
+     * Returns true if {@code tree} is an invocation of a method for which {@code handler} is
+     * registered. This is equivalent to, but faster than, calling {@link
+     * TreeUtils#isMethodInvocation} for each method registered with {@code handler}.
+     *
+     * @param tree a tree
+     * @param handler a handler
+     * @return true if {@code tree} invokes a method, or an override of a method, registered with
+     *     {@code handler}
+     */
+    public boolean isInvocationOf(Tree tree, H handler) {
+        return getHandlers(tree).contains(handler);
+    }
+}
@@ -1,15 +1,21 @@
 package tests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import com.sun.tools.javac.processing.JavacProcessingEnvironment;
 import com.sun.tools.javac.util.Context;
+import java.lang.ref.WeakReference;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
 import org.checkerframework.framework.source.SourceChecker;
 import org.checkerframework.javacutil.AnnotationBuilder;
+import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.ErrorReporter;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -300,4 +306,44 @@ public class AnnotationBuilderTest {
         AnnotationBuilder builder = new AnnotationBuilder(env, ContainingAnno.class);
         builder.setValue("value", anno);
     }
+
+    @Test
+    public void annotationCachePerCompilation() {
+        ProcessingEnvironment env1 = JavacProcessingEnvironment.instance(new Context());
+        ProcessingEnvironment env2 = JavacProcessingEnvironment.instance(new Context());
+        AnnotationBuilder.initAnnotationCache(env1);
+        AnnotationBuilder.initAnnotationCache(env2);
+
+        AnnotationMirror anno1 = AnnotationBuilder.fromClass(env1.getElementUtils(), MyAnno.class);
+        assertSame(anno1, AnnotationBuilder.fromClass(env1.getElementUtils(), MyAnno.class));
+        AnnotationMirror anno2 = AnnotationBuilder.fromClass(env2.getElementUtils(), MyAnno.class);
+        assertNotSame(anno1, anno2);
+        assertTrue(AnnotationUtils.areSame(anno1, anno2));
+
+        AnnotationUtils.clear();
+        AnnotationMirror anno3 = AnnotationBuilder.fromClass(env1.getElementUtils(), MyAnno.class);
+        assertNotSame(anno1, anno3);
+        assertTrue(AnnotationUtils.areSame(anno1, anno3));
+    }
+
+    @Test
+    public void annotationCacheDiscardedWithCompilation() throws InterruptedException {
+        WeakReference<Elements> elements = cacheAnnotationInNewCompilation();
+        for (int i = 0; i < 100 && elements.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(elements.get());
+    }
+
+    /**
+     * Caches an annotation for a new compilation, and returns a weak reference to the element
+     * utilities of that compilation.
+     */
+    private static WeakReference<Elements> cacheAnnotationInNewCompilation() {
+        ProcessingEnvironment env = JavacProcessingEnvironment.instance(new Context());
+        AnnotationBuilder.initAnnotationCache(env);
+        AnnotationBuilder.fromClass(env.getElementUtils(), MyAnno.class);
+        return new WeakReference<>(env.getElementUtils());
+    }
 }
@@ -0,0 +1,98 @@
+package tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import org.checkerframework.framework.util.CheckerStatistics;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests the output of {@link CheckerStatistics}, which is written for -AperformanceStats. */
+public class CheckerStatisticsTest {
+
+    /** Returns statistics for a checker named "Test" with a few recorded measurements. */
+    private static CheckerStatistics sampleStatistics() {
+        CheckerStatistics statistics = new CheckerStatistics("Test", true);
+        statistics.startTimer(CheckerStatistics.Phase.DATAFLOW).stop();
+        statistics.startTimer(CheckerStatistics.Phase.DATAFLOW).stop();
+        statistics.recordCacheAccess("elementCache", true);
+        statistics.recordCacheAccess("elementCache", true);
+        statistics.recordCacheAccess("elementCache", true);
+        statistics.recordCacheAccess("elementCache", false);
+        statistics.incrementCounter("dataflow.worklistIterations", 7);
+        statistics.incrementCounter("dataflow.worklistIterations", 5);
+        statistics.recordMethod("p.C.m()", 2000000);
+        statistics.recordMethod("p.C.n(int,java.lang.String)", 1000000);
+        statistics.recordMethod("p.C.m()", 1000000);
+        return statistics;
+    }
+
+    /** Writes {@code allStatistics} to a temporary file with the given suffix and reads it. */
+    private static List<String> writeAndRead(String suffix, CheckerStatistics... allStatistics)
+            throws IOException {
+        File file = File.createTempFile("CheckerStatisticsTest", suffix);
+        try {
+            CheckerStatistics.write(file.getPath(), Arrays.asList(allStatistics));
+            return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void writesCsv() throws IOException {
+        List<String> lines = writeAndRead(".csv", sampleStatistics());
+        Assert.assertEquals("checker,category,name,count,value1,value2", lines.get(0));
+        Assert.assertTrue(lines.toString(), lines.contains("Test,cache,elementCache,4,3,0.7500"));
+        Assert.assertTrue(
+                lines.toString(), lines.contains("Test,counter,dataflow.worklistIterations,12,,"));
+        Assert.assertTrue(lines.toString(), lines.contains("Test,method,p.C.m(),1,3.000,"));
+        // The comma in the method name is quoted.
+        Assert.assertTrue(
+                lines.toString(),
+                lines.contains("Test,method,\"p.C.n(int,java.lang.String)\",2,1.000,"));
+        boolean foundDataflow = false;
+        for (String line : lines) {
+            if (line.startsWith("Test,phase,dataflow,")) {
+                Assert.assertTrue(line, line.startsWith("Test,phase,dataflow,2,"));
+                foundDataflow = true;
+            }
+        }
+        Assert.assertTrue(lines.toString(), foundDataflow);
+    }
+
+    @Test
+    public void writesJson() throws IOException {
+        String json = String.join("\n", writeAndRead(".json", sampleStatistics()));
+        Assert.assertTrue(json, json.startsWith("{\"checkers\": ["));
+        Assert.assertTrue(json, json.contains("{\"checker\": \"Test\","));
+        Assert.assertTrue(json, json.contains("\"dataflow\": {\"count\": 2, "));
+        Assert.assertTrue(
+                json,
+                json.contains(
+                        "\"elementCache\": {\"hits\": 3, \"misses\": 1, \"hitRate\": 0.7500}"));
+        Assert.assertTrue(json, json.contains("\"dataflow.worklistIterations\": 12"));
+        Assert.assertTrue(
+                json,
+                json.contains(
+                        "\"slowestMethods\": [{\"name\": \"p.C.m()\", \"wallMillis\": 3.000}, "));
+    }
+
+    @Test
+    public void disabledStatisticsRecordNothing() throws IOException {
+        CheckerStatistics disabled = new CheckerStatistics("Disabled", false);
+        Assert.assertEquals(0, disabled.startTimer(CheckerStatistics.Phase.VISITOR).stop());
+        disabled.recordCacheAccess("elementCache", true);
+        disabled.incrementCounter("dataflow.analyses", 1);
+        disabled.recordMethod("p.C.m()", 1);
+        List<String> lines = writeAndRead(".csv", disabled);
+        for (String line : lines) {
+            Assert.assertFalse(line, line.contains("elementCache"));
+            Assert.assertFalse(line, line.contains("dataflow.analyses"));
+            Assert.assertFalse(line, line.contains("p.C.m()"));
+        }
+    }
+}
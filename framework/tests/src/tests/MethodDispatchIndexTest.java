@@ -0,0 +1,127 @@
+package tests;
+
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import org.checkerframework.framework.util.MethodDispatchIndex;
+import org.checkerframework.javacutil.ElementUtils;
+import org.checkerframework.javacutil.TreeUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that {@link MethodDispatchIndex} finds the same handlers as a linear search of the
+ * registered methods with {@link ElementUtils#isMethod}.
+ */
+public class MethodDispatchIndexTest {
+
+    /** Handlers for the registered methods. */
+    private enum Handler {
+        TO_STRING,
+        LENGTH,
+        TO_ARRAY,
+        ADD,
+        MIN
+    }
+
+    private final ProcessingEnvironment env;
+
+    /** The registered methods, in registration order. */
+    private final List<ExecutableElement> registeredMethods = new ArrayList<>();
+
+    /** The handler of each method in {@link #registeredMethods}. */
+    private final List<Handler> registeredHandlers = new ArrayList<>();
+
+    private final MethodDispatchIndex<Handler> index;
+
+    public MethodDispatchIndexTest() {
+        env = JavacProcessingEnvironment.instance(new Context());
+        index = new MethodDispatchIndex<>(env);
+        register(
+                TreeUtils.getMethodList("java.lang.Object", "toString", 0, env),
+                Handler.TO_STRING);
+        register(TreeUtils.getMethodList("java.lang.String", "length", 0, env), Handler.LENGTH);
+        register(
+                TreeUtils.getMethodList("java.lang.CharSequence", "length", 0, env),
+                Handler.LENGTH);
+        register(
+                TreeUtils.getMethodList("java.util.Collection", "toArray", 0, env),
+                Handler.TO_ARRAY);
+        register(
+                TreeUtils.getMethodList("java.util.Collection", "toArray", 1, env),
+                Handler.TO_ARRAY);
+        register(TreeUtils.getMethodList("java.util.List", "add", 1, env), Handler.ADD);
+        register(TreeUtils.getMethodList("java.lang.Math", "min", 2, env), Handler.MIN);
+    }
+
+    /** Registers {@code handler} for {@code methods} in the index and in the linear lists. */
+    private void register(List<ExecutableElement> methods, Handler handler) {
+        Assert.assertFalse(methods.isEmpty());
+        index.register(methods, handler);
+        for (ExecutableElement method : methods) {
+            registeredMethods.add(method);
+            registeredHandlers.add(handler);
+        }
+    }
+
+    /** Returns the handlers for {@code invoked}, found by checking every registered method. */
+    private List<Handler> linearLookup(ExecutableElement invoked) {
+        List<Handler> result = new ArrayList<>();
+        for (int i = 0; i < registeredMethods.size(); i++) {
+            if (ElementUtils.isMethod(invoked, registeredMethods.get(i), env)) {
+                result.add(registeredHandlers.get(i));
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void dispatchMatchesLinearLookup() {
+        int handled = 0;
+        for (String typeName :
+                Arrays.asList(
+                        "java.lang.Object",
+                        "java.lang.String",
+                        "java.lang.StringBuilder",
+                        "java.lang.Math",
+                        "java.lang.Integer",
+                        "java.util.ArrayList",
+                        "java.util.LinkedList",
+                        "java.util.HashSet",
+                        "java.util.Collections")) {
+            TypeElement type = env.getElementUtils().getTypeElement(typeName);
+            // Look up every method twice, so that the second lookup uses the memoized result.
+            for (int pass = 0; pass < 2; pass++) {
+                for (ExecutableElement invoked :
+                        ElementFilter.methodsIn(env.getElementUtils().getAllMembers(type))) {
+                    List<Handler> expected = linearLookup(invoked);
+                    Assert.assertEquals(invoked.toString(), expected, index.getHandlers(invoked));
+                    if (!expected.isEmpty()) {
+                        handled++;
+                    }
+                }
+            }
+        }
+        // Guard against a test that passes because nothing is handled.
+        Assert.assertTrue(handled > 20);
+    }
+
+    @Test
+    public void overridersAreDispatched() {
+        ExecutableElement arrayListToArray =
+                TreeUtils.getMethod("java.util.ArrayList", "toArray", 0, env);
+        Assert.assertEquals(Arrays.asList(Handler.TO_ARRAY), index.getHandlers(arrayListToArray));
+        ExecutableElement stringBuilderLength =
+                TreeUtils.getMethod("java.lang.AbstractStringBuilder", "length", 0, env);
+        Assert.assertEquals(Arrays.asList(Handler.LENGTH), index.getHandlers(stringBuilderLength));
+        ExecutableElement integerHashCode =
+                TreeUtils.getMethod("java.lang.Integer", "hashCode", 0, env);
+        Assert.assertTrue(index.getHandlers(integerHashCode).isEmpty());
+    }
+}
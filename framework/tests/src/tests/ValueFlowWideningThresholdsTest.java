@@ -0,0 +1,27 @@
+package tests;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.common.value.ValueChecker;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/** Tests the constant value propagation type system with {@code -AflowWidening=thresholds}. */
+public class ValueFlowWideningThresholdsTest extends CheckerFrameworkPerDirectoryTest {
+
+    public ValueFlowWideningThresholdsTest(List<File> testFiles) {
+        super(
+                testFiles,
+                org.checkerframework.common.value.ValueChecker.class,
+                "value",
+                "-Anomsgtext",
+                "-Astubs=statically-executable.astub",
+                "-A" + ValueChecker.REPORT_EVAL_WARNS,
+                "-AflowWidening=thresholds");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"all-systems", "value-flowwidening-thresholds"};
+    }
+}
@@ -0,0 +1,25 @@
+import org.checkerframework.common.value.qual.IntRange;
+
+// With -AflowWidening=narrowing, a round of analysis without widening after the fix-point recovers
+// the range that the loop condition implies within the loop body.
+public class Narrowing {
+
+    void countUp() {
+        int i = 0;
+        while (i < 100) {
+            @IntRange(from = 0, to = 99) int inLoop = i;
+            @IntRange(from = 1, to = 100) int next = i + 1;
+            i++;
+        }
+        @IntRange(from = 100) int after = i;
+    }
+
+    void countDown() {
+        int i = 0;
+        while (i > -100) {
+            @IntRange(from = -99, to = 0) int inLoop = i;
+            i--;
+        }
+        @IntRange(to = -100) int after = i;
+    }
+}
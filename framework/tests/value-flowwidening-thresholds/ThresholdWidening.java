@@ -0,0 +1,24 @@
+import org.checkerframework.common.value.qual.IntRange;
+
+// With -AflowWidening=thresholds, the range of a loop counter is widened to the loop bound rather
+// than to the bounds of a primitive type.
+public class ThresholdWidening {
+
+    void countUp() {
+        int i = 0;
+        while (i < 100) {
+            @IntRange(from = 0, to = 99) int inLoop = i;
+            i++;
+        }
+        @IntRange(from = 100, to = 100) int after = i;
+    }
+
+    void countDown() {
+        int i = 0;
+        while (i > -100) {
+            @IntRange(from = -99, to = 0) int inLoop = i;
+            i--;
+        }
+        @IntRange(from = -100, to = -100) int after = i;
+    }
+}
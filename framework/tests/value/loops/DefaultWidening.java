@@ -0,0 +1,17 @@
+import org.checkerframework.common.value.qual.IntRange;
+
+// Without -AflowWidening, the range of a loop counter is widened to the bounds of a primitive type,
+// which is larger than the loop bound. See the value-flowwidening-* directories for the same loop
+// with threshold widening and with narrowing.
+public class DefaultWidening {
+
+    void countUp() {
+        int i = 0;
+        while (i < 100) {
+            i++;
+        }
+        @IntRange(from = 100) int after = i;
+        // :: error: (assignment.type.incompatible)
+        @IntRange(from = 100, to = 100) int exact = i;
+    }
+}
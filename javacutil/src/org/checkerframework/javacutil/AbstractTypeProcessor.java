@@ -79,6 +79,12 @@ public abstract class AbstractTypeProcessor extends AbstractProcessor {
      */
     private static boolean hasInvokedTypeProcessingOver = false;
 
+    /**
+     * Method {@link #typeProcessingFinished()} must be invoked at most once, after the last
+     * invocation of {@link #typeProcess(TypeElement, TreePath)}.
+     */
+    private boolean hasInvokedTypeProcessingFinished = false;
+
     /** The TaskListener registered for completion of attribution. */
     private final AttributionTaskListener listener = new AttributionTaskListener();
 
@@ -144,6 +150,16 @@ public abstract class AbstractTypeProcessor extends AbstractProcessor {
      */
     public void typeProcessingOver() {}
 
+    /**
+     * A method to be called once all the classes are processed, whether or not an error was
+     * reported. If {@link #typeProcessingOver} is called, it is called first.
+     *
+     * <p>Subclasses may override this method to write files or release resources that must not
+     * depend on the absence of errors, such as reports of the processing itself. It is not called
+     * if the tool stops before every class has been analyzed.
+     */
+    public void typeProcessingFinished() {}
+
     /** A task listener that invokes the processor whenever a class is fully analyzed. */
     private final class AttributionTaskListener implements TaskListener {
 
@@ -165,6 +181,11 @@ public abstract class AbstractTypeProcessor extends AbstractProcessor {
                 hasInvokedTypeProcessingOver = true;
             }
 
+            if (!hasInvokedTypeProcessingFinished && elements.isEmpty()) {
+                typeProcessingFinished();
+                hasInvokedTypeProcessingFinished = true;
+            }
+
             if (e.getTypeElement() == null) {
                 throw new AssertionError("event task without a type element");
             }
@@ -185,6 +206,11 @@ public abstract class AbstractTypeProcessor extends AbstractProcessor {
                 typeProcessingOver();
                 hasInvokedTypeProcessingOver = true;
             }
+
+            if (!hasInvokedTypeProcessingFinished && elements.isEmpty()) {
+                typeProcessingFinished();
+                hasInvokedTypeProcessingFinished = true;
+            }
         }
 
         @Override
@@ -1,16 +1,20 @@
 package org.checkerframework.javacutil;
 
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
 import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.AnnotationValue;
@@ -30,6 +34,7 @@ import javax.lang.model.util.ElementFilter;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 import org.checkerframework.checker.interning.qual.Interned;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.dataflow.qual.SideEffectFree;
 
 /**
@@ -60,9 +65,87 @@ public class AnnotationBuilder {
     private final DeclaredType annotationType;
     private final Map<ExecutableElement, AnnotationValue> elementValues;
 
-    /** Caching for annotation creation. */
-    private static final Map<CharSequence, AnnotationMirror> annotationsFromNames =
-            Collections.synchronizedMap(new HashMap<CharSequence, AnnotationMirror>());
+    /** The key under which the annotation cache of a compilation is stored in the javac context. */
+    private static final Context.Key<AnnotationCache> ANNOTATION_CACHE_KEY = new Context.Key<>();
+
+    /**
+     * Caching for annotation creation, per compilation. An annotation mirror refers to the symbols
+     * of one compilation, so each compilation has its own cache, which {@link #initAnnotationCache}
+     * stores in its javac context. Compilations that run concurrently in one JVM, as in a build
+     * daemon, neither contend for a lock nor evict each other's entries.
+     *
+     * <p>{@link #fromName} only receives the {@link Elements} of a compilation, of which javac
+     * creates one per context, so this map finds the cache of a compilation by its {@link
+     * Elements}. It refers to the caches only weakly: the annotations in a cache refer to the
+     * symbols of the compilation, and through them to its {@link Elements}, so a strongly
+     * referenced cache would keep its own key alive. The cache is discarded along with its context.
+     */
+    private static final Map<Elements, WeakReference<AnnotationCache>> annotationCaches =
+            new WeakHashMap<>();
+
+    /**
+     * The cache that the current thread used last, which is nearly always the one it needs. It is
+     * only weakly referenced, so that a thread that outlives its compilation, such as a pooled
+     * thread of a build daemon, does not keep the annotations of that compilation alive.
+     */
+    private static final ThreadLocal<WeakReference<AnnotationCache>> lastAnnotationCache =
+            new ThreadLocal<>();
+
+    /** The annotations created by {@link #fromName} for one compilation. */
+    private static class AnnotationCache {
+        /** The element utilities of the compilation. */
+        final WeakReference<Elements> elements;
+
+        /** The cached annotations, by name. */
+        final ConcurrentHashMap<CharSequence, AnnotationMirror> annotations =
+                new ConcurrentHashMap<>();
+
+        AnnotationCache(Elements elements) {
+            this.elements = new WeakReference<>(elements);
+        }
+    }
+
+    /**
+     * Creates the cache of the annotations that {@link #fromName} creates for the compilation of
+     * {@code env}, unless it already exists. Without a cache, {@link #fromName} creates a new
+     * annotation mirror on every call.
+     *
+     * @param env the processing environment of the compilation
+     */
+    public static void initAnnotationCache(ProcessingEnvironment env) {
+        if (!(env instanceof JavacProcessingEnvironment)) {
+            return;
+        }
+        Context context = ((JavacProcessingEnvironment) env).getContext();
+        synchronized (annotationCaches) {
+            if (context.get(ANNOTATION_CACHE_KEY) == null) {
+                AnnotationCache cache = new AnnotationCache(env.getElementUtils());
+                context.put(ANNOTATION_CACHE_KEY, cache);
+                annotationCaches.put(env.getElementUtils(), new WeakReference<>(cache));
+            }
+        }
+    }
+
+    /**
+     * Returns the annotation cache for the compilation of {@code elements}, or null if it has none.
+     * Only takes a lock if the current thread last used the cache of a different compilation.
+     */
+    private static @Nullable Map<CharSequence, AnnotationMirror> annotationCacheFor(
+            Elements elements) {
+        WeakReference<AnnotationCache> lastCache = lastAnnotationCache.get();
+        AnnotationCache cache = lastCache == null ? null : lastCache.get();
+        if (cache == null || cache.elements.get() != elements) {
+            synchronized (annotationCaches) {
+                WeakReference<AnnotationCache> ref = annotationCaches.get(elements);
+                cache = ref == null ? null : ref.get();
+            }
+            if (cache == null) {
+                return null;
+            }
+            lastAnnotationCache.set(new WeakReference<>(cache));
+        }
+        return cache.annotations;
+    }
 
     public AnnotationBuilder(ProcessingEnvironment env, Class<? extends Annotation> anno) {
         this(env, anno.getCanonicalName());
@@ -113,7 +196,8 @@ public class AnnotationBuilder {
      * @return an {@link AnnotationMirror} of type {@code} name
      */
     public static AnnotationMirror fromName(Elements elements, CharSequence name) {
-        AnnotationMirror res = annotationsFromNames.get(name);
+        Map<CharSequence, AnnotationMirror> cache = annotationCacheFor(elements);
+        AnnotationMirror res = cache == null ? null : cache.get(name);
         if (res != null) {
             return res;
         }
@@ -132,13 +216,23 @@ public class AnnotationBuilder {
         }
         AnnotationMirror result =
                 new CheckerFrameworkAnnotationMirror(annoType, Collections.emptyMap());
-        annotationsFromNames.put(name, result);
-        return result;
+        if (cache == null) {
+            return result;
+        }
+        AnnotationMirror previous = cache.putIfAbsent(name, result);
+        return previous != null ? previous : result;
     }
 
-    // TODO: hack to clear out static state.
+    /** Clears the annotation caches of all compilations. */
     public static void clear() {
-        annotationsFromNames.clear();
+        synchronized (annotationCaches) {
+            for (WeakReference<AnnotationCache> ref : annotationCaches.values()) {
+                AnnotationCache cache = ref.get();
+                if (cache != null) {
+                    cache.annotations.clear();
+                }
+            }
+        }
     }
 
     private boolean wasBuilt = false;
@@ -41,21 +41,30 @@ public class AnnotationUtils {
         throw new AssertionError("Class AnnotationUtils cannot be instantiated.");
     }
 
-    // TODO: hack to clear out static state.
+    /**
+     * Clears the annotation caches of {@link AnnotationBuilder}. The names of annotation classes
+     * do not depend on the compilation and are kept.
+     */
     public static void clear() {
         AnnotationBuilder.clear();
-        annotationClassNames.clear();
     }
 
     // **********************************************************************
     // Factory Methods to create instances of AnnotationMirror
     // **********************************************************************
 
-    private static final int ANNOTATION_CACHE_SIZE = 500;
-
-    /** Maps classes representing AnnotationMirrors to their names. */
-    private static final Map<Class<? extends Annotation>, String> annotationClassNames =
-            Collections.synchronizedMap(CollectionUtils.createLRUCache(ANNOTATION_CACHE_SIZE));
+    /**
+     * Maps classes representing AnnotationMirrors to their names. The name of a class does not
+     * depend on the compilation, so the cache is shared by all compilations in the JVM; a {@link
+     * ClassValue} is read without locking and does not prevent classes from being unloaded.
+     */
+    private static final ClassValue<String> annotationClassNames =
+            new ClassValue<String>() {
+                @Override
+                protected String computeValue(Class<?> annoClass) {
+                    return annoClass.getCanonicalName();
+                }
+            };
 
     // **********************************************************************
     // Helper methods to handle annotations.  mainly workaround
@@ -137,12 +146,8 @@ public class AnnotationUtils {
      */
     public static boolean areSameByClass(
             AnnotationMirror am, Class<? extends Annotation> annoClass) {
+        // This method is faster than #areSameByName because of this cache.
         String canonicalName = annotationClassNames.get(annoClass);
-        if (canonicalName == null) {
-            // This method is faster than #areSameByName because of this cache.
-            canonicalName = annoClass.getCanonicalName();
-            annotationClassNames.put(annoClass, canonicalName);
-        }
         return areSameByName(am, canonicalName);
     }
 